@@ -0,0 +1,40 @@
+package emi.mtg.deckbuilder.benchmarks;
+
+import emi.lib.mtg.Card;
+import emi.mtg.deckbuilder.controller.PrintIndex;
+import emi.mtg.deckbuilder.model.CardInstance;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared benchmark state: a synthetic card database and its print index, and one card instance per print, as the
+ * collection view sees it.
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+	private static final long SEED = 0x5eed;
+
+	@Param({ "30000" })
+	public int prints;
+
+	public SyntheticDataSource data;
+	public PrintIndex index;
+	public List<CardInstance> instances;
+	public ObservableList<CardInstance> source;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		data = new SyntheticDataSource(prints, SEED);
+		index = new PrintIndex(data);
+
+		instances = new ArrayList<>(prints);
+		for (Card.Print print : data.prints()) instances.add(new CardInstance(print));
+		SyntheticDataSource.tag(instances, SEED);
+
+		source = FXCollections.observableArrayList(instances);
+	}
+}
@@ -0,0 +1,63 @@
+package emi.mtg.deckbuilder.benchmarks;
+
+import emi.mtg.deckbuilder.model.CardInstance;
+import emi.mtg.deckbuilder.model.FilteredGroupedModel;
+import emi.mtg.deckbuilder.view.components.CardView;
+import emi.mtg.deckbuilder.view.groupings.ColorGrouping;
+import emi.mtg.deckbuilder.view.groupings.ManaValue;
+import emi.mtg.deckbuilder.view.groupings.Rarity;
+import emi.mtg.deckbuilder.view.groupings.TagGrouping;
+import emi.mtg.deckbuilder.view.sortings.Name;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full FilteredGroupedModel regroup of the whole corpus, as happens when the collection's grouping,
+ * uniqueness or filter changes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegroupBenchmark {
+	@Param({ "ManaValue", "ColorGrouping", "TagGrouping", "Rarity" })
+	public String grouping;
+
+	@Param({ "Prints", "Cards" })
+	public CardView.Uniqueness uniqueness;
+
+	@Param({ "true", "false" })
+	public boolean globallyUnique;
+
+	private FilteredGroupedModel<CardView.Grouping.Group, CardInstance> model;
+
+	private static CardView.Grouping grouping(String name) {
+		switch (name) {
+			case "ManaValue":
+				return new ManaValue();
+			case "ColorGrouping":
+				return new ColorGrouping();
+			case "TagGrouping":
+				return new TagGrouping();
+			case "Rarity":
+				return new Rarity();
+			default:
+				throw new IllegalArgumentException("Unknown grouping " + name);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup(Corpus corpus) {
+		final CardView.Grouping grouping = grouping(this.grouping);
+		model = new FilteredGroupedModel<>(corpus.source, ci -> true, uniqueness, globallyUnique, new Name(), grouping::groups);
+	}
+
+	@Benchmark
+	public int regroup() {
+		model.regroup();
+		return model.filtered().size();
+	}
+}
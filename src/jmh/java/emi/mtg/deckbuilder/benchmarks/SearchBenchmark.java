@@ -0,0 +1,87 @@
+package emi.mtg.deckbuilder.benchmarks;
+
+import emi.mtg.deckbuilder.controller.PrintIndex;
+import emi.mtg.deckbuilder.model.CardInstance;
+import emi.mtg.deckbuilder.view.search.expressions.ExpressionFilter;
+import emi.mtg.deckbuilder.view.search.omnifilter.Omnifilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Measures parsing search queries, and evaluating them against every card in the corpus. Omnifilter queries are run
+ * both with and without the print index prefilter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+	@State(Scope.Benchmark)
+	public static class OmnifilterQuery {
+		@Param({ "o:draw", "t:creature mv>=3", "c>=g o:flying", "r:rare" })
+		public String query;
+
+		@Param({ "true", "false" })
+		public boolean indexed;
+
+		public final Omnifilter provider = new Omnifilter();
+		public PrintIndex index;
+		public Predicate<CardInstance> predicate;
+
+		@Setup(Level.Trial)
+		public void setup(Corpus corpus) {
+			index = indexed ? corpus.index : null;
+			predicate = provider.parse(query, index);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class ExpressionQuery {
+		@Param({ "o >= \"draw\"", "card.front.manaValue >= 3 && card.front.power <= 2", "card.name >= \"or\" || o >= \"trample\" || o >= \"flying\" || card.front.power = 5" })
+		public String query;
+
+		@Param({ "true", "false" })
+		public boolean specialize;
+
+		public final ExpressionFilter provider = new ExpressionFilter();
+		public Predicate<CardInstance> predicate;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			predicate = provider.parse(query, specialize);
+		}
+	}
+
+	private static int count(Corpus corpus, Predicate<CardInstance> predicate) {
+		int matched = 0;
+		for (CardInstance ci : corpus.instances) {
+			if (predicate.test(ci)) ++matched;
+		}
+		return matched;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Predicate<CardInstance> omnifilterParse(OmnifilterQuery query) {
+		return query.provider.parse(query.query, query.index);
+	}
+
+	@Benchmark
+	public int omnifilterEvaluate(Corpus corpus, OmnifilterQuery query) {
+		return count(corpus, query.predicate);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Predicate<CardInstance> expressionParse(ExpressionQuery query) {
+		return query.provider.parse(query.query, query.specialize);
+	}
+
+	@Benchmark
+	public int expressionEvaluate(Corpus corpus, ExpressionQuery query) {
+		return count(corpus, query.predicate);
+	}
+}
@@ -0,0 +1,69 @@
+package emi.mtg.deckbuilder.benchmarks;
+
+import emi.mtg.deckbuilder.model.CardInstance;
+import emi.mtg.deckbuilder.view.components.CardView;
+import emi.mtg.deckbuilder.view.sortings.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sorting the whole corpus with comparators built by CardView.ActiveSorting.merge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortingBenchmark {
+	/**
+	 * Comma-separated sorting names; a leading '-' sorts descending. The first two match the default deck and
+	 * collection sortings.
+	 */
+	@Param({ "Color,ManaValue,Name", "Name,Rarity", "Name", "-ManaCost,Color,Name" })
+	public String sortings;
+
+	private CardInstance[] instances;
+	private Comparator<CardInstance> comparator;
+
+	private static CardView.Sorting sorting(String name) {
+		switch (name) {
+			case "Color":
+				return new Color();
+			case "ManaCost":
+				return new ManaCost();
+			case "ManaValue":
+				return new ManaValue();
+			case "Name":
+				return new Name();
+			case "Rarity":
+				return new Rarity();
+			default:
+				throw new IllegalArgumentException("Unknown sorting " + name);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup(Corpus corpus) {
+		final List<CardView.ActiveSorting> active = new ArrayList<>();
+		for (String name : sortings.split(",")) {
+			final boolean descending = name.startsWith("-");
+			active.add(new CardView.ActiveSorting(sorting(descending ? name.substring(1) : name), descending));
+		}
+
+		instances = corpus.instances.toArray(new CardInstance[0]);
+		comparator = CardView.ActiveSorting.merge(active);
+	}
+
+	@Benchmark
+	public CardInstance[] sort() {
+		final CardInstance[] sorted = instances.clone();
+		Arrays.sort(sorted, comparator);
+		return sorted;
+	}
+}
@@ -0,0 +1,442 @@
+package emi.mtg.deckbuilder.benchmarks;
+
+import emi.lib.mtg.Card;
+import emi.lib.mtg.DataSource;
+import emi.lib.mtg.Mana;
+import emi.lib.mtg.TypeLine;
+import emi.lib.mtg.enums.Color;
+import emi.lib.mtg.enums.Rarity;
+import emi.lib.mtg.game.Format;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A deterministic, randomly-generated card database of roughly realistic shape, for benchmarking without real card
+ * data on disk. Cards, faces, prints and sets are plain classes holding their values in fields, so accessors cost about
+ * what the real data library's do.
+ */
+public class SyntheticDataSource implements DataSource {
+	private static final String[] SYLLABLES = { "ar", "bel", "cor", "dra", "el", "fen", "gor", "hal", "ith", "kor", "lum", "mor", "nex", "or", "pyr", "quel", "ros", "sha", "thal", "ur", "vex", "wyn", "zur" };
+	private static final String[] TITLES = { "Angel", "Archivist", "Behemoth", "Bolt", "Charm", "Colossus", "Command", "Drake", "Edict", "Elemental", "Familiar", "Growth", "Guardian", "Harbinger", "Knight", "Oracle", "Rebuke", "Revelation", "Sentinel", "Shaman", "Sphinx", "Titan", "Visionary", "Wurm" };
+	private static final String[] SUBTYPES = { "Human", "Elf", "Goblin", "Merfolk", "Zombie", "Vampire", "Angel", "Dragon", "Wizard", "Warrior", "Cleric", "Rogue", "Beast", "Elemental", "Spirit", "Knight" };
+	private static final String[] KEYWORDS = { "Flying", "Trample", "Haste", "Vigilance", "Lifelink", "Deathtouch", "First strike", "Reach", "Menace", "Flash" };
+	private static final String[] SENTENCES = {
+			"When ~ enters the battlefield, draw a card.",
+			"Destroy target creature.",
+			"Counter target spell.",
+			"~ deals 3 damage to any target.",
+			"Return target creature to its owner's hand.",
+			"Target player discards two cards.",
+			"Creatures you control get +1/+1 until end of turn.",
+			"Search your library for a basic land card, put it onto the battlefield tapped, then shuffle.",
+			"{T}: Add one mana of any color.",
+			"Whenever ~ attacks, create a 1/1 white Soldier creature token.",
+			"Draw two cards, then discard a card.",
+			"You gain 4 life.",
+			"Exile target artifact or enchantment.",
+			"Put a +1/+1 counter on target creature.",
+			"At the beginning of your upkeep, scry 1.",
+	};
+	private static final String[] COLORS = { "w", "u", "b", "r", "g" };
+	private static final String[] PAIRS = { "wu", "ub", "br", "rg", "gw", "wb", "ur", "bg", "rw", "gu" };
+	private static final String[] TRIPLES = { "wub", "ubr", "brg", "rgw", "gwu", "wbg", "urw", "bgu", "rwb", "gur" };
+	private static final String[] TAGS = { "ramp", "removal", "draw", "threat", "finisher", "interaction" };
+
+	private static final int SETS = 120;
+
+	private static final class SyntheticSet implements emi.lib.mtg.Set {
+		final String name, code;
+		final LocalDate releaseDate;
+		final Set<Card.Print> prints = new LinkedHashSet<>();
+		final Map<String, Card.Print> byNumber = new HashMap<>();
+
+		SyntheticSet(String name, String code, LocalDate releaseDate) {
+			this.name = name;
+			this.code = code;
+			this.releaseDate = releaseDate;
+		}
+
+		@Override public String name() { return name; }
+		@Override public String code() { return code; }
+		@Override public Set<? extends Card.Print> prints() { return prints; }
+		@Override public Card.Print print(String collectorNumber) { return byNumber.get(collectorNumber); }
+		@Override public LocalDate releaseDate() { return releaseDate; }
+		@Override public Type type() { return Type.Expansion; }
+		@Override public String toString() { return code; }
+	}
+
+	private static final class SyntheticCard implements Card {
+		final String name;
+		String fullName;
+		Card.Face front, back;
+		final Set<Card.Face> faces = new LinkedHashSet<>();
+		final Map<String, Card.Face> byName = new HashMap<>();
+		final Set<Card.Print> prints = new LinkedHashSet<>();
+
+		SyntheticCard(String name) {
+			this.name = name;
+		}
+
+		@Override public Set<? extends Card.Face> faces() { return faces; }
+		@Override public Set<? extends Card.Face> mainFaces() { return Collections.singleton(front); }
+		@Override public Card.Face front() { return front; }
+		@Override public Card.Face face(String name) { return byName.get(name); }
+		@Override public Set<? extends Card.Print> prints() { return prints; }
+
+		@Override
+		public Card.Print print(UUID id) {
+			for (Card.Print print : prints) {
+				if (print.id().equals(id)) return print;
+			}
+			return null;
+		}
+
+		@Override
+		public Card.Print print(Card.Print.Reference ref) {
+			return print(ref.setCode(), ref.collectorNumber());
+		}
+
+		@Override
+		public Card.Print print(String setCode, String collectorNumber) {
+			for (Card.Print print : prints) {
+				if (print.set().code().equalsIgnoreCase(setCode) && print.collectorNumber().equals(collectorNumber)) return print;
+			}
+			return null;
+		}
+
+		@Override public String name() { return name; }
+		@Override public String fullName() { return fullName; }
+		@Override public String rules() { return front.rules(); }
+		@Override public Set<? extends Card.Face> transformedFaces() { return back == null ? Collections.emptySet() : Collections.singleton(back); }
+		@Override public Card.Face flipped() { return null; }
+		@Override public Card.Face transformed() { return back; }
+		@Override public Mana.Value manaCost() { return front.manaCost(); }
+		@Override public Color.Combination colorIdentity() { return front.colorIdentity(); }
+		@Override public Color.Combination color() { return front.color(); }
+		@Override public Legality legality(Format format) { return Legality.Legal; }
+		@Override public Map<Format, Legality> legalities() { return Collections.emptyMap(); }
+		@Override public String toString() { return name; }
+	}
+
+	private static final class SyntheticFace implements Card.Face {
+		final Card card;
+		final String name, rules, printedPower, printedToughness;
+		final Mana.Value manaCost;
+		final double manaValue, power, toughness;
+		final TypeLine type;
+		final Color.Combination color;
+
+		SyntheticFace(Card card, String name, Mana.Value manaCost, double manaValue, TypeLine type, String rules, String printedPower, String printedToughness, double power, double toughness, Color.Combination color) {
+			this.card = card;
+			this.name = name;
+			this.manaCost = manaCost;
+			this.manaValue = manaValue;
+			this.type = type;
+			this.rules = rules;
+			this.printedPower = printedPower;
+			this.printedToughness = printedToughness;
+			this.power = power;
+			this.toughness = toughness;
+			this.color = color;
+		}
+
+		@Override public String name() { return name; }
+		@Override public Mana.Value manaCost() { return manaCost; }
+		@Override public double manaValue() { return manaValue; }
+		@Override public TypeLine type() { return type; }
+		@Override public String rules() { return rules; }
+		@Override public String ptldBox() { return printedPower.isEmpty() ? "" : printedPower + "/" + printedToughness; }
+		@Override public String printedPower() { return printedPower; }
+		@Override public String printedToughness() { return printedToughness; }
+		@Override public String printedLoyalty() { return ""; }
+		@Override public String printedDefense() { return ""; }
+		@Override public double power() { return power; }
+		@Override public double toughness() { return toughness; }
+		@Override public double loyalty() { return 0.0; }
+		@Override public double defense() { return 0.0; }
+		@Override public Color.Combination color() { return color; }
+		@Override public Color.Combination colorIndicator() { return Color.Combination.Empty; }
+		@Override public Color.Combination colorIdentity() { return color; }
+		@Override public String flavor() { return ""; }
+		@Override public Card card() { return card; }
+		@Override public String toString() { return name; }
+	}
+
+	private static final class SyntheticPrint implements Card.Print {
+		final Card card;
+		final emi.lib.mtg.Set set;
+		final Rarity rarity;
+		final String collectorNumber;
+		final UUID id;
+		final LocalDate releaseDate;
+		final Set<Card.Print.Face> faces = new LinkedHashSet<>(), mainFaces = new LinkedHashSet<>();
+		final Map<Card.Face, Card.Print.Face> byFace = new HashMap<>();
+
+		SyntheticPrint(Card card, emi.lib.mtg.Set set, Rarity rarity, String collectorNumber, UUID id, LocalDate releaseDate) {
+			this.card = card;
+			this.set = set;
+			this.rarity = rarity;
+			this.collectorNumber = collectorNumber;
+			this.id = id;
+			this.releaseDate = releaseDate;
+		}
+
+		@Override public Card card() { return card; }
+		@Override public Set<? extends Card.Print.Face> faces() { return faces; }
+		@Override public Set<? extends Card.Print.Face> mainFaces() { return mainFaces; }
+
+		@Override
+		public Set<? extends Card.Print.Face> faces(Card.Face face) {
+			final Card.Print.Face printFace = byFace.get(face);
+			return printFace == null ? Collections.emptySet() : Collections.singleton(printFace);
+		}
+
+		@Override public Card.Print.Face face(Card.Face face) { return byFace.get(face); }
+		@Override public emi.lib.mtg.Set set() { return set; }
+		@Override public Rarity rarity() { return rarity; }
+		@Override public Integer multiverseId() { return null; }
+		@Override public int variation() { return 1; }
+		@Override public String collectorNumber() { return collectorNumber; }
+		@Override public Integer mtgoCatalogId() { return null; }
+		@Override public boolean promo() { return false; }
+		@Override public Treatment treatment() { return Treatment.None; }
+		@Override public UUID id() { return id; }
+		@Override public LocalDate releaseDate() { return releaseDate; }
+		@Override public String toString() { return card.name() + " (" + set.code() + ")"; }
+	}
+
+	private static final class SyntheticPrintFace implements Card.Print.Face {
+		final Card.Face face;
+		final Card.Print print;
+		final boolean onBack;
+		final String flavor;
+
+		SyntheticPrintFace(Card.Face face, Card.Print print, boolean onBack, String flavor) {
+			this.face = face;
+			this.print = print;
+			this.onBack = onBack;
+			this.flavor = flavor;
+		}
+
+		@Override public Card.Face face() { return face; }
+		@Override public Card.Print print() { return print; }
+		@Override public boolean contains(Card.Print.Face other) { return other == this; }
+		@Override public String flavor() { return flavor; }
+		@Override public boolean onBack() { return onBack; }
+		@Override public double x() { return 0.0; }
+		@Override public double y() { return 0.0; }
+		@Override public double width() { return 1.0; }
+		@Override public double height() { return 1.0; }
+		@Override public String toString() { return face.name(); }
+	}
+
+	private final Random random;
+	private final Map<String, Card> cards;
+	private final Map<UUID, Card.Print> prints;
+	private final Map<String, SyntheticSet> sets;
+
+	/**
+	 * Generates a synthetic database.
+	 *
+	 * @param printCount The approximate number of prints to generate. Cards average a little over two prints each.
+	 * @param seed Random seed; the same seed always produces the same database.
+	 */
+	public SyntheticDataSource(int printCount, long seed) {
+		this.random = new Random(seed);
+		this.cards = new LinkedHashMap<>();
+		this.prints = new LinkedHashMap<>();
+		this.sets = new LinkedHashMap<>();
+
+		for (int i = 0; i < SETS; ++i) {
+			final String code = String.format("S%02X", i);
+			sets.put(code, new SyntheticSet("Synthetic Set " + i, code, LocalDate.of(1993, 8, 5).plusDays(i * 90L)));
+		}
+
+		final List<SyntheticSet> setList = new ArrayList<>(sets.values());
+
+		while (prints.size() < printCount) {
+			final SyntheticCard card = card();
+			final int printings = 1 + (random.nextInt(4) == 0 ? random.nextInt(8) : random.nextInt(2));
+
+			for (int i = 0; i < printings && prints.size() < printCount; ++i) {
+				final SyntheticSet set = setList.get(random.nextInt(SETS));
+				final Card.Print print = print(card, set, set.prints.size() + 1);
+				set.prints.add(print);
+				set.byNumber.put(print.collectorNumber(), print);
+				prints.put(print.id(), print);
+				card.prints.add(print);
+			}
+		}
+	}
+
+	/**
+	 * Tags roughly half of the given instances with one or two of a handful of deck-building tags.
+	 *
+	 * @param instances The instances to tag.
+	 * @param seed Random seed.
+	 */
+	public static void tag(Iterable<? extends emi.mtg.deckbuilder.model.CardInstance> instances, long seed) {
+		final Random random = new Random(seed);
+		for (emi.mtg.deckbuilder.model.CardInstance ci : instances) {
+			if (random.nextBoolean()) continue;
+			ci.tags().add(TAGS[random.nextInt(TAGS.length)]);
+			if (random.nextInt(4) == 0) ci.tags().add(TAGS[random.nextInt(TAGS.length)]);
+		}
+	}
+
+	private <T> T pick(T[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private String name() {
+		StringBuilder name = new StringBuilder();
+		for (int i = 1 + random.nextInt(3); i > 0; --i) name.append(pick(SYLLABLES));
+		name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+		return name.append(random.nextBoolean() ? ", " : " ").append(pick(TITLES)).toString();
+	}
+
+	private SyntheticCard card() {
+		String name;
+		do {
+			name = name();
+		} while (cards.containsKey(name));
+
+		final SyntheticCard card = new SyntheticCard(name);
+		card.front = face(card, name);
+
+		if (random.nextInt(20) == 0) {
+			String backName;
+			do {
+				backName = name();
+			} while (cards.containsKey(backName));
+			card.back = face(card, backName);
+		}
+
+		card.faces.add(card.front);
+		if (card.back != null) card.faces.add(card.back);
+		for (Card.Face face : card.faces) card.byName.put(face.name(), face);
+		card.fullName = card.back == null ? name : name + " // " + card.back.name();
+
+		cards.put(name, card);
+		return card;
+	}
+
+	private Card.Face face(Card card, String name) {
+		final int roll = random.nextInt(100);
+		final boolean land = roll < 8, creature = roll >= 8 && roll < 55;
+		final boolean legendary = random.nextInt(10) == 0;
+
+		final String colors;
+		final int colorRoll = random.nextInt(100);
+		if (land || colorRoll < 10) colors = "";
+		else if (colorRoll < 75) colors = pick(COLORS);
+		else if (colorRoll < 95) colors = pick(PAIRS);
+		else colors = pick(TRIPLES);
+
+		final StringBuilder cost = new StringBuilder();
+		double value = 0;
+		if (!land) {
+			if (random.nextInt(30) == 0) {
+				cost.append("{X}");
+			}
+
+			final int generic = random.nextInt(colors.isEmpty() ? 7 : 5);
+			if (generic > 0 || colors.isEmpty()) {
+				cost.append('{').append(generic).append('}');
+				value += generic;
+			}
+
+			for (char c : colors.toCharArray()) {
+				for (int n = 1 + (random.nextInt(3) == 0 ? 1 : 0); n > 0; --n) {
+					cost.append('{').append(Character.toUpperCase(c)).append('}');
+					value += 1;
+				}
+			}
+		}
+
+		final StringBuilder type = new StringBuilder();
+		if (legendary) type.append("Legendary ");
+		if (land) {
+			type.append("Land");
+		} else if (creature) {
+			type.append(random.nextInt(8) == 0 ? "Artifact Creature " : "Creature ").append(pick(SUBTYPES));
+			if (random.nextBoolean()) type.append(' ').append(pick(SUBTYPES));
+		} else {
+			type.append(pick(new String[] { "Instant", "Sorcery", "Enchantment", "Artifact", "Planeswalker" }));
+		}
+
+		final StringBuilder rules = new StringBuilder();
+		if (creature && random.nextBoolean()) rules.append(pick(KEYWORDS)).append('\n');
+		for (int i = random.nextInt(3); i >= 0; --i) rules.append(pick(SENTENCES)).append('\n');
+		final String text = rules.toString().trim().replace("~", name);
+
+		final Color.Combination color = colors.isEmpty() ? Color.Combination.Empty : Color.Combination.byString(colors);
+		final double power = creature ? random.nextInt(7) : 0, toughness = creature ? 1 + random.nextInt(6) : 0;
+
+		return new SyntheticFace(card, name,
+				land ? Mana.Value.of() : Mana.Value.parse(cost.toString()), value,
+				TypeLine.Basic.parseFragment(type.toString()), text,
+				creature ? Integer.toString((int) power) : "", creature ? Integer.toString((int) toughness) : "",
+				power, toughness, color);
+	}
+
+	private Card.Print print(Card card, emi.lib.mtg.Set set, int number) {
+		final UUID id = new UUID(random.nextLong(), random.nextLong());
+		final Rarity[] rarities = Rarity.values();
+		final SyntheticPrint print = new SyntheticPrint(card, set, rarities[random.nextInt(rarities.length)], Integer.toString(number), id, set.releaseDate());
+
+		for (Card.Face face : card.faces()) {
+			final Card.Print.Face printFace = new SyntheticPrintFace(face, print, face != card.front(), random.nextInt(3) == 0 ? "" : "Synthetic flavor text.");
+			print.faces.add(printFace);
+			if (face == card.front()) print.mainFaces.add(printFace);
+			print.byFace.put(face, printFace);
+		}
+
+		return print;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Synthetic Data (%d cards, %d prints)", cards.size(), prints.size());
+	}
+
+	@Override
+	public boolean loadData(Path dataDir, DoubleConsumer progress) throws IOException {
+		// Everything's generated up front.
+		return true;
+	}
+
+	@Override
+	public Card card(String name, char variation) {
+		return cards.get(name);
+	}
+
+	@Override
+	public Set<? extends Card> cards() {
+		return new LinkedHashSet<>(cards.values());
+	}
+
+	@Override
+	public Set<? extends Card.Print> prints() {
+		return new LinkedHashSet<>(prints.values());
+	}
+
+	@Override
+	public Card.Print print(UUID id) {
+		return prints.get(id);
+	}
+
+	@Override
+	public Set<? extends emi.lib.mtg.Set> sets() {
+		return new LinkedHashSet<>(sets.values());
+	}
+
+	@Override
+	public emi.lib.mtg.Set set(String code) {
+		return sets.get(code);
+	}
+}
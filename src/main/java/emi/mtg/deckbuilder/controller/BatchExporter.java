@@ -0,0 +1,221 @@
+package emi.mtg.deckbuilder.controller;
+
+import emi.lib.mtg.Card;
+import emi.mtg.deckbuilder.controller.serdes.DeckImportExport;
+import emi.mtg.deckbuilder.controller.serdes.impl.ImageExporter;
+import emi.mtg.deckbuilder.controller.serdes.impl.Json;
+import emi.mtg.deckbuilder.model.CardInstance;
+import emi.mtg.deckbuilder.model.DeckList;
+import emi.mtg.deckbuilder.util.Slog;
+import emi.mtg.deckbuilder.view.MainApplication;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Exports every deck in a directory to several formats at once. Decks are read and exported on a fixed pool of worker
+ * threads, so at most a few image exports (each holding a full deck image) are in flight at a time.
+ *
+ * Thumbnails for image exports are warmed up a deck ahead: when a deck's first export starts, its thumbnails and the
+ * next deck's are requested in the background, so they're loading while earlier exports finish. Each warm-up is sized to
+ * the image cache's budget, and no thumbnails are held here, so the cache stays in charge of what's kept.
+ */
+public class BatchExporter {
+	private static final Slog LOG = MainApplication.LOG.child("BatchExporter");
+
+	public static class Results {
+		public final int decks, exports, thumbnails;
+		public final List<String> failures;
+
+		public Results(int decks, int exports, int thumbnails, List<String> failures) {
+			this.decks = decks;
+			this.exports = exports;
+			this.thumbnails = thumbnails;
+			this.failures = Collections.unmodifiableList(failures);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d decks, %d files exported, %d distinct thumbnails, %d failures", decks, exports, thumbnails, failures.size());
+		}
+	}
+
+	/**
+	 * @return A worker count which leaves some cores free for image loading and the UI.
+	 */
+	public static int defaultParallelism() {
+		return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	}
+
+	private final Path source, target;
+	private final List<DeckImportExport> formats;
+	private final int parallelism;
+
+	/**
+	 * @param source The directory to read decks (.json files) from.
+	 * @param target The directory to write exports to. Created if need be.
+	 * @param formats The formats to export each deck to. Each must support unattended export.
+	 * @param parallelism The number of decks to read or export at once.
+	 */
+	public BatchExporter(Path source, Path target, Collection<? extends DeckImportExport> formats, int parallelism) {
+		for (DeckImportExport format : formats) {
+			if (!format.supportsUnattendedExport()) throw new IllegalArgumentException(format + " can't be used in a batch export.");
+		}
+
+		this.source = source;
+		this.target = target;
+		this.formats = new ArrayList<>(formats);
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Runs the export. Individual decks or files which fail are reported in the results and don't stop the batch.
+	 *
+	 * @param progress Receives progress as decks are read and exported.
+	 * @return A summary of what was exported.
+	 * @throws IOException If the source directory can't be read, or the calling thread is interrupted.
+	 */
+	public Results run(Updateable.Progress progress) throws IOException {
+		final List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> dir = Files.newDirectoryStream(source, "*.json")) {
+			for (Path file : dir) files.add(file);
+		}
+		Collections.sort(files);
+
+		Files.createDirectories(target);
+
+		final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+		final AtomicInteger threads = new AtomicInteger(0);
+		final ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread thread = new Thread(r, "BatchExporter-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			// Stage 1: Read every deck.
+			final Json json = new Json();
+			final Map<Path, DeckList> decks = new LinkedHashMap<>();
+			final CompletionService<Map.Entry<Path, DeckList>> reads = new ExecutorCompletionService<>(pool);
+			for (Path file : files) {
+				reads.submit(() -> {
+					try {
+						return new AbstractMap.SimpleImmutableEntry<>(file, json.importDeck(file));
+					} catch (IOException | RuntimeException e) {
+						LOG.err("Couldn't read %s: %s", file, e);
+						failures.add(String.format("%s: %s", file.getFileName(), e.getMessage()));
+						return null;
+					}
+				});
+			}
+
+			for (int i = 0; i < files.size(); ++i) {
+				Map.Entry<Path, DeckList> read = take(reads);
+				if (read != null) decks.put(read.getKey(), read.getValue());
+				progress.accept(0.2 * (i + 1) / files.size(), String.format("Reading decks (%d / %d)", i + 1, files.size()));
+			}
+
+			// Stage 2: Work out which prints each deck will need thumbnails for. Only the prints are kept; the thumbnails
+			// themselves are requested a deck or so ahead of their exports.
+			final boolean images = formats.stream().anyMatch(f -> f instanceof ImageExporter);
+			final List<Set<Card.Print>> deckPrints = new ArrayList<>(decks.size());
+			final Set<Card.Print> distinctPrints = new HashSet<>();
+			for (DeckList deck : decks.values()) {
+				final Set<Card.Print> prints = images ? deck.cards().values().stream()
+						.flatMap(List::stream)
+						.map(CardInstance::print)
+						.collect(Collectors.toCollection(LinkedHashSet::new)) : Collections.emptySet();
+				deckPrints.add(prints);
+				distinctPrints.addAll(prints);
+			}
+			final AtomicInteger warmed = new AtomicInteger(0);
+
+			// Stage 3: Export every deck to every format.
+			final Set<String> sharedExtensions = formats.stream()
+					.collect(Collectors.groupingBy(f -> f.exportFormat().extension(), Collectors.counting()))
+					.entrySet().stream()
+					.filter(e -> e.getValue() > 1)
+					.map(Map.Entry::getKey)
+					.collect(Collectors.toSet());
+
+			final CompletionService<Boolean> exports = new ExecutorCompletionService<>(pool);
+			int jobs = 0, index = 0;
+			for (Map.Entry<Path, DeckList> deck : decks.entrySet()) {
+				final int deckIndex = index++;
+				for (DeckImportExport format : formats) {
+					final Path to = target.resolve(outputName(deck.getKey(), format, sharedExtensions));
+					++jobs;
+					exports.submit(() -> {
+						try {
+							warmUpThrough(deckPrints, warmed, deckIndex + 1);
+
+							if (Files.isSameFile(source, target) && to.getFileName().equals(deck.getKey().getFileName())) {
+								throw new IOException("Refusing to overwrite the deck itself.");
+							}
+
+							format.exportDeckUnattended(deck.getValue(), to);
+							return true;
+						} catch (IOException | RuntimeException e) {
+							LOG.err("Couldn't export %s as %s: %s", deck.getKey(), format, e);
+							failures.add(String.format("%s (%s): %s", deck.getKey().getFileName(), format, e.getMessage()));
+							return false;
+						}
+					});
+				}
+			}
+
+			int exported = 0;
+			for (int i = 0; i < jobs; ++i) {
+				if (take(exports)) ++exported;
+				progress.accept(0.2 + 0.8 * (i + 1) / jobs, String.format("Exporting (%d / %d)", i + 1, jobs));
+			}
+
+			progress.accept(1.0, "Done.");
+			final Results results = new Results(decks.size(), exported, distinctPrints.size(), new ArrayList<>(failures));
+			LOG.log("Batch export from %s to %s: %s", source, target, results);
+			return results;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Starts warming up the thumbnails of every deck up to and including the given one which hasn't been warmed up yet.
+	 */
+	private static void warmUpThrough(List<Set<Card.Print>> deckPrints, AtomicInteger warmed, int last) {
+		final int end = Math.min(last, deckPrints.size() - 1);
+		for (int next = warmed.get(); next <= end; next = warmed.get()) {
+			if (!warmed.compareAndSet(next, next + 1)) continue;
+			if (!deckPrints.get(next).isEmpty()) Context.get().images.warmUp(deckPrints.get(next), 0, null);
+		}
+	}
+
+	private static <T> T take(CompletionService<T> service) throws IOException {
+		try {
+			return service.take().get();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException("Batch export cancelled.");
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private static String outputName(Path deck, DeckImportExport format, Set<String> sharedExtensions) {
+		String name = deck.getFileName().toString();
+		name = name.substring(0, name.length() - ".json".length());
+
+		final String extension = format.exportFormat().extension();
+		if (sharedExtensions.contains(extension)) {
+			name += "-" + format.toString().toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+		}
+
+		return name + "." + extension;
+	}
+}
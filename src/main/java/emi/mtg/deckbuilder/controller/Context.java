@@ -5,6 +5,7 @@ import emi.lib.mtg.Card;
 import emi.lib.mtg.DataSource;
 import emi.mtg.deckbuilder.model.Preferences;
 import emi.mtg.deckbuilder.view.Images;
+import emi.mtg.deckbuilder.view.search.QueryCache;
 
 import java.io.IOException;
 import java.util.function.DoubleConsumer;
@@ -41,6 +42,11 @@ public class Context {
 	public final DataSource data;
 	public final Images images;
 	public final Tags tags;
+	public final QueryCache queries;
+
+	private volatile PrintIndex printIndex;
+	private volatile LegalityTable legality;
+	private volatile NameIndex names;
 
 	public Context(DataSource data) throws IOException {
 		this.data = data;
@@ -51,12 +57,16 @@ public class Context {
 				.registerTypeAdapterFactory(Serialization.createCardPrintAdapterFactory())
 				.create();
 
-		this.images = new Images(Preferences.get().imagesPath);
+		this.images = new Images(Preferences.get().imagesPath, Preferences.get().imageCacheBytes());
 		this.tags = new Tags();
+		this.queries = new QueryCache();
 	}
 
 	public boolean loadData(DoubleConsumer progress) throws IOException {
 		if (this.data.loadData(Preferences.get().dataPath, progress)) {
+			this.printIndex = new PrintIndex(this.data);
+			this.legality = new LegalityTable(this.printIndex);
+			this.names = new NameIndex(this.data);
 			loadTags(progress);
 			return true;
 		} else {
@@ -64,6 +74,27 @@ public class Context {
 		}
 	}
 
+	/**
+	 * @return An index over every print in the loaded data, or null if data hasn't been loaded yet.
+	 */
+	public PrintIndex printIndex() {
+		return printIndex;
+	}
+
+	/**
+	 * @return Every indexed card's legality in every format, or null if data hasn't been loaded yet.
+	 */
+	public LegalityTable legality() {
+		return legality;
+	}
+
+	/**
+	 * @return Name and print lookups over the loaded data, or null if data hasn't been loaded yet.
+	 */
+	public NameIndex names() {
+		return names;
+	}
+
 	public void loadTags(DoubleConsumer progress) throws IOException {
 		this.tags.load(this.data, Preferences.get().dataPath, progress);
 	}
@@ -0,0 +1,181 @@
+package emi.mtg.deckbuilder.controller;
+
+import emi.lib.mtg.Card;
+import emi.lib.mtg.game.Format;
+import emi.mtg.deckbuilder.model.CardInstance;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Every card's legality in every format, worked out once when data loads and stored as one byte per card (by PrintIndex
+ * card ordinal) per format. Flagging the collection for a format is then a table lookup rather than a legality query,
+ * and switching formats is a swap from one table to another.
+ */
+public class LegalityTable {
+	public enum State {
+		Legal,
+		Banned,
+		NotLegal,
+
+		/**
+		 * Not legal, but legal in Future, or not released yet; legal soon, as far as the future-is-now preference goes.
+		 */
+		Upcoming,
+
+		Unknown;
+
+		private static final State[] VALUES = values();
+	}
+
+	/**
+	 * The collection flags for one format, with the future-is-now preference applied.
+	 */
+	public class Flagging {
+		public final Format format;
+		public final boolean theFutureIsNow;
+
+		private Flagging(Format format, boolean theFutureIsNow) {
+			this.format = format;
+			this.theFutureIsNow = theFutureIsNow;
+		}
+
+		private LegalityTable table() {
+			return LegalityTable.this;
+		}
+
+		/**
+		 * @param card A card ordinal from the PrintIndex.
+		 * @return The legality flag the card gets in the collection, or null if it gets none.
+		 */
+		public CardInstance.Flags flag(int card) {
+			if (format == Format.Freeform) return null; // Don't do any collection flagging for freeform.
+			return flagFor(State.VALUES[states.get(format)[card]], theFutureIsNow);
+		}
+
+		/**
+		 * @param card Any card, indexed or not.
+		 * @return The legality flag the card gets in the collection, or null if it gets none.
+		 */
+		public CardInstance.Flags flag(Card card) {
+			final int ordinal = index.cardOrdinal(card);
+			if (ordinal >= 0) return flag(ordinal);
+			if (format == Format.Freeform) return null;
+			return flagFor(state(card, format), theFutureIsNow);
+		}
+
+		/**
+		 * @param other Another flagging, or null.
+		 * @return A bitmap of the card ordinals flagged differently here than in the other flagging; every card if it's
+		 * null or from another table.
+		 */
+		public BitSet changedFrom(Flagging other) {
+			final BitSet changed = new BitSet(size());
+
+			if (other == null || other.table() != LegalityTable.this) {
+				changed.set(0, size());
+			} else if (other != this) {
+				for (int card = 0; card < size(); ++card) {
+					if (flag(card) != other.flag(card)) changed.set(card);
+				}
+			}
+
+			return changed;
+		}
+	}
+
+	private final PrintIndex index;
+	private final Map<Format, byte[]> states;
+	private final Map<Format, Flagging[]> flaggings;
+
+	/**
+	 * Tabulates every indexed card's legality in every format.
+	 *
+	 * @param index The print index giving each card its ordinal.
+	 */
+	public LegalityTable(PrintIndex index) {
+		this.index = index;
+		this.states = new EnumMap<>(Format.class);
+		this.flaggings = new EnumMap<>(Format.class);
+
+		final LocalDate today = LocalDate.now();
+		Arrays.stream(Format.values()).parallel()
+				.map(format -> {
+					final byte[] table = new byte[index.cardCount()];
+					for (int card = 0; card < table.length; ++card) table[card] = (byte) state(index.card(card), format, today).ordinal();
+					return new AbstractMap.SimpleImmutableEntry<>(format, table);
+				})
+				.sequential()
+				.forEach(e -> states.put(e.getKey(), e.getValue()));
+
+		for (Format format : Format.values()) {
+			flaggings.put(format, new Flagging[] { new Flagging(format, false), new Flagging(format, true) });
+		}
+	}
+
+	/**
+	 * @return The number of cards tabulated.
+	 */
+	public int size() {
+		return index.cardCount();
+	}
+
+	/**
+	 * @param card A card ordinal from the PrintIndex.
+	 * @param format A format.
+	 * @return The card's legality in that format.
+	 */
+	public State state(int card, Format format) {
+		return State.VALUES[states.get(format)[card]];
+	}
+
+	/**
+	 * @param format A format.
+	 * @param theFutureIsNow Whether upcoming cards should only be warned about.
+	 * @return The collection flags for that format. The same object is returned for the same arguments.
+	 */
+	public Flagging flagging(Format format, boolean theFutureIsNow) {
+		return flaggings.get(format)[theFutureIsNow ? 1 : 0];
+	}
+
+	/**
+	 * Works out a card's legality directly, e.g. for a card which isn't indexed.
+	 */
+	public static State state(Card card, Format format) {
+		return state(card, format, LocalDate.now());
+	}
+
+	private static State state(Card card, Format format, LocalDate today) {
+		switch (card.legality(format)) {
+			case Legal:
+			case Restricted:
+				return State.Legal;
+			case Banned:
+				return State.Banned;
+			case NotLegal:
+				if (card.legality(Format.Future) == Card.Legality.Legal || card.prints().stream().allMatch(pr -> pr.releaseDate().isAfter(today))) {
+					return State.Upcoming;
+				} else {
+					return State.NotLegal;
+				}
+			case Unknown:
+			default:
+				return State.Unknown;
+		}
+	}
+
+	private static CardInstance.Flags flagFor(State state, boolean theFutureIsNow) {
+		switch (state) {
+			case Legal:
+				return null;
+			case Banned:
+			case NotLegal:
+				return CardInstance.Flags.Invalid;
+			case Upcoming:
+				return theFutureIsNow ? CardInstance.Flags.Warning : CardInstance.Flags.Invalid;
+			case Unknown:
+			default:
+				return CardInstance.Flags.Warning;
+		}
+	}
+}
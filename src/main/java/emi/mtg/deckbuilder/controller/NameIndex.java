@@ -0,0 +1,104 @@
+package emi.mtg.deckbuilder.controller;
+
+import emi.lib.mtg.Card;
+import emi.lib.mtg.DataSource;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Lookup tables from the names people and other programs use for cards to the cards themselves, and from set codes,
+ * collector numbers and names to prints. Built once when data loads; importers and deserialization use it instead of
+ * searching the data source for each name they need to resolve.
+ *
+ * Where several cards share a name (e.g. a face name), the first card the data source lists wins.
+ */
+public class NameIndex {
+	private final Map<String, Card> names, fullNames, faceNames, folded;
+	private final Map<String, Card.Print> prints, setNames;
+
+	/**
+	 * Indexes every card and print in a data source.
+	 *
+	 * @param data The data source. Must already be loaded.
+	 */
+	public NameIndex(DataSource data) {
+		Map<String, Card> names = new HashMap<>(), fullNames = new HashMap<>(), faceNames = new LinkedHashMap<>(), folded = new HashMap<>();
+		Map<String, Card.Print> prints = new HashMap<>(), setNames = new HashMap<>();
+
+		for (Card card : data.cards()) {
+			names.putIfAbsent(card.name(), card);
+			fullNames.putIfAbsent(card.fullName(), card);
+			folded.putIfAbsent(fold(card.name()), card);
+			folded.putIfAbsent(fold(card.fullName()), card);
+
+			for (Card.Face face : card.faces()) {
+				faceNames.putIfAbsent(face.name(), card);
+			}
+
+			for (Card.Print print : card.prints()) {
+				prints.putIfAbsent(printKey(print.set().code(), print.collectorNumber(), card.name()), print);
+				setNames.putIfAbsent(printKey(print.set().code(), null, card.name()), print);
+			}
+		}
+
+		for (Map.Entry<String, Card> face : faceNames.entrySet()) {
+			folded.putIfAbsent(fold(face.getKey()), face.getValue());
+		}
+
+		this.names = Collections.unmodifiableMap(names);
+		this.fullNames = Collections.unmodifiableMap(fullNames);
+		this.faceNames = Collections.unmodifiableMap(faceNames);
+		this.folded = Collections.unmodifiableMap(folded);
+		this.prints = Collections.unmodifiableMap(prints);
+		this.setNames = Collections.unmodifiableMap(setNames);
+	}
+
+	/**
+	 * Normalizes a card name for loose matching: case-folded, with accents stripped, ligatures like \u00c6 spelled out,
+	 * runs of whitespace collapsed, and split card separators (/ or //, however spaced) written as " // ".
+	 */
+	public static String fold(String name) {
+		String folded = Normalizer.normalize(name, Normalizer.Form.NFKD).replaceAll("\\p{M}+", "");
+		folded = folded.replaceAll("\\s*/+\\s*", " // ").replaceAll("\\s+", " ").trim();
+		return folded.toLowerCase(Locale.ROOT).replace("\u00e6", "ae");
+	}
+
+	private static String printKey(String setCode, String collectorNumber, String name) {
+		return setCode.toLowerCase(Locale.ROOT) + '\t' + (collectorNumber == null ? "" : collectorNumber.toLowerCase(Locale.ROOT)) + '\t' + name;
+	}
+
+	/**
+	 * Finds a card by whatever name it's given: its name, its full name, one of its faces' names, or any of those
+	 * spelled loosely (see fold). Exact matches are preferred.
+	 *
+	 * @param name The name to look up.
+	 * @return The card, or null if no card goes by that name.
+	 */
+	public Card find(String name) {
+		Card card = names.get(name);
+		if (card == null) card = fullNames.get(name);
+		if (card == null) card = faceNames.get(name);
+		if (card == null) card = folded.get(fold(name));
+		return card;
+	}
+
+	/**
+	 * @param setCode A set code, in any case.
+	 * @param collectorNumber A collector number, in any case.
+	 * @param name The card's exact name.
+	 * @return The print of that card with that collector number in that set, or null if there isn't one.
+	 */
+	public Card.Print print(String setCode, String collectorNumber, String name) {
+		return prints.get(printKey(setCode, collectorNumber, name));
+	}
+
+	/**
+	 * @param setCode A set code, in any case.
+	 * @param name The card's exact name.
+	 * @return Any print of that card in that set, or null if there isn't one.
+	 */
+	public Card.Print print(String setCode, String name) {
+		return setNames.get(printKey(setCode, null, name));
+	}
+}
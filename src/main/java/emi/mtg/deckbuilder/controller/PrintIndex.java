@@ -0,0 +1,279 @@
+package emi.mtg.deckbuilder.controller;
+
+import emi.lib.mtg.Card;
+import emi.lib.mtg.DataSource;
+import emi.lib.mtg.enums.CardType;
+import emi.lib.mtg.enums.Color;
+import emi.lib.mtg.enums.Rarity;
+import emi.mtg.deckbuilder.model.CardInstance;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * An inverted index over every print in the data source. Each print is given an ordinal, and each indexed attribute
+ * maps its distinct values to the sorted ordinals of the prints having that value. Searches use it to narrow the
+ * collection down to a candidate bitmap before running their real predicates.
+ *
+ * Face-level attributes (mana value, color, card type) index a print under the values of each of its card's faces.
+ *
+ * Card text (full names, face names, type lines and rules text) is trigram-indexed per card rather than per print, since
+ * every print of a card shares it; searches map card bitmaps back to prints with printsOf.
+ */
+public class PrintIndex {
+	/**
+	 * One indexed attribute. Posting lists are stored as sorted ordinal arrays, which stay small for selective values
+	 * like sets; they're only expanded into bitmaps when queried.
+	 *
+	 * @param <K> The attribute's value type.
+	 */
+	public class Attribute<K> {
+		private final Map<K, int[]> postings;
+
+		private Attribute(Map<K, int[]> postings) {
+			this.postings = postings;
+		}
+
+		public Set<K> values() {
+			return Collections.unmodifiableSet(postings.keySet());
+		}
+
+		/**
+		 * @param value An attribute value.
+		 * @return A new bitmap of the prints with that value.
+		 */
+		public BitSet get(K value) {
+			BitSet bits = new BitSet(size());
+			set(bits, postings.get(value));
+			return bits;
+		}
+
+		/**
+		 * @param test A test for attribute values.
+		 * @return A new bitmap of the prints with any value passing the test.
+		 */
+		public BitSet matching(Predicate<? super K> test) {
+			BitSet bits = new BitSet(size());
+			for (Map.Entry<K, int[]> entry : postings.entrySet()) {
+				if (test.test(entry.getKey())) set(bits, entry.getValue());
+			}
+			return bits;
+		}
+
+		private void set(BitSet bits, int[] ordinals) {
+			if (ordinals == null) return;
+			for (int ordinal : ordinals) bits.set(ordinal);
+		}
+	}
+
+	private class Builder<K> {
+		private final Map<K, int[]> postings = new HashMap<>();
+		private final Map<K, Integer> counts = new HashMap<>();
+
+		void add(K value, int ordinal) {
+			if (value == null) return;
+
+			int[] list = postings.get(value);
+			int count = counts.getOrDefault(value, 0);
+			if (count > 0 && list[count - 1] == ordinal) return; // Two faces with the same value.
+
+			if (list == null) {
+				list = new int[4];
+			} else if (count == list.length) {
+				list = Arrays.copyOf(list, count * 2);
+			}
+
+			list[count] = ordinal;
+			postings.put(value, list);
+			counts.put(value, count + 1);
+		}
+
+		Attribute<K> build() {
+			postings.replaceAll((k, list) -> Arrays.copyOf(list, counts.get(k)));
+			return new Attribute<>(postings);
+		}
+	}
+
+	private final Card.Print[] prints;
+	private final Map<Card.Print, Integer> ordinals;
+	private final int[] printCards;
+
+	private final Card[] cards;
+	private final Map<Card, Integer> cardOrdinals;
+	private final int[][] cardPrints;
+
+	public final Attribute<emi.lib.mtg.Set> set;
+	public final Attribute<Rarity> rarity;
+	public final Attribute<Double> manaValue;
+	public final Attribute<Color.Combination> color;
+	public final Attribute<Color.Combination> identity;
+	public final Attribute<CardType> type;
+
+	/**
+	 * Card text, indexed by card ordinal.
+	 */
+	public final TrigramIndex text;
+
+	/**
+	 * Indexes every print in a data source.
+	 *
+	 * @param data The data source. Must already be loaded.
+	 */
+	public PrintIndex(DataSource data) {
+		this.prints = data.prints().toArray(new Card.Print[0]);
+		this.ordinals = new IdentityHashMap<>(prints.length);
+		this.printCards = new int[prints.length];
+
+		List<Card> cards = new ArrayList<>();
+		this.cardOrdinals = new IdentityHashMap<>();
+
+		Builder<emi.lib.mtg.Set> set = new Builder<>();
+		Builder<Rarity> rarity = new Builder<>();
+		Builder<Double> manaValue = new Builder<>();
+		Builder<Color.Combination> color = new Builder<>();
+		Builder<Color.Combination> identity = new Builder<>();
+		Builder<CardType> type = new Builder<>();
+
+		for (int i = 0; i < prints.length; ++i) {
+			final Card.Print print = prints[i];
+			ordinals.put(print, i);
+
+			Integer card = cardOrdinals.get(print.card());
+			if (card == null) {
+				card = cards.size();
+				cardOrdinals.put(print.card(), card);
+				cards.add(print.card());
+			}
+			printCards[i] = card;
+
+			set.add(print.set(), i);
+			rarity.add(print.rarity(), i);
+			identity.add(print.card().colorIdentity(), i);
+
+			for (Card.Face face : print.card().faces()) {
+				manaValue.add(face.manaValue(), i);
+				color.add(face.color(), i);
+				if (face.type() != null) {
+					for (CardType cardType : face.type().cardTypes()) type.add(cardType, i);
+				}
+			}
+		}
+
+		this.set = set.build();
+		this.rarity = rarity.build();
+		this.manaValue = manaValue.build();
+		this.color = color.build();
+		this.identity = identity.build();
+		this.type = type.build();
+
+		this.cards = cards.toArray(new Card[0]);
+		this.cardPrints = new int[this.cards.length][];
+
+		int[] printCounts = new int[this.cards.length];
+		for (int card : printCards) ++printCounts[card];
+		for (int card = 0; card < this.cards.length; ++card) cardPrints[card] = new int[printCounts[card]];
+		Arrays.fill(printCounts, 0);
+		for (int i = 0; i < prints.length; ++i) cardPrints[printCards[i]][printCounts[printCards[i]]++] = i;
+
+		TrigramIndex.Builder text = new TrigramIndex.Builder();
+		for (int card = 0; card < this.cards.length; ++card) {
+			text.add(card, this.cards[card].fullName());
+
+			for (Card.Face face : this.cards[card].faces()) {
+				text.add(card, face.name());
+				if (face.type() != null) text.add(card, face.type().toString());
+				text.add(card, face.rules());
+			}
+		}
+		this.text = text.build();
+	}
+
+	/**
+	 * @return The number of prints indexed.
+	 */
+	public int size() {
+		return prints.length;
+	}
+
+	/**
+	 * @param print A print.
+	 * @return The print's ordinal in this index, or -1 if it isn't indexed.
+	 */
+	public int ordinal(Card.Print print) {
+		Integer ordinal = ordinals.get(print);
+		return ordinal == null ? -1 : ordinal;
+	}
+
+	/**
+	 * @param card A card.
+	 * @return The card's ordinal in this index, or -1 if none of its prints are indexed.
+	 */
+	public int cardOrdinal(Card card) {
+		Integer ordinal = cardOrdinals.get(card);
+		return ordinal == null ? -1 : ordinal;
+	}
+
+	/**
+	 * @return The number of distinct cards indexed.
+	 */
+	public int cardCount() {
+		return cards.length;
+	}
+
+	/**
+	 * @param ordinal A card ordinal.
+	 * @return The card with that ordinal.
+	 */
+	public Card card(int ordinal) {
+		return cards[ordinal];
+	}
+
+	/**
+	 * @param card A card ordinal.
+	 * @return The ordinals of every indexed print of that card.
+	 */
+	public int[] printsOf(int card) {
+		return cardPrints[card].clone();
+	}
+
+	/**
+	 * Maps a bitmap of cards to their prints.
+	 *
+	 * @param cards A bitmap of card ordinals. Not modified.
+	 * @return A new bitmap of every indexed print of those cards.
+	 */
+	public BitSet printsOf(BitSet cards) {
+		BitSet prints = new BitSet(size());
+		for (int card = cards.nextSetBit(0); card >= 0; card = cards.nextSetBit(card + 1)) {
+			for (int print : cardPrints[card]) prints.set(print);
+		}
+		return prints;
+	}
+
+	/**
+	 * Expands a bitmap of prints to include every other print of the same cards.
+	 *
+	 * @param bits A bitmap of prints. Not modified.
+	 * @return A new bitmap of every print of every card with a print in the given bitmap.
+	 */
+	public BitSet allPrints(BitSet bits) {
+		BitSet cards = new BitSet(this.cards.length);
+		for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) cards.set(printCards[i]);
+		return printsOf(cards);
+	}
+
+	/**
+	 * Wraps a predicate so that indexed prints outside a candidate bitmap are rejected without testing it. Prints this
+	 * index doesn't know about are always tested.
+	 *
+	 * @param candidates A superset of the indexed prints the predicate can accept.
+	 * @param residual The predicate itself.
+	 * @return The prefiltered predicate.
+	 */
+	public Predicate<CardInstance> prefilter(BitSet candidates, Predicate<CardInstance> residual) {
+		return ci -> {
+			int ordinal = ordinal(ci.print());
+			return (ordinal < 0 || candidates.get(ordinal)) && residual.test(ci);
+		};
+	}
+}
@@ -171,6 +171,7 @@ public class Serialization {
 							try {
 								Card.Print.Reference ref = Card.Print.Reference.valueOf(i);
 								emi.lib.mtg.Set set = Context.get().data.set(ref.setCode());
+								NameIndex names = Context.get().names();
 
 								if (set != null) {
 									emi.lib.mtg.Card.Print pr = set.print(ref.collectorNumber());
@@ -181,10 +182,7 @@ public class Serialization {
 									// Either the set has no printing by that collector number, or the printing by that
 									// collector number is of a different card. Either way, we're in the rough. Try to
 									// find any card with the same name in the set.
-									pr = set.prints().stream()
-											.filter(pr2 -> ref.name().equals(pr2.card().name()))
-											.findAny()
-											.orElse(null);
+									pr = names == null ? null : names.print(ref.setCode(), ref.name());
 
 									if (pr != null) return (T) pr;
 								}
@@ -192,11 +190,8 @@ public class Serialization {
 								LOG.err("Unable to locate set/card matching %s; trying by card name only.%n", ref);
 
 								// Either the set wasn't matched or had no card by this name.
-								// Locate the card the hard way, and return the preferred printing.
-								emi.lib.mtg.Card card = Context.get().data.cards().stream()
-										.filter(c -> ref.name().equals(c.name()))
-										.findAny()
-										.orElse(null);
+								// Look the card up by name, and return the preferred printing.
+								emi.lib.mtg.Card card = names == null ? null : names.find(ref.name());
 
 								if (card != null) {
 									return (T) Preferences.get().preferredPrint(card);
@@ -0,0 +1,155 @@
+package emi.mtg.deckbuilder.controller;
+
+import java.util.*;
+
+/**
+ * A trigram index over text attached to ordinals. Substring searches look up every trigram in the needle and intersect
+ * their posting lists, leaving only the ordinals whose text might contain it; those still have to be verified.
+ *
+ * Text is case-folded character by character, so candidates are a superset of both plain lower-cased substring searches
+ * and MatchUtils' case-insensitive matchers. Needle trigrams containing non-ASCII characters are ignored, since
+ * String.toLowerCase doesn't always map those one-to-one.
+ */
+public class TrigramIndex {
+	/**
+	 * Accumulates text ordinal by ordinal. Ordinals must be added in ascending order.
+	 */
+	public static class Builder {
+		private final Map<Long, int[]> postings = new HashMap<>();
+		private final Map<Long, Integer> counts = new HashMap<>();
+
+		private long[] pending = new long[256];
+		private int pendingCount = 0, pendingOrdinal = -1, size = 0;
+
+		/**
+		 * Indexes some text under an ordinal. Trigrams never span separate calls.
+		 *
+		 * @param ordinal The ordinal the text belongs to.
+		 * @param text The text. Null is ignored.
+		 * @return This builder.
+		 */
+		public Builder add(int ordinal, CharSequence text) {
+			if (ordinal < pendingOrdinal) throw new IllegalArgumentException("Ordinals must be added in ascending order.");
+			if (ordinal != pendingOrdinal) flush();
+			pendingOrdinal = ordinal;
+			size = Math.max(size, ordinal + 1);
+
+			if (text == null || text.length() < 3) return this;
+
+			if (pendingCount + text.length() > pending.length) {
+				pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingCount + text.length()));
+			}
+
+			char a = fold(text.charAt(0)), b = fold(text.charAt(1));
+			for (int i = 2; i < text.length(); ++i) {
+				char c = fold(text.charAt(i));
+				pending[pendingCount++] = key(a, b, c);
+				a = b;
+				b = c;
+			}
+
+			return this;
+		}
+
+		private void flush() {
+			if (pendingCount == 0) return;
+
+			Arrays.sort(pending, 0, pendingCount);
+			for (int i = 0; i < pendingCount; ++i) {
+				if (i > 0 && pending[i] == pending[i - 1]) continue;
+
+				final Long key = pending[i];
+				int[] list = postings.get(key);
+				int count = counts.getOrDefault(key, 0);
+
+				if (list == null) {
+					list = new int[4];
+					postings.put(key, list);
+				} else if (count == list.length) {
+					list = Arrays.copyOf(list, count * 2);
+					postings.put(key, list);
+				}
+
+				list[count] = pendingOrdinal;
+				counts.put(key, count + 1);
+			}
+
+			pendingCount = 0;
+		}
+
+		public TrigramIndex build() {
+			flush();
+			postings.replaceAll((k, list) -> Arrays.copyOf(list, counts.get(k)));
+			return new TrigramIndex(postings, size);
+		}
+	}
+
+	private static char fold(char c) {
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	private static long key(char a, char b, char c) {
+		return ((long) a << 32) | ((long) b << 16) | c;
+	}
+
+	private final Map<Long, int[]> postings;
+	private final int size;
+
+	private TrigramIndex(Map<Long, int[]> postings, int size) {
+		this.postings = postings;
+		this.size = size;
+	}
+
+	/**
+	 * Finds the ordinals whose text might contain a substring.
+	 *
+	 * @param needle The substring to search for.
+	 * @return A new bitmap of ordinals whose text contains every trigram of the needle, or null if the needle has no
+	 * usable trigrams and so can't be narrowed.
+	 */
+	public BitSet containing(CharSequence needle) {
+		List<int[]> lists = new ArrayList<>();
+
+		for (int i = 2; i < needle.length(); ++i) {
+			char a = needle.charAt(i - 2), b = needle.charAt(i - 1), c = needle.charAt(i);
+			if (a > 0x7F || b > 0x7F || c > 0x7F) continue;
+
+			int[] list = postings.get(key(fold(a), fold(b), fold(c)));
+			if (list == null) return new BitSet();
+			lists.add(list);
+		}
+
+		if (lists.isEmpty()) return null;
+
+		lists.sort(Comparator.comparingInt(l -> l.length));
+
+		int[] result = lists.get(0);
+		int count = result.length;
+		for (int i = 1; i < lists.size() && count > 0; ++i) {
+			int[] next = lists.get(i);
+			int[] tmp = result == lists.get(0) ? new int[count] : result;
+			count = intersect(result, count, next, tmp);
+			result = tmp;
+		}
+
+		BitSet bits = new BitSet(size);
+		for (int i = 0; i < count; ++i) bits.set(result[i]);
+		return bits;
+	}
+
+	private static int intersect(int[] a, int aCount, int[] b, int[] into) {
+		int i = 0, j = 0, n = 0;
+		while (i < aCount && j < b.length) {
+			if (a[i] < b[j]) {
+				++i;
+			} else if (a[i] > b[j]) {
+				++j;
+			} else {
+				into[n++] = a[i];
+				++i;
+				++j;
+			}
+		}
+		return n;
+	}
+}
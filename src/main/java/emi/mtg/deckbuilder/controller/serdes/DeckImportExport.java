@@ -98,6 +98,26 @@ public interface DeckImportExport {
 
 	EnumSet<Feature> supportedFeatures();
 
+	/**
+	 * @return True if this format can export without asking the user for anything, i.e. as part of a batch.
+	 */
+	default boolean supportsUnattendedExport() {
+		return exportFormat() != null;
+	}
+
+	/**
+	 * Exports a deck without prompting the user for options. Formats which normally ask for options should use sensible
+	 * defaults here. Should be safe to call from any thread, and for several decks at once.
+	 *
+	 * @param deck The deck to export.
+	 * @param to The file to export to.
+	 * @throws IOException If the deck couldn't be exported.
+	 */
+	default void exportDeckUnattended(DeckList deck, Path to) throws IOException {
+		if (!supportsUnattendedExport()) throw new UnsupportedOperationException(this + " can't export without user input.");
+		exportDeck(deck, to);
+	}
+
 	interface Monotype extends DeckImportExport {
 		DataFormat format();
 
@@ -1,50 +1,59 @@
 package emi.mtg.deckbuilder.controller.serdes.impl;
 
+import emi.lib.mtg.Card;
 import emi.lib.mtg.game.Zone;
 import emi.mtg.deckbuilder.controller.Context;
+import emi.mtg.deckbuilder.controller.Updateable;
 import emi.mtg.deckbuilder.controller.serdes.DeckImportExport;
 import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.model.DeckList;
 import emi.mtg.deckbuilder.model.Preferences;
 import emi.mtg.deckbuilder.view.Images;
 import emi.mtg.deckbuilder.view.components.CardView;
+import emi.mtg.deckbuilder.view.components.CardViewImage;
 import emi.mtg.deckbuilder.view.groupings.ManaValue;
 import emi.mtg.deckbuilder.view.layouts.FlowGrid;
 import emi.mtg.deckbuilder.view.layouts.Piles;
 import emi.mtg.deckbuilder.view.util.AlertBuilder;
 import emi.mtg.deckbuilder.view.util.FxUtils;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.fxml.FXML;
 import javafx.geometry.HPos;
-import javafx.geometry.Orientation;
-import javafx.geometry.Pos;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
-import javafx.scene.layout.Background;
-import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 import javafx.stage.Modality;
 
 import javax.imageio.ImageIO;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public abstract class ImageExporter implements DeckImportExport, DeckImportExport.CopyPaste {
@@ -107,7 +116,12 @@ public abstract class ImageExporter implements DeckImportExport, DeckImportExpor
 	@Override
 	public void exportDeck(DeckList deck, Path to) throws IOException {
 		if (!UI.promptForOptions(deck.format().deckZones())) return;
-		ImageExporter.writeSafeImage(deckToImage(deck), exportFormat(), to);
+		UI.withProgress(progress -> {
+			BufferedImage image = renderDeck(deck, this::configureView, progress);
+			progress.accept(1.0, "Writing...");
+			ImageExporter.writeSafeImage(image, exportFormat(), to);
+			return to;
+		});
 	}
 
 	@Override
@@ -115,16 +129,47 @@ public abstract class ImageExporter implements DeckImportExport, DeckImportExpor
 		throw new UnsupportedOperationException();
 	}
 
+	protected void configureView(Zone zone, CardView view) {
+		view.layout(UI.zoneLayouts.get(zone).getValue());
+		view.grouping(UI.zoneGroupings.get(zone).getValue());
+		view.uniqueness.set(UI.uniqueness.getValue());
+		view.uniqueAcrossGroups.set(UI.uniqueAcrossGroups.isSelected());
+		view.showFlagsProperty().set(false);
+		view.cardScaleProperty().set(UI.cardScale.getValue());
+		view.resize(estimateViewWidth(), Images.CARD_HEIGHT + Images.CARD_PADDING * 2);
+	}
+
+	/**
+	 * Renders with the settings the export dialog starts out with, since there's nobody to ask.
+	 */
+	@Override
+	public void exportDeckUnattended(DeckList deck, Path to) throws IOException {
+		writeSafeImage(renderDeck(deck, ImageExporter::defaultView, (p, m) -> {}), exportFormat(), to);
+	}
+
+	/**
+	 * Configures a zone's view as the export dialog would by default.
+	 */
+	public static void defaultView(Zone zone, CardView view) {
+		view.layout(defaultLayout(zone));
+		view.grouping(defaultGrouping(zone));
+		view.uniqueness.set(DEFAULT_UNIQUENESS);
+		view.uniqueAcrossGroups.set(true);
+		view.showFlagsProperty().set(false);
+		view.cardScaleProperty().set(DEFAULT_CARD_SCALE);
+		view.resize(DEFAULT_WIDTH_HINT * (Images.CARD_WIDTH * DEFAULT_CARD_SCALE + Images.CARD_PADDING * 2), Images.CARD_HEIGHT + Images.CARD_PADDING * 2);
+	}
+
+	private static CardView.LayoutEngine defaultLayout(Zone zone) {
+		return zone == Zone.Command ? CardView.LAYOUT_ENGINES.get(FlowGrid.class) : CardView.LAYOUT_ENGINES.get(Piles.class);
+	}
+
+	private static CardView.Grouping defaultGrouping(Zone zone) {
+		return Preferences.get().zoneGroupings.getOrDefault(zone, CardView.GROUPINGS.get(ManaValue.class));
+	}
+
 	public WritableImage deckToImage(DeckList deck) throws IOException {
-		return ImageExporter.deckToImage(deck, (zone, view) -> {
-			view.layout(UI.zoneLayouts.get(zone).getValue());
-			view.grouping(UI.zoneGroupings.get(zone).getValue());
-			view.uniqueness.set(UI.uniqueness.getValue());
-			view.uniqueAcrossGroups.set(UI.uniqueAcrossGroups.isSelected());
-			view.showFlagsProperty().set(false);
-			view.cardScaleProperty().set(UI.cardScale.getValue());
-			view.resize(estimateViewWidth(), Images.CARD_HEIGHT + Images.CARD_PADDING * 2);
-		});
+		return ImageExporter.deckToImage(deck, this::configureView);
 	}
 
 	@Override
@@ -146,7 +191,8 @@ public abstract class ImageExporter implements DeckImportExport, DeckImportExpor
 		@Override
 		public void exportDeck(DeckList deck, ClipboardContent to) throws IOException {
 			if (!UI.promptForOptions(deck.format().deckZones())) return;
-			to.putImage(deckToImage(deck));
+			BufferedImage image = UI.withProgress(progress -> renderDeck(deck, this::configureView, progress));
+			if (image != null) to.putImage(SwingFXUtils.toFXImage(image, null));
 		}
 	}
 
@@ -164,8 +210,14 @@ public abstract class ImageExporter implements DeckImportExport, DeckImportExpor
 		@Override
 		public void exportDeck(DeckList deck, ClipboardContent to) throws IOException {
 			if (!UI.promptForOptions(deck.format().deckZones())) return;
-			Path tmp = Files.createTempFile(deck.fileSafeName() + "-", ".jpg");
-			writeSafeImage(deckToImage(deck), exportFormat(), tmp);
+			Path tmp = UI.withProgress(progress -> {
+				BufferedImage image = renderDeck(deck, this::configureView, progress);
+				progress.accept(1.0, "Writing...");
+				Path file = Files.createTempFile(deck.fileSafeName() + "-", ".jpg");
+				writeSafeImage(image, exportFormat(), file);
+				return file;
+			});
+			if (tmp == null) return;
 			to.putFiles(Collections.singletonList(tmp.toFile()));
 			tmp.toFile().deleteOnExit(); // TODO: Is this really what I want? I wish I could make it live until the system shuts down...
 		}
@@ -208,9 +260,10 @@ public abstract class ImageExporter implements DeckImportExport, DeckImportExpor
 
 			FxUtils.FXML(this, alert.getDialogPane());
 
-			widthHint.getValueFactory().setValue(10);
+			widthHint.getValueFactory().setValue(DEFAULT_WIDTH_HINT);
+			cardScale.setValue(DEFAULT_CARD_SCALE);
 			uniqueness.setItems(FXCollections.observableArrayList(CardView.Uniqueness.values()));
-			uniqueness.getSelectionModel().select(CardView.Uniqueness.Prints);
+			uniqueness.getSelectionModel().select(DEFAULT_UNIQUENESS);
 			uniqueAcrossGroups.setSelected(true);
 			cardScaleText.textProperty().bind(cardScale.valueProperty().multiply(100).asString("%.0f%%"));
 
@@ -222,11 +275,11 @@ public abstract class ImageExporter implements DeckImportExport, DeckImportExpor
 
 				Label layoutLabel = new Label("Layout:");
 				ComboBox<CardView.LayoutEngine> layout = new ComboBox<>(FXCollections.observableArrayList(CardView.LAYOUT_ENGINES.values()));
-				layout.getSelectionModel().select(zone == Zone.Command ? CardView.LAYOUT_ENGINES.get(FlowGrid.class) : CardView.LAYOUT_ENGINES.get(Piles.class));
+				layout.getSelectionModel().select(defaultLayout(zone));
 
 				Label groupingLabel = new Label("Grouping:");
 				ComboBox<CardView.Grouping> grouping = new ComboBox<>(FXCollections.observableArrayList(CardView.GROUPINGS.values()));
-				grouping.getSelectionModel().select(Preferences.get().zoneGroupings.getOrDefault(zone, CardView.GROUPINGS.get(ManaValue.class)));
+				grouping.getSelectionModel().select(defaultGrouping(zone));
 
 				zoneLabels.put(zone, label);
 				zoneFlows.put(zone, new FlowPane(2.0, 0.0, layoutLabel, layout, groupingLabel, grouping));
@@ -263,89 +316,217 @@ public abstract class ImageExporter implements DeckImportExport, DeckImportExpor
 
 			return alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK;
 		}
+
+		/**
+		 * Runs an export on a worker thread behind a progress dialog, so the rest of the UI stays responsive.
+		 *
+		 * @return The export's result, or null if the user cancelled it.
+		 */
+		private <T> T withProgress(Export<T> export) throws IOException {
+			final List<T> result = new ArrayList<>(1);
+			final List<IOException> error = new ArrayList<>(1);
+
+			Alert progress = AlertBuilder.query(null)
+					.modal(Modality.APPLICATION_MODAL)
+					.buttons(ButtonType.OK, ButtonType.CANCEL)
+					.title("Exporting Image")
+					.headerText("Rendering deck image...")
+					.onShown(x -> FxUtils.transfer(x, FxUtils.pointerScreen()))
+					.longRunning(ButtonType.OK, (Consumer<Alert>) null, prg -> {
+						try {
+							result.add(export.run(prg));
+						} catch (IOException ioe) {
+							error.add(ioe);
+						}
+						return true;
+					}, null, AlertBuilder.Exceptions.Throw)
+					.get();
+
+			// Start right away; the OK button only exists to hang the long-running operation on.
+			Platform.runLater(() -> ((Button) progress.getDialogPane().lookupButton(ButtonType.OK)).fire());
+			if (progress.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) return null;
+
+			// Cancelling interrupts the export, which then closes the dialog as though it had finished.
+			if (!error.isEmpty() && error.get(0) instanceof InterruptedIOException) return null;
+			if (!error.isEmpty()) throw error.get(0);
+			return result.isEmpty() ? null : result.get(0);
+		}
+	}
+
+	@FunctionalInterface
+	private interface Export<T> {
+		T run(Updateable.Progress progress) throws IOException;
 	}
 
 	private static final ImageExportUI UI = new ImageExportUI();
 
+	private static final double ZONE_LABEL_HEIGHT = 48.0, ZONE_LABEL_FONT_SIZE = 32.0;
+
+	private static final int DEFAULT_WIDTH_HINT = 10;
+	private static final double DEFAULT_CARD_SCALE = 1.0;
+	private static final CardView.Uniqueness DEFAULT_UNIQUENESS = CardView.Uniqueness.Prints;
+
 	public static WritableImage deckToImage(DeckList deck, BiConsumer<Zone, CardView> viewModifier) throws IOException {
-		// Prefetch all deck images.
-		CompletableFuture[] futures = deck.cards().values().stream()
+		return SwingFXUtils.toFXImage(renderDeck(deck, viewModifier, (p, m) -> {}), null);
+	}
+
+	/**
+	 * Renders a deck image. Zones are laid out by CardViews, as on screen, but only that step runs on the FX application
+	 * thread; loading thumbnails and compositing happen on the calling thread and the common pool. Call this from a
+	 * worker thread to keep the UI responsive.
+	 *
+	 * @param deck The deck to render.
+	 * @param viewModifier Configures each zone's view (layout, grouping, scale and width) before it's laid out.
+	 * @param progress Receives progress as the deck is rendered.
+	 * @return The deck image, opaque.
+	 * @throws IOException If thumbnails can't be loaded, or the calling thread is interrupted.
+	 */
+	public static BufferedImage renderDeck(DeckList deck, BiConsumer<Zone, CardView> viewModifier, Updateable.Progress progress) throws IOException {
+		// Copy the deck's zones so later steps don't race edits made in the UI.
+		final Map<Zone, List<CardInstance>> zones = onFxThread(() -> {
+			Map<Zone, List<CardInstance>> copy = new EnumMap<>(Zone.class);
+			for (Map.Entry<Zone, ObservableList<CardInstance>> zone : deck.cards().entrySet()) {
+				if (!zone.getValue().isEmpty()) copy.put(zone.getKey(), new ArrayList<>(zone.getValue()));
+			}
+			return copy;
+		});
+
+		// Prefetch all deck images in parallel.
+		final Set<Card.Print> prints = zones.values().stream()
 				.flatMap(List::stream)
 				.map(CardInstance::print)
-				.map(Context.get().images::getThumbnail)
+				.collect(Collectors.toSet());
+		final AtomicInteger loaded = new AtomicInteger(0);
+		final CompletableFuture<?>[] futures = prints.stream()
+				.map(pr -> Context.get().images.getThumbnail(pr).whenComplete((img, err) -> {
+					int n = loaded.incrementAndGet();
+					progress.accept(0.7 * n / prints.size(), String.format("Loading images (%d / %d)", n, prints.size()));
+				}))
 				.toArray(CompletableFuture[]::new);
 
 		try {
 			CompletableFuture.allOf(futures).get();
 		} catch (InterruptedException e) {
-			throw new IOException(e);
+			throw new InterruptedIOException("Image export cancelled.");
 		} catch (ExecutionException e) {
-			throw new IOException(e.getCause());
+			// Images somebody else cancelled are drawn as placeholders; any other failure fails the export.
+			for (CompletableFuture<?> future : futures) {
+				try {
+					future.getNow(null);
+				} catch (CancellationException ce) {
+					// Placeholder.
+				} catch (CompletionException ce) {
+					if (!(ce.getCause() instanceof CancellationException)) throw new IOException(ce.getCause());
+				}
+			}
 		}
 
-		FlowPane box = new FlowPane(Orientation.HORIZONTAL);
-		box.setBackground(new Background(new BackgroundFill(Color.TRANSPARENT, null, null)));
-		box.setAlignment(Pos.CENTER);
-		box.setPrefWrapLength(1.0);
-
-		List<Label> labels = new ArrayList<>();
-		double maxCVWidth = 0;
-
-		for (Map.Entry<Zone, ObservableList<CardInstance>> zone : deck.cards().entrySet()) {
-			if (zone.getValue().isEmpty()) continue;
-
-			CardView view = new CardView(
-					null,
-					zone.getValue(),
-					CardView.LAYOUT_ENGINES.get(Piles.class),
-					CardView.GROUPINGS.get(ManaValue.class),
-					CardView.DEFAULT_SORTING);
-			viewModifier.accept(zone.getKey(), view);
-			view.resize(view.prefWidth(-1), view.prefHeight(1800.0));
-			view.layout();
-			view.renderNow();
-			maxCVWidth = Math.max(view.getWidth(), maxCVWidth);
-
-			Label label = new Label(zone.getKey().name().toUpperCase());
-			label.setBackground(new Background(new BackgroundFill(Color.DARKGREY.darker(), null, null)));
-			label.setTextFill(Color.WHITE);
-			label.setAlignment(Pos.CENTER);
-			label.setMinWidth(2.0);
-			label.setMaxWidth(Double.MAX_VALUE);
-			label.setPrefHeight(48.0);
-			label.setMaxHeight(Double.MAX_VALUE);
-			label.setFont(Font.font(null, FontWeight.BOLD, 32.0));
-			label.layout();
-			labels.add(label);
-
-			box.getChildren().add(label);
-			box.getChildren().add(view);
-		}
+		progress.accept(0.7, "Laying out zones...");
+		final Map<Zone, CardViewImage> captures = onFxThread(() -> {
+			Map<Zone, CardViewImage> views = new EnumMap<>(Zone.class);
+			for (Map.Entry<Zone, List<CardInstance>> zone : zones.entrySet()) {
+				CardView view = new CardView(
+						null,
+						FXCollections.observableArrayList(zone.getValue()),
+						CardView.LAYOUT_ENGINES.get(Piles.class),
+						CardView.GROUPINGS.get(ManaValue.class),
+						CardView.DEFAULT_SORTING);
+				viewModifier.accept(zone.getKey(), view);
+				view.resize(view.prefWidth(-1), view.prefHeight(1800.0));
+				views.put(zone.getKey(), CardViewImage.capture(view));
+			}
+			return views;
+		});
 
-		for (Label label : labels) {
-			label.setPrefWidth(maxCVWidth * 0.95);
+		progress.accept(0.75, "Converting images...");
+		final Map<javafx.scene.image.Image, BufferedImage> converted = captures.values().stream()
+				.flatMap(c -> c.images().stream())
+				.distinct()
+				.parallel()
+				.collect(Collectors.toConcurrentMap(Function.identity(), CardViewImage::convert, (a, b) -> a));
+		if (Thread.interrupted()) throw new InterruptedIOException("Image export cancelled.");
+
+		progress.accept(0.9, "Drawing...");
+		int width = 0, height = 0;
+		for (CardViewImage capture : captures.values()) {
+			width = Math.max(width, capture.width());
+			height += (int) ZONE_LABEL_HEIGHT + capture.height();
 		}
 
-		box.resize(box.prefWidth(-1), box.prefHeight(-1));
+		final BufferedImage image = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = image.createGraphics();
+		try {
+			g.setColor(CardViewImage.awt(Preferences.get().theme.base));
+			g.fillRect(0, 0, image.getWidth(), image.getHeight());
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+			final Font font = new Font(Font.SANS_SERIF, Font.BOLD, 1).deriveFont((float) ZONE_LABEL_FONT_SIZE);
+			final FontMetrics metrics = g.getFontMetrics(font);
+			final double labelWidth = width * 0.95;
+
+			int y = 0;
+			for (Map.Entry<Zone, CardViewImage> zone : captures.entrySet()) {
+				final String label = zone.getKey().name().toUpperCase();
+				final double labelX = (width - labelWidth) / 2.0;
+
+				g.setColor(CardViewImage.awt(Color.DARKGREY.darker()));
+				g.fill(new Rectangle2D.Double(labelX, y, labelWidth, ZONE_LABEL_HEIGHT));
+				g.setColor(java.awt.Color.WHITE);
+				g.setFont(font);
+				g.drawString(label,
+						(float) (labelX + (labelWidth - metrics.stringWidth(label)) / 2.0),
+						(float) (y + ZONE_LABEL_HEIGHT / 2.0 + (metrics.getAscent() - metrics.getDescent()) / 2.0));
+				y += (int) ZONE_LABEL_HEIGHT;
+
+				zone.getValue().paint(g, (width - zone.getValue().width()) / 2.0, y, converted);
+				y += zone.getValue().height();
+			}
+		} finally {
+			g.dispose();
+		}
 
-		Scene scene = new Scene(box, Preferences.get().theme.base);
-		return scene.snapshot(null);
+		progress.accept(1.0, "Done.");
+		return image;
 	}
 
-	private static void writeSafeImage(WritableImage fxImg, String extension, OutputStream stream) throws IOException {
-		BufferedImage img = SwingFXUtils.fromFXImage(fxImg, null);
-		BufferedImage buffer = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.OPAQUE);
-		buffer.createGraphics().drawImage(img, 0, 0, null);
-		ImageIO.write(buffer, extension, stream);
-	}
+	/**
+	 * Runs something on the FX application thread and waits for it; directly, if we're already there.
+	 */
+	private static <T> T onFxThread(Callable<T> task) throws IOException {
+		if (Platform.isFxApplicationThread()) {
+			try {
+				return task.call();
+			} catch (IOException | RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+		}
 
-	private static void writeSafeImage(WritableImage fxImg, ImageFormat format, Path target) throws IOException {
-		try (OutputStream output = Files.newOutputStream(target)) {
-			writeSafeImage(fxImg, format.extension(), output);
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		Platform.runLater(() -> {
+			try {
+				future.complete(task.call());
+			} catch (Throwable t) {
+				future.completeExceptionally(t);
+			}
+		});
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException("Image export cancelled.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
 		}
 	}
 
-	private static void deckToImageFile(DeckList deck, BiConsumer<Zone, CardView> viewModifier, ImageFormat format, Path to) throws IOException {
-		writeSafeImage(deckToImage(deck, viewModifier), format, to);
+	private static void writeSafeImage(BufferedImage img, ImageFormat format, Path target) throws IOException {
+		try (OutputStream output = Files.newOutputStream(target)) {
+			if (!ImageIO.write(img, format.extension(), output)) {
+				throw new IOException("No image writer available for " + format.extension());
+			}
+		}
 	}
 }
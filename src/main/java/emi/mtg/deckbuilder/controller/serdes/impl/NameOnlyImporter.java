@@ -4,6 +4,7 @@ import emi.lib.mtg.Card;
 import emi.lib.mtg.game.Format;
 import emi.lib.mtg.game.Zone;
 import emi.mtg.deckbuilder.controller.Context;
+import emi.mtg.deckbuilder.controller.NameIndex;
 import emi.mtg.deckbuilder.controller.serdes.DeckImportExport;
 import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.model.DeckList;
@@ -14,31 +15,9 @@ import java.util.*;
 import java.util.stream.Stream;
 
 public abstract class NameOnlyImporter implements DeckImportExport {
-	private final static Map<String, Card> cache = new HashMap<>(), fullCache = new HashMap<>();
-
 	public static Card findCard(String name) {
-		Card card = cache.get(name);
-		if (card == null) {
-			card = fullCache.get(name);
-		}
-
-		if (card == null) {
-			for (Card candidate : Context.get().data.cards()) {
-				if (cache.containsKey(candidate.name())) {
-					continue;
-				}
-
-				cache.put(candidate.name(), candidate);
-				fullCache.put(candidate.fullName(), candidate);
-
-				if (candidate.name().equals(name) || candidate.fullName().equals(name)) {
-					card = candidate;
-					break;
-				}
-			}
-		}
-
-		return card;
+		NameIndex names = Context.get().names();
+		return names == null ? null : names.find(name);
 	}
 
 	public static Card.Print findPrint(String name) {
@@ -52,12 +31,15 @@ public abstract class NameOnlyImporter implements DeckImportExport {
 			return null;
 		}
 
-		Stream<? extends Card.Print> printings = card.prints().stream();
-		if (setCode != null) {
-			if (!setCode.isEmpty())
-				printings = printings.filter(pr -> pr.set().code().equalsIgnoreCase(setCode));
-			if (collectorNumber != null && !collectorNumber.isEmpty())
-				printings = printings.filter(pr -> pr.collectorNumber().equalsIgnoreCase(collectorNumber));
+		final boolean hasNumber = collectorNumber != null && !collectorNumber.isEmpty();
+		if (setCode != null && !setCode.isEmpty()) {
+			NameIndex names = Context.get().names();
+			Card.Print pr = hasNumber ? names.print(setCode, collectorNumber, card.name()) : names.print(setCode, card.name());
+			return pr != null ? pr : Preferences.get().anyPrint(card);
+		} else if (setCode != null) {
+			// No set, but maybe a collector number; the card only has a few prints to look through.
+			Stream<? extends Card.Print> printings = card.prints().stream();
+			if (hasNumber) printings = printings.filter(pr -> pr.collectorNumber().equalsIgnoreCase(collectorNumber));
 			return printings.findAny().map(pr -> (Card.Print) pr).orElse(Preferences.get().anyPrint(card));
 		} else {
 			return Preferences.get().anyPrint(card);
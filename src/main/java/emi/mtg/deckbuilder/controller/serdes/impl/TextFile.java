@@ -379,6 +379,11 @@ public abstract class TextFile extends NameOnlyImporter implements DeckImportExp
 			super.exportDeck(deck, writer);
 		}
 
+		@Override
+		public boolean supportsUnattendedExport() {
+			return false;
+		}
+
 		@Override
 		public DataFormat importFormat() {
 			return null; // TODO
@@ -9,6 +9,8 @@ import emi.mtg.deckbuilder.controller.Context;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class CardInstance implements Card.Print, Serializable {
@@ -17,27 +19,274 @@ public class CardInstance implements Card.Print, Serializable {
 		Full,
 		Invalid,
 		Warning,
-		Notice
+		Notice;
+
+		private static final Flags[] VALUES = values();
+		private final int bit = 1 << ordinal();
+	}
+
+	// Counts changes to any instance's flags or tags, so views can tell when results filtered on them may be stale.
+	private static final AtomicLong modifications = new AtomicLong();
+
+	/**
+	 * A card instance's flags, packed into the bits of a single byte. The byte is the instance's own unless it belongs to
+	 * a CollectionStore, in which case it's a slot in the store's flag array.
+	 */
+	public static final class FlagSet extends AbstractSet<Flags> {
+		private final byte[] bits;
+		private final int index;
+
+		private FlagSet(byte[] bits, int index) {
+			this.bits = bits;
+			this.index = index;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Flags && (bits[index] & ((Flags) o).bit) != 0;
+		}
+
+		@Override
+		public boolean add(Flags flag) {
+			final int old = bits[index];
+			bits[index] = (byte) (old | flag.bit);
+			if ((old & flag.bit) != 0) return false;
+			modifications.incrementAndGet();
+			return true;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Flags)) return false;
+
+			final int old = bits[index], bit = ((Flags) o).bit;
+			bits[index] = (byte) (old & ~bit);
+			if ((old & bit) == 0) return false;
+			modifications.incrementAndGet();
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			if (bits[index] == 0) return;
+			bits[index] = 0;
+			modifications.incrementAndGet();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return bits[index] == 0;
+		}
+
+		@Override
+		public int size() {
+			return Integer.bitCount(bits[index] & 0xFF);
+		}
+
+		@Override
+		public Iterator<Flags> iterator() {
+			final List<Flags> flags = new ArrayList<>(Flags.VALUES.length);
+			for (Flags flag : Flags.VALUES) {
+				if (contains(flag)) flags.add(flag);
+			}
+
+			final Iterator<Flags> iter = flags.iterator();
+			return new Iterator<Flags>() {
+				private Flags last;
+
+				@Override
+				public boolean hasNext() {
+					return iter.hasNext();
+				}
+
+				@Override
+				public Flags next() {
+					return last = iter.next();
+				}
+
+				@Override
+				public void remove() {
+					if (last == null) throw new IllegalStateException();
+					FlagSet.this.remove(last);
+					last = null;
+				}
+			};
+		}
 	}
 
-	public transient final EnumSet<Flags> flags = EnumSet.noneOf(Flags.class);
+	/**
+	 * A store-backed instance's tags. Reads go straight to the store's shared set; writes copy it, and store the result.
+	 */
+	private static final class StoredTags extends AbstractSet<String> {
+		private final CollectionStore store;
+		private final int ordinal;
+
+		private StoredTags(CollectionStore store, int ordinal) {
+			this.store = store;
+			this.ordinal = ordinal;
+		}
+
+		private boolean update(Predicate<Set<String>> change) {
+			final Set<String> tags = new HashSet<>(store.tags(ordinal));
+			if (!change.test(tags)) return false;
+			store.tags(ordinal, tags);
+			modifications.incrementAndGet();
+			return true;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return store.tags(ordinal).contains(o);
+		}
+
+		@Override
+		public boolean add(String tag) {
+			return !contains(tag) && update(t -> t.add(tag));
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends String> tags) {
+			return !store.tags(ordinal).containsAll(tags) && update(t -> t.addAll(tags));
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return contains(o) && update(t -> t.remove(o));
+		}
+
+		@Override
+		public void clear() {
+			if (!isEmpty()) update(t -> { t.clear(); return true; });
+		}
+
+		@Override
+		public int size() {
+			return store.tags(ordinal).size();
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			final Iterator<String> iter = store.tags(ordinal).iterator();
+			return new Iterator<String>() {
+				private String last;
+
+				@Override
+				public boolean hasNext() {
+					return iter.hasNext();
+				}
+
+				@Override
+				public String next() {
+					return last = iter.next();
+				}
+
+				@Override
+				public void remove() {
+					if (last == null) throw new IllegalStateException();
+					StoredTags.this.remove(last);
+					last = null;
+				}
+			};
+		}
+	}
+
+	/**
+	 * An unbacked instance's tags; a view of its own set which counts modifications.
+	 */
+	private static final class OwnTags extends AbstractSet<String> {
+		private final Set<String> tags;
+
+		private OwnTags(Set<String> tags) {
+			this.tags = tags;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return tags.contains(o);
+		}
+
+		@Override
+		public boolean add(String tag) {
+			if (!tags.add(tag)) return false;
+			modifications.incrementAndGet();
+			return true;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!tags.remove(o)) return false;
+			modifications.incrementAndGet();
+			return true;
+		}
+
+		@Override
+		public int size() {
+			return tags.size();
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			final Iterator<String> iter = tags.iterator();
+			return new Iterator<String>() {
+				@Override
+				public boolean hasNext() {
+					return iter.hasNext();
+				}
+
+				@Override
+				public String next() {
+					return iter.next();
+				}
+
+				@Override
+				public void remove() {
+					iter.remove();
+					modifications.incrementAndGet();
+				}
+			};
+		}
+	}
+
+	/**
+	 * @return A count which changes whenever any card instance's flags or tags do.
+	 */
+	public static long modifications() {
+		return modifications.get();
+	}
+
+	public transient final FlagSet flags;
 	public transient Format.Validator.Result.CardResult lastValidation = null;
-	private final Set<String> tags = new HashSet<>();
+	private final Set<String> tags;
+	private transient final CollectionStore store;
+	private transient final int ordinal;
 	@SerializedName(value="print", alternate={ "printing" })
 	private Card.Print print;
 
 	// Declare this so GSON doesn't nullify flags.
 	@SuppressWarnings("unused")
 	private CardInstance() {
+		this((Card.Print) null);
 	}
 
 	public CardInstance(Card.Print print) {
 		this.print = print;
+		this.flags = new FlagSet(new byte[1], 0);
+		this.tags = new HashSet<>();
+		this.store = null;
+		this.ordinal = -1;
 	}
 
 	public CardInstance(CardInstance clone) {
 		this(clone.print);
-		tags.addAll(clone.tags);
+		tags.addAll(clone.tags());
+	}
+
+	CardInstance(Card.Print print, CollectionStore store, int ordinal) {
+		this.print = print;
+		this.flags = new FlagSet(store.flags(), ordinal);
+		this.tags = null;
+		this.store = store;
+		this.ordinal = ordinal;
 	}
 
 	public Card card() {
@@ -125,7 +374,7 @@ public class CardInstance implements Card.Print, Serializable {
 	}
 
 	public Set<String> tags() {
-		return tags;
+		return store == null ? new OwnTags(tags) : new StoredTags(store, ordinal);
 	}
 
 	@Override
@@ -170,8 +419,8 @@ public class CardInstance implements Card.Print, Serializable {
 					.append(", released ").append(releaseDate());
 		}
 
-		if (Preferences.get().cardTagsTooltips && !tags.isEmpty()) {
-			builder.append("\n\nTags: ").append(String.join(", ", tags));
+		if (Preferences.get().cardTagsTooltips && !tags().isEmpty()) {
+			builder.append("\n\nTags: ").append(String.join(", ", tags()));
 		}
 
 		if (lastValidation != null) {
@@ -0,0 +1,70 @@
+package emi.mtg.deckbuilder.model;
+
+import emi.lib.mtg.Card;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact storage for the collection's card instances. Each instance is given a dense ordinal; its flags are packed into
+ * one byte of a shared array, and its tags are one of a pool of shared, immutable tag sets. Most collection cards have
+ * no tags or the same few, so tens of thousands of instances end up sharing a handful of sets.
+ *
+ * Instances made by the store keep CardInstance's API; their flags and tags read and write through to the store.
+ */
+public class CollectionStore {
+	private final byte[] flags;
+	private final Set<String>[] tags;
+	private final Map<Set<String>, Set<String>> interned;
+
+	/**
+	 * @param size The number of instances the store can hold.
+	 */
+	@SuppressWarnings("unchecked")
+	public CollectionStore(int size) {
+		this.flags = new byte[size];
+		this.tags = (Set<String>[]) new Set<?>[size];
+		this.interned = new ConcurrentHashMap<>();
+
+		Arrays.fill(this.tags, Collections.emptySet());
+	}
+
+	public int size() {
+		return flags.length;
+	}
+
+	/**
+	 * Creates the instance with the given ordinal.
+	 *
+	 * @param ordinal The instance's ordinal, between zero and the store's size.
+	 * @param print The print the instance is of.
+	 * @return A new card instance backed by this store.
+	 */
+	public CardInstance instance(int ordinal, Card.Print print) {
+		if (ordinal < 0 || ordinal >= size()) throw new IndexOutOfBoundsException(Integer.toString(ordinal));
+		return new CardInstance(print, this, ordinal);
+	}
+
+	byte[] flags() {
+		return flags;
+	}
+
+	Set<String> tags(int ordinal) {
+		return tags[ordinal];
+	}
+
+	void tags(int ordinal, Set<String> tags) {
+		this.tags[ordinal] = intern(tags);
+	}
+
+	private Set<String> intern(Set<String> tags) {
+		if (tags.isEmpty()) return Collections.emptySet();
+
+		Set<String> existing = interned.get(tags);
+		if (existing != null) return existing;
+
+		Set<String> copy = Collections.unmodifiableSet(new HashSet<>(tags));
+		existing = interned.putIfAbsent(copy, copy);
+		return existing != null ? existing : copy;
+	}
+}
@@ -10,100 +10,176 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.*;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class FilteredGroupedModel<G extends Comparable<G>, T> implements ObservableMap<G, FilteredGroupedModel.SubList<T>> {
-	protected static class Element {
+	/**
+	 * A predicate which is known to accept no more elements than some earlier predicate. When the model's predicate is
+	 * replaced with a Narrowing which narrows the old predicate, only the elements which are already filtered in are
+	 * re-tested.
+	 *
+	 * @param <T> The type of element tested.
+	 */
+	public interface Narrowing<T> extends Predicate<T> {
+		/**
+		 * @return The predicate this one is known to narrow.
+		 */
+		Predicate<T> narrows();
+	}
+
+	/**
+	 * Wraps a predicate to declare that it accepts no more elements than some previous predicate. The caller is
+	 * responsible for this actually being true!
+	 *
+	 * @param previous The predicate being narrowed.
+	 * @param next The new predicate.
+	 * @param <T> The type of element tested.
+	 * @return A predicate equivalent to next, which declares that it narrows previous.
+	 */
+	public static <T> Predicate<T> narrowing(Predicate<T> previous, Predicate<T> next) {
+		return new Narrowing<T>() {
+			@Override
+			public Predicate<T> narrows() {
+				return previous;
+			}
+
+			@Override
+			public boolean test(T t) {
+				return next.test(t);
+			}
+		};
+	}
+
+	protected static class Element<G, T> {
 		public final Object hash;
-		public final Set<Integer> all;
-		public final AtomicInteger preferred;
+		public final List<T> all;
+		public T preferred;
+
+		// The groups this element currently appears in.
+		protected final List<G> placed;
 
-		public Element(Object hash, int preferred) {
+		public Element(Object hash, T preferred) {
 			this.hash = hash;
-			this.preferred = new AtomicInteger(preferred);
-			this.all = new HashSet<>(4);
+			this.preferred = preferred;
+			this.all = new ArrayList<>(4);
+			this.placed = new ArrayList<>(1);
 		}
 	}
 
 	public static class SubList<T> extends ObservableListBase<T> {
-		private final List<T> source;
-		private Element[] elements;
+		private Element<?, T>[] elements;
 		private int count, total;
 
-		protected SubList(List<T> source, Element[] elements, int count) {
-			this.source = source;
+		// Non-null while a bulk change is in progress; see begin().
+		private List<T> snapshot;
+		private Set<Element<?, T>> removals;
+
+		protected SubList(Element<?, T>[] elements, int count) {
 			this.elements = elements;
 			this.count = count;
-			this.total = Arrays.stream(elements, 0, count).mapToInt(e -> e.all.size()).sum();
+			this.total = -1;
+			this.snapshot = null;
+			this.removals = null;
 		}
 
-		protected int reindexOf(int index, int min, int max) {
-			// TODO: This does not work.
-			int reid = Arrays.binarySearch(elements, min, max, index);
-			if (reid < 0) reid = ~reid;
-			return reid;
+		protected int indexOfElement(Element<?, T> element) {
+			for (int i = 0; i < count; ++i) {
+				if (elements[i] == element) return i;
+			}
+			return -1;
 		}
 
-		protected int reindexOf(int index) {
-			return reindexOf(index, 0, count);
+		/**
+		 * Begins a batch of changes. In bulk mode, individual changes aren't reported; instead, the whole list is
+		 * reported as replaced when the batch ends. This is far cheaper for listeners like SortedList when a large
+		 * fraction of the list changes at once.
+		 *
+		 * @param bulk True if the batch should be reported as a single replacement.
+		 */
+		protected void begin(boolean bulk) {
+			beginChange();
+
+			if (bulk) {
+				snapshot = new ArrayList<>(this);
+				removals = Collections.newSetFromMap(new IdentityHashMap<>());
+			}
 		}
 
-		protected void removeIndices(int lowest, int highest, List<T> removed) {
-			int lowestReindex = reindexOf(lowest);
-			int highestReindex = reindexOf(highest, lowestReindex, count);
-			final int delta = highestReindex - lowestReindex;
+		protected void end() {
+			if (snapshot != null) {
+				if (!removals.isEmpty()) {
+					int p = 0;
+					for (int i = 0; i < count; ++i) {
+						if (!removals.contains(elements[i])) elements[p++] = elements[i];
+					}
+					Arrays.fill(elements, p, count, null);
+					count = p;
+				}
 
-			beginChange();
+				if (!snapshot.isEmpty() || count > 0) nextReplace(0, count, snapshot);
 
-			for (int i = highestReindex; i < count; ++i) {
-				nextRemove(i - delta, removed.get(elements[i - delta].preferred.get() - lowest));
-				elements[i - delta] = elements[i];
+				snapshot = null;
+				removals = null;
 			}
 
-			count -= delta;
-
 			endChange();
 		}
 
-		protected void insertIndices(int index, Element[] newIds) {
-			final int delta = newIds.length;
-			final int reindex = reindexOf(index);
-			Element[] dest;
+		protected void append(Element<?, T> element) {
+			total = -1;
 
-			if (newIds.length > elements.length - count) {
-				dest = new Element[(count + newIds.length) * 3 / 2];
-				System.arraycopy(this.elements, 0, dest, 0, reindex);
-			} else {
-				dest = elements;
-			}
+			// In bulk mode, removals are deferred; an element which was removed and re-added is simply still here.
+			if (removals != null && removals.remove(element)) return;
 
-			// TODO There's probably an off-by-one error in here.
-			for (int i = count - 1; i > reindex + delta; --i) {
-				dest[i] = elements[i - delta];
+			if (count == elements.length) {
+				elements = Arrays.copyOf(elements, Math.max(8, count * 3 / 2));
 			}
 
-			for (int i = 0; i < delta; ++i) {
-				dest[reindex + i] = newIds[i];
+			elements[count++] = element;
+			if (snapshot == null) nextAdd(count - 1, count);
+		}
+
+		protected void removeElement(Element<?, T> element, T previous) {
+			total = -1;
+
+			if (removals != null) {
+				removals.add(element);
+				return;
 			}
 
-			elements = dest;
-			count += delta;
+			int index = indexOfElement(element);
+			if (index < 0) return;
 
-			beginChange();
-			nextAdd(reindex, reindex + delta);
-			endChange();
+			System.arraycopy(elements, index + 1, elements, index, count - index - 1);
+			elements[--count] = null;
+			nextRemove(index, previous);
 		}
-		
-		protected void elementUpdated(int index) {
-			beginChange();
-			nextUpdate(reindexOf(index));
-			endChange();
+
+		protected void elementChanged(Element<?, T> element, T previous) {
+			total = -1;
+			if (snapshot != null) return;
+
+			int index = indexOfElement(element);
+			if (index < 0) return;
+
+			if (element.preferred != previous) {
+				nextSet(index, previous);
+			} else {
+				nextUpdate(index);
+			}
+		}
+
+		protected void replaceAll(Element<?, T>[] elements, int count) {
+			begin(true);
+			this.elements = elements;
+			this.count = count;
+			this.total = -1;
+			end();
 		}
 
 		@Override
 		public T get(int index) {
-			return source.get(elements[index].preferred.get());
+			return elements[index].preferred;
 		}
 
 		public int count(int index) {
@@ -111,7 +187,7 @@ public class FilteredGroupedModel<G extends Comparable<G>, T> implements Observa
 		}
 
 		public List<T> getAll(int index) {
-			return elements[index].all.stream().map(source::get).collect(Collectors.toList());
+			return new ArrayList<>(elements[index].all);
 		}
 
 		@Override
@@ -120,10 +196,73 @@ public class FilteredGroupedModel<G extends Comparable<G>, T> implements Observa
 		}
 
 		public int total() {
+			if (total < 0) {
+				int sum = 0;
+				for (int i = 0; i < count; ++i) sum += elements[i].all.size();
+				total = sum;
+			}
+
 			return total;
 		}
 	}
 
+	/**
+	 * Collects the list change events generated by one incremental update, so each affected group fires once.
+	 */
+	private class Batch {
+		final boolean bulk;
+		final Set<G> touched;
+		final Map<T, Integer> filteredDelta;
+
+		Batch(boolean bulk) {
+			this.bulk = bulk;
+			this.touched = new TreeSet<>();
+			this.filteredDelta = new IdentityHashMap<>();
+		}
+
+		SubList<T> touch(G group) {
+			SubList<T> sub = groups.get(group);
+
+			if (sub == null) {
+				sub = new SubList<>(newElements(8), 0);
+				groups.put(group, sub);
+			}
+
+			if (touched.add(group)) sub.begin(bulk);
+			return sub;
+		}
+
+		void filtered(T element, int delta) {
+			filteredDelta.merge(element, delta, Integer::sum);
+		}
+
+		void finish() {
+			for (G group : touched) {
+				groups.get(group).end();
+			}
+
+			for (G group : touched) {
+				if (groups.get(group).isEmpty()) groups.remove(group);
+			}
+
+			Set<T> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+			List<T> added = new ArrayList<>();
+			for (Map.Entry<T, Integer> delta : filteredDelta.entrySet()) {
+				if (delta.getValue() < 0) removed.add(delta.getKey());
+				if (delta.getValue() > 0) added.add(delta.getKey());
+			}
+
+			if (!removed.isEmpty() || !added.isEmpty()) {
+				List<T> next = new ArrayList<>(filtered.size() + added.size());
+				for (T element : filtered) {
+					if (!removed.contains(element)) next.add(element);
+				}
+				next.addAll(added);
+				filtered.setAll(next);
+			}
+		}
+	}
+
 	public final ObservableList<T> source;
 
 	public final ObjectProperty<Predicate<T>> predicate;
@@ -137,6 +276,12 @@ public class FilteredGroupedModel<G extends Comparable<G>, T> implements Observa
 
 	private final DoubleProperty progress;
 
+	// Incremental state. Rebuilt by regroup(), maintained by include() and exclude(). Guarded by this.
+	private final Map<T, List<Element<G, T>>> membership;
+	private Map<Object, Element<G, T>> globalWitness;
+	private Map<G, Map<Object, Element<G, T>>> groupWitness;
+	private Batch batch;
+
 	public FilteredGroupedModel(ObservableList<T> source, Predicate<T> predicate, Function<? super T, Object> hash, boolean globallyUnique, Comparator<? super T> compare, Function<T, Set<G>> grouping) {
 		this.source = source;
 		this.groups = FXCollections.observableMap(new TreeMap<>());
@@ -147,11 +292,16 @@ public class FilteredGroupedModel<G extends Comparable<G>, T> implements Observa
 		this.compare = new SimpleObjectProperty<>(compare);
 		this.grouping = new SimpleObjectProperty<>(grouping);
 		this.progress = new SimpleDoubleProperty(ProgressIndicator.INDETERMINATE_PROGRESS);
+		this.membership = new IdentityHashMap<>();
 
 		this.source.addListener(this::sourceChanged);
 
 		this.predicate.addListener((prop, oldPredicate, newPredicate) -> {
-			regroup(); // TODO skip grouping/hashing?
+			if (newPredicate instanceof Narrowing && ((Narrowing<T>) newPredicate).narrows() == oldPredicate) {
+				narrow(newPredicate);
+			} else {
+				regroup(); // TODO skip grouping/hashing?
+			}
 		});
 
 		this.hash.addListener((prop, oldHash, newHash) -> {
@@ -173,17 +323,31 @@ public class FilteredGroupedModel<G extends Comparable<G>, T> implements Observa
 		regroup();
 	}
 
-	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
-		Thread t = Executors.defaultThreadFactory().newThread(r);
+	private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+		ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
 		t.setDaemon(true);
 		t.setName("FilteredGroupedModel-" + t.getName());
 		return t;
-	});
+	}, null, false);
 
-	private static final int MIN_ELEMENTS_PER_CORE = 100;
+	private static final int MIN_ELEMENTS_PER_TASK = 100;
+
+	// Splitting finer than one task per core lets work stealing even out regions with expensive predicates.
+	private static final int TASKS_PER_CORE = 4;
+
+	/**
+	 * Incremental updates touching more elements than this report each affected group as wholly replaced, rather than
+	 * element-by-element.
+	 */
+	private static final int BULK_THRESHOLD = 64;
 
 	private static Slog SLOG = new Slog("GroupedModel");
 
+	@SuppressWarnings("unchecked")
+	private static <G, T> Element<G, T>[] newElements(int size) {
+		return (Element<G, T>[]) new Element<?, ?>[size];
+	}
+
 	public ReadOnlyDoubleProperty progress() {
 		return progress;
 	}
@@ -220,7 +384,7 @@ public class FilteredGroupedModel<G extends Comparable<G>, T> implements Observa
 
 			@Override
 			public int getTo() {
-				return i;
+				return i + 1;
 			}
 
 			@Override
@@ -241,221 +405,417 @@ public class FilteredGroupedModel<G extends Comparable<G>, T> implements Observa
 	}
 
 	public synchronized void regroup() {
-		// TODO: Do NOTHING using `groups()` until it's been cleared. The sublists it contains are invalid.
 		final Slog slog = SLOG.child("Regroup");
 		final int elements = source == null ? 0 : source.size();
 
 		if (elements == 0) {
 			progress.set(0.0); // TODO default minimum groups?
+			membership.clear();
+			globalWitness = globallyUnique.get() ? new HashMap<>() : null;
+			groupWitness = globallyUnique.get() ? null : new HashMap<>();
 			filtered.clear();
-			groups.clear();
+			new ArrayList<>(groups.keySet()).forEach(groups::remove);
 			return;
 		}
 
 		slog.start();
 
-		final Function<? super T, Object> hash = this.hash.get();
-		final Comparator<? super T> compare = this.compare.get();
-		final boolean global = this.globallyUnique.get();
-		final Predicate<T> predicate = this.predicate.get();
-		final Function<T, Set<G>> grouping = this.grouping.get();
+		final int leafSize = Math.max(MIN_ELEMENTS_PER_TASK, elements / (POOL.getParallelism() * TASKS_PER_CORE) + 1);
+		final AtomicInteger processed = new AtomicInteger(0);
 
-		int cores = Runtime.getRuntime().availableProcessors();
-		int elementsPerCore = elements / cores + 1;
+		progress.set(0.0);
 
-		if (elementsPerCore < MIN_ELEMENTS_PER_CORE) {
-			cores = 1;
-			elementsPerCore = elements;
-		}
+		final Partial<G, T> result = POOL.invoke(new Grouper<>(source, 0, elements, leafSize, predicate.get(), hash.get(), globallyUnique.get(), compare.get(), grouping.get(), n -> progress.set(processed.addAndGet(n) / (double) elements)));
 
-		Future[] futures = new Future[cores];
-		ConcurrentMap<G, Element[]> regrouped = new ConcurrentHashMap<>();
-		ConcurrentMap<Object, Element> globalWitness = global ? new ConcurrentHashMap<>() : null;
-		ConcurrentMap<G, ConcurrentMap<Object, Element>> witness = global ? null : new ConcurrentHashMap<>();
-		ConcurrentMap<G, AtomicInteger> pointers = new ConcurrentHashMap<>();
-		List<T> filtered = Collections.synchronizedList(new ArrayList<>());
+		// TODO Include shifting in progress?
+		progress.set(1.0);
 
-		progress.set(0.0);
-		AtomicInteger processed = new AtomicInteger(0);
+		slog.log("Finished in %.4f seconds; storing.", slog.lap());
 
-		for (int i = 0; i < cores; ++i) {
-			final int start = i * elementsPerCore;
-			final int end = Math.min((i + 1) * elementsPerCore, elements);
+		// Lay out the groups. Everything's already in region order, so the result is the same from run to run.
+		final Map<G, List<Element<G, T>>> buckets = new TreeMap<>();
+		final Consumer<Element<G, T>> bucket = el -> {
+			for (G group : el.placed) buckets.computeIfAbsent(group, g -> new ArrayList<>()).add(el);
+		};
 
-			futures[i] = EXECUTOR.submit(() -> groupRegion(source, start, end, predicate, filtered, grouping, regrouped, pointers, () -> progress.set(processed.incrementAndGet() / (double) elements), hash, compare, globalWitness, witness));
+		result.unhashed.forEach(bucket);
+		if (result.global != null) {
+			result.global.values().forEach(bucket);
+		} else {
+			result.perGroup.values().forEach(w -> w.values().forEach(bucket));
 		}
 
-		for (int i = 0; i < cores; ++i) {
-			try {
-				futures[i].get();
-			} catch (InterruptedException e) {
-				slog.err("Exception while joining filter/group thread %d; some elements may be missing. Continuing.", e, i);
-			} catch (ExecutionException ee) {
-				throw new RuntimeException(ee);
-			}
-		}
+		// Rebuild the incremental state.
+		this.membership.clear();
+		this.globalWitness = result.global;
+		this.groupWitness = result.perGroup;
 
-		if (global) {
-			// Clean up any nulls from degrouping.
-			for (G group : regrouped.keySet()) {
-				Element[] els = regrouped.get(group);
-				int limit = pointers.get(group).get();
-				for (int p = 0, j = 0; j < limit; ++j) {
-					if (els[j] == null) {
-						pointers.get(group).decrementAndGet();
-						continue;
-					}
-					if (p != j) {
-						els[p] = els[j];
-					}
-					++p;
-				}
-			}
+		final Consumer<Element<G, T>> member = el -> {
+			for (T t : el.all) this.membership.computeIfAbsent(t, x -> new ArrayList<>(1)).add(el);
+		};
+
+		result.unhashed.forEach(member);
+		if (result.global != null) {
+			result.global.values().forEach(member);
+		} else {
+			result.perGroup.values().forEach(w -> w.values().forEach(member));
 		}
 
-		// TODO Include shifting in progress?
-		progress.set(1.0);
+		this.filtered.setAll(result.filtered);
 
-		slog.log("Finished in %.4f seconds; storing.", slog.lap());
+		// Groups which survived keep their SubList, so views don't need to rebuild anything but its contents.
+		for (G group : new ArrayList<>(groups.keySet())) {
+			if (!buckets.containsKey(group)) groups.remove(group);
+		}
 
-		this.filtered.setAll(filtered);
+		for (Map.Entry<G, List<Element<G, T>>> entry : buckets.entrySet()) {
+			final SubList<T> existing = groups.get(entry.getKey());
+			final Element<G, T>[] els = entry.getValue().toArray(newElements(entry.getValue().size()));
 
-		// TODO generate change events and actually update groups
-		// If our grouping has any overlap with the old groups, we could just replace their lists' contents.
-		// Although, we can't be certain of their indices anymore.
-		//groups.keySet().removeIf(x -> !regrouped.containsKey(x));
-		groups.clear();
-		for (Map.Entry<G, Element[]> entry : regrouped.entrySet()) {
-			groups.put(entry.getKey(), new SubList<>(this.source, entry.getValue(), pointers.get(entry.getKey()).get()));
+			if (existing != null) {
+				existing.replaceAll(els, els.length);
+			} else {
+				groups.put(entry.getKey(), new SubList<>(els, els.length));
+			}
 		}
 
-		slog.log("Stored in %.4f seconds; what's taking so damn long?", slog.lap());
+		slog.log("Stored in %.4f seconds.", slog.lap());
 
 		progress.set(0.0);
 	}
 
-	private static <T, G> void groupRegion(List<? extends T> source, int start, int end, Predicate<T> predicate, List<T> filtered, Function<T, Set<G>> grouping, Map<G, Element[]> concreteGroups, ConcurrentMap<G, AtomicInteger> pointers, Runnable increment, Function<? super T, Object> hash, Comparator<? super T> compare, ConcurrentMap<Object, Element> globalWitness, ConcurrentMap<G, ConcurrentMap<Object, Element>> witness) {
-		Slog slog = SLOG.child(String.format("%d..%d", start, end));
-		slog.start();
-		for (int i = start; i < end; ++i) {
-			T element = source.get(i);
-			increment.run();
-
-			if (!predicate.test(element)) continue;
-
-			filtered.add(element);
-			Set<G> groups = grouping.apply(element);
-			Object hasho = hash == null ? null : hash.apply(element);
-			Element el;
-
-			if (hasho == null) {
-				el = new Element(element, i);
-				for (G group : groups) {
-					int idx = pointers.computeIfAbsent(group, g -> new AtomicInteger(0)).getAndIncrement();
-					Element[] arr = concreteGroups.computeIfAbsent(group, g -> new Element[source.size()]);
-					arr[idx] = el;
-				}
-			} else if (globalWitness != null) {
-				Set<G> oldGroups = null;
-				boolean add = false;
+	/**
+	 * The filtered, hashed, grouped contents of one contiguous region of the source list. Each element's placed list
+	 * holds the groups it will be placed into once all regions are merged.
+	 */
+	private static class Partial<G, T> {
+		final List<T> filtered;
+		final List<Element<G, T>> unhashed;
+		final Map<Object, Element<G, T>> global;
+		final Map<G, Map<Object, Element<G, T>>> perGroup;
+
+		Partial(boolean global) {
+			this.filtered = new ArrayList<>();
+			this.unhashed = new ArrayList<>();
+			this.global = global ? new LinkedHashMap<>() : null;
+			this.perGroup = global ? null : new HashMap<>();
+		}
 
-				synchronized (globalWitness) {
-					el = globalWitness.get(hasho);
-					if (el == null) {
-						el = new Element(hasho, i);
-						globalWitness.put(hasho, el);
-						add = true;
+		/**
+		 * Folds a later region into this one. Ties between preferred elements go to the earlier region, exactly as if
+		 * the whole source had been scanned in order.
+		 */
+		Partial<G, T> merge(Partial<G, T> later, Comparator<? super T> compare) {
+			filtered.addAll(later.filtered);
+			unhashed.addAll(later.unhashed);
+
+			if (global != null) {
+				merge(global, later.global, compare);
+			} else {
+				for (Map.Entry<G, Map<Object, Element<G, T>>> entry : later.perGroup.entrySet()) {
+					Map<Object, Element<G, T>> mine = perGroup.get(entry.getKey());
+					if (mine == null) {
+						perGroup.put(entry.getKey(), entry.getValue());
 					} else {
-						T old = source.get(el.preferred.get());
-						if (compare.compare(old, element) > 0) {
-							oldGroups = grouping.apply(old);
-							el.preferred.set(i);
-							add = true;
-						}
+						merge(mine, entry.getValue(), compare);
 					}
 				}
+			}
 
-				if (add) {
-					for (G group : groups) {
-						if (oldGroups != null && oldGroups.contains(group)) continue;
-						int idx = pointers.computeIfAbsent(group, g -> new AtomicInteger(0)).getAndIncrement();
-						Element[] arr = concreteGroups.computeIfAbsent(group, g -> new Element[source.size()]);
-						arr[idx] = el;
-					}
+			return this;
+		}
 
-					if (oldGroups != null) {
-						for (G group : oldGroups) {
-							if (groups.contains(group)) continue;
-							Element[] els = concreteGroups.get(group);
-							if (els == null) continue; // TODO This seems to be a race condition...
-							int limit = pointers.get(group).get();
-							synchronized (els) {
-								for (int j = 0; j < limit; ++j) {
-									if (els[j] != null && els[j].hash == hasho) els[j] = null;
-								}
-							}
-						}
-					}
+		private static <G, T> void merge(Map<Object, Element<G, T>> into, Map<Object, Element<G, T>> from, Comparator<? super T> compare) {
+			for (Element<G, T> el : from.values()) {
+				Element<G, T> existing = into.putIfAbsent(el.hash, el);
+				if (existing == null) continue;
+
+				existing.all.addAll(el.all);
+				if (compare.compare(existing.preferred, el.preferred) > 0) {
+					existing.preferred = el.preferred;
+					existing.placed.clear();
+					existing.placed.addAll(el.placed);
 				}
+			}
+		}
+	}
+
+	/**
+	 * Filters and groups a region of the source list. Large regions are split in half and grouped in parallel; each
+	 * task only ever touches its own Partial, so no locking is needed until the halves are merged, in order.
+	 */
+	private static class Grouper<G, T> extends RecursiveTask<Partial<G, T>> {
+		private static final long serialVersionUID = 1L;
+
+		private final List<? extends T> source;
+		private final int start, end, leafSize;
+		private final Predicate<T> predicate;
+		private final Function<? super T, Object> hash;
+		private final boolean global;
+		private final Comparator<? super T> compare;
+		private final Function<T, Set<G>> grouping;
+		private final IntConsumer progress;
+
+		Grouper(List<? extends T> source, int start, int end, int leafSize, Predicate<T> predicate, Function<? super T, Object> hash, boolean global, Comparator<? super T> compare, Function<T, Set<G>> grouping, IntConsumer progress) {
+			this.source = source;
+			this.start = start;
+			this.end = end;
+			this.leafSize = leafSize;
+			this.predicate = predicate;
+			this.hash = hash;
+			this.global = global;
+			this.compare = compare;
+			this.grouping = grouping;
+			this.progress = progress;
+		}
+
+		@Override
+		protected Partial<G, T> compute() {
+			if (end - start <= leafSize) {
+				return group();
+			}
+
+			final int mid = (start + end) >>> 1;
+			Grouper<G, T> left = new Grouper<>(source, start, mid, leafSize, predicate, hash, global, compare, grouping, progress);
+			Grouper<G, T> right = new Grouper<>(source, mid, end, leafSize, predicate, hash, global, compare, grouping, progress);
+			left.fork();
+			Partial<G, T> later = right.compute();
+			return left.join().merge(later, compare);
+		}
+
+		private Partial<G, T> group() {
+			final Partial<G, T> partial = new Partial<>(global);
+
+			for (int i = start; i < end; ++i) {
+				T element = source.get(i);
+				if (!predicate.test(element)) continue;
 
-				el.all.add(i);
-			} else if (witness != null) {
-				for (G group : groups) {
-					Map<Object, Element> wit = witness.computeIfAbsent(group, g -> new ConcurrentHashMap<>());
-					boolean add = false;
+				partial.filtered.add(element);
+				Set<G> groups = grouping.apply(element);
+				Object hasho = hash == null ? null : hash.apply(element);
 
-					// TODO: Not sure if synchronizing on wit is correct or necessary here.
-					synchronized (wit) {
-						el = wit.get(hasho);
+				if (hasho == null) {
+					Element<G, T> el = new Element<>(null, element);
+					el.all.add(element);
+					el.placed.addAll(groups);
+					partial.unhashed.add(el);
+				} else if (global) {
+					Element<G, T> el = partial.global.get(hasho);
+					if (el == null) {
+						el = new Element<>(hasho, element);
+						el.placed.addAll(groups);
+						partial.global.put(hasho, el);
+					} else if (compare.compare(el.preferred, element) > 0) {
+						el.preferred = element;
+						el.placed.clear();
+						el.placed.addAll(groups);
+					}
+					el.all.add(element);
+				} else {
+					for (G group : groups) {
+						Map<Object, Element<G, T>> wit = partial.perGroup.computeIfAbsent(group, g -> new LinkedHashMap<>());
+						Element<G, T> el = wit.get(hasho);
 						if (el == null) {
-							el = new Element(hasho, i);
+							el = new Element<>(hasho, element);
+							el.placed.add(group);
 							wit.put(hasho, el);
-							add = true;
-						} else if (compare.compare(source.get(el.preferred.get()), element) > 0) {
-							el.preferred.set(i);
+						} else if (compare.compare(el.preferred, element) > 0) {
+							el.preferred = element;
 						}
+						el.all.add(element);
 					}
+				}
+			}
 
-					if (add) {
-						int idx = pointers.computeIfAbsent(group, g -> new AtomicInteger(0)).getAndIncrement();
-						Element[] arr = concreteGroups.computeIfAbsent(group, g -> new Element[source.size()]);
-						arr[idx] = el;
-					}
+			progress.accept(end - start);
+			return partial;
+		}
+	}
 
-					el.all.add(i);
-				}
+	/**
+	 * Runs a set of incremental changes, then fires the resulting change events all at once.
+	 */
+	private void batch(boolean bulk, Runnable changes) {
+		batch = new Batch(bulk);
+
+		try {
+			changes.run();
+		} finally {
+			Batch finished = batch;
+			batch = null;
+			finished.finish();
+		}
+	}
+
+	/**
+	 * Moves an element into exactly the given groups, reporting it as changed in groups it was already part of.
+	 */
+	private void place(Element<G, T> element, Collection<G> target, T previous) {
+		for (G group : element.placed) {
+			if (!target.contains(group)) batch.touch(group).removeElement(element, previous);
+		}
+
+		for (G group : target) {
+			SubList<T> sub = batch.touch(group);
+			if (element.placed.contains(group)) {
+				sub.elementChanged(element, previous);
+			} else {
+				sub.append(element);
 			}
 		}
-		slog.log("Finished in %.4f seconds.", slog.elapsed());
+
+		element.placed.clear();
+		element.placed.addAll(target);
 	}
 
-	protected void sourceChanged(ListChangeListener.Change<? extends T> lce) {
-		// TODO: In the future, I need to implement these properly. Doing a full regroup is horribly inefficient and
-		// TODO: triggers a lot of extra work in the CardView. There's also problematic complications for handling list
-		// TODO: change events this way, since the old sublists' indices are invalidated. Finally, handling this
-		// TODO: properly would let me avoid sending progress notifications for small list change events.
+	private Element<G, T> witness(Map<Object, Element<G, T>> witness, Object hash, T element, Set<G> groups) {
+		Element<G, T> el = witness.get(hash);
 
-		while (lce.next()) {
-			if (lce.wasPermutated()) {
-//				throw new UnsupportedOperationException("Implement handlePermutation");
-				regroup();
+		if (el == null) {
+			el = new Element<>(hash, element);
+			el.all.add(element);
+			witness.put(hash, el);
+			place(el, groups, element);
+		} else {
+			el.all.add(element);
+
+			final T previous = el.preferred;
+			if (compare.get().compare(previous, element) > 0) el.preferred = element;
+			place(el, el.preferred == element ? groups : new ArrayList<>(el.placed), previous);
+		}
+
+		return el;
+	}
+
+	/**
+	 * Adds a single element which has passed the predicate to the groups.
+	 */
+	private void include(T element) {
+		final Set<G> groups = grouping.get().apply(element);
+		final Function<? super T, Object> hash = this.hash.get();
+		final Object hasho = hash == null ? null : hash.apply(element);
+		final List<Element<G, T>> elements = new ArrayList<>(1);
+
+		if (hasho == null) {
+			Element<G, T> el = new Element<>(null, element);
+			el.all.add(element);
+			place(el, groups, element);
+			elements.add(el);
+		} else if (globalWitness != null) {
+			elements.add(witness(globalWitness, hasho, element, groups));
+		} else {
+			for (G group : groups) {
+				elements.add(witness(groupWitness.computeIfAbsent(group, g -> new HashMap<>()), hasho, element, Collections.singleton(group)));
 			}
+		}
+
+		membership.put(element, elements);
+		batch.filtered(element, 1);
+	}
 
-			if (lce.wasRemoved()) {
-//				throw new UnsupportedOperationException("Implement handleRemoved");
-				regroup();
+	/**
+	 * Removes a single element from the groups, if it's in them.
+	 */
+	private void exclude(T element) {
+		final List<Element<G, T>> elements = membership.remove(element);
+		if (elements == null) return;
+
+		for (Element<G, T> el : elements) {
+			for (int i = 0; i < el.all.size(); ++i) {
+				if (el.all.get(i) == element) {
+					el.all.remove(i);
+					break;
+				}
 			}
 
-			if (lce.wasAdded()) {
-//				throw new UnsupportedOperationException("Implement handleAdded");
-				regroup();
+			if (el.all.isEmpty()) {
+				final List<G> groups = new ArrayList<>(el.placed);
+				place(el, Collections.emptySet(), element);
+
+				if (el.hash != null && globalWitness != null) {
+					globalWitness.remove(el.hash, el);
+				} else if (el.hash != null) {
+					for (G group : groups) groupWitness.get(group).remove(el.hash, el);
+				}
+			} else if (el.preferred == element) {
+				final Comparator<? super T> compare = this.compare.get();
+				T best = el.all.get(0);
+				for (T t : el.all) {
+					if (compare.compare(best, t) > 0) best = t;
+				}
+
+				el.preferred = best;
+				place(el, globalWitness != null ? grouping.get().apply(best) : new ArrayList<>(el.placed), element);
+			} else {
+				place(el, new ArrayList<>(el.placed), el.preferred);
 			}
+		}
+
+		batch.filtered(element, -1);
+	}
+
+	/**
+	 * Re-tests only the elements which are already filtered in, dropping any which fail the new predicate.
+	 */
+	private synchronized void narrow(Predicate<T> predicate) {
+		final Slog slog = SLOG.child("Narrow").start();
+
+		final List<T> rejected = new ArrayList<>();
+		for (T element : membership.keySet()) {
+			if (!predicate.test(element)) rejected.add(element);
+		}
+
+		if (!rejected.isEmpty()) {
+			batch(rejected.size() > BULK_THRESHOLD, () -> rejected.forEach(this::exclude));
+		}
+
+		slog.log("Re-tested %d elements, dropped %d, in %.4f seconds.", membership.size() + rejected.size(), rejected.size(), slog.elapsed());
+	}
+
+	protected synchronized void sourceChanged(ListChangeListener.Change<? extends T> lce) {
+		int changed = 0;
+		while (lce.next()) {
+			if (lce.wasPermutated()) continue; // Membership is tracked by identity, so order doesn't matter to us.
 
 			if (lce.wasUpdated()) {
-//				throw new UnsupportedOperationException("Implement handleUpdated");
-				regroup();
+				changed += lce.getTo() - lce.getFrom();
+			} else {
+				changed += lce.getRemovedSize() + lce.getAddedSize();
 			}
 		}
+		lce.reset();
+
+		if (changed == 0) return;
+
+		if (changed > BULK_THRESHOLD && changed > source.size() / 2) {
+			// Wholesale replacement; a parallel regroup wins.
+			regroup();
+			return;
+		}
+
+		final Predicate<T> predicate = this.predicate.get();
+		batch(changed > BULK_THRESHOLD, () -> {
+			while (lce.next()) {
+				if (lce.wasPermutated()) continue;
+
+				if (lce.wasUpdated()) {
+					for (int i = lce.getFrom(); i < lce.getTo(); ++i) {
+						T element = source.get(i);
+						exclude(element);
+						if (predicate.test(element)) include(element);
+					}
+					continue;
+				}
+
+				for (T element : lce.getRemoved()) {
+					exclude(element);
+				}
+
+				for (T element : lce.getAddedSubList()) {
+					if (predicate.test(element)) include(element);
+				}
+			}
+		});
 	}
 
 	@Override
@@ -668,5 +1028,14 @@ public class FilteredGroupedModel<G extends Comparable<G>, T> implements Observa
 
 		numbers.remove(125);
 		checkConsistency.accept(i -> i != 125);
+
+		numbers.add(125);
+		checkConsistency.accept(i -> true);
+
+		Predicate<Integer> below1000 = i -> i < 1000;
+		test.predicate.set(below1000);
+		test.predicate.set(narrowing(below1000, i -> i < 1000 && isPrime.test(i)));
+		checkConsistency.accept(i -> i < 1000 && isPrime.test(i));
+		assert !test.containsKey("Even") || test.get("Even").size() == 1 : "Narrowing left stale elements behind!";
 	}
 }
@@ -336,6 +336,8 @@ public class Preferences {
 
 	public final Path dataPath = MainApplication.JAR_DIR.resolve("data/").toAbsolutePath();
 	public final Path imagesPath = MainApplication.JAR_DIR.resolve("images/").toAbsolutePath();
+	public double imageCacheMegabytes = 512.0;
+	public boolean packedThumbnails = true;
 
 	public URI updateUri = URI.create("https://cloudpost.app:8443/deckbuilder-nodata.zip");
 	public boolean autoUpdateData = true;
@@ -357,6 +359,10 @@ public class Preferences {
 
 	public SearchProvider searchProvider = SearchProvider.SEARCH_PROVIDERS.get(Omnifilter.NAME);
 	public String defaultQuery = "";
+	public boolean specializeSearches = true;
+	public boolean incrementalRepaint = true;
+	public boolean mipmappedThumbnails = true;
+	public boolean thumbnailAtlas = true;
 
 	public CardView.Grouping collectionGrouping = CardView.GROUPINGS.get(Rarity.class);
 	public List<CardView.ActiveSorting> collectionSorting = CardView.DEFAULT_COLLECTION_SORTING;
@@ -477,6 +483,10 @@ public class Preferences {
 		return stream.findFirst().orElse(null);
 	}
 
+	public long imageCacheBytes() {
+		return (long) (imageCacheMegabytes * 1024.0 * 1024.0);
+	}
+
 	public Card.Print anyPrint(Card card) {
 		Card.Print preferred = preferredPrint(card);
 		if (preferred == null) preferred = card.prints().iterator().next();
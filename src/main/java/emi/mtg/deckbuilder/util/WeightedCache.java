@@ -0,0 +1,224 @@
+package emi.mtg.deckbuilder.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A concurrent cache of asynchronously-loaded values, bounded by the total weight (e.g. bytes) of its completed values.
+ * Lookups never block on each other; when the budget is exceeded, the least-recently-used entries are evicted in a
+ * batch until the cache is back under its low-water mark.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class WeightedCache<K, V> {
+	private static final double LOW_WATER = 0.9;
+
+	public static class Stats {
+		public final long hits, misses, evictions, entries, weight, budget;
+
+		public Stats(long hits, long misses, long evictions, long entries, long weight, long budget) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.entries = entries;
+			this.weight = weight;
+			this.budget = budget;
+		}
+
+		public double hitRate() {
+			return hits + misses == 0 ? 0.0 : (double) hits / (double) (hits + misses);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d entries, %d / %d MB, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+					entries, weight / (1024 * 1024), budget / (1024 * 1024), hits, misses, hitRate() * 100.0, evictions);
+		}
+	}
+
+	private class Entry {
+		final K key;
+		final CompletableFuture<V> value;
+		volatile long lastAccess;
+
+		// Guarded by this.
+		long weight;
+		boolean removed;
+
+		Entry(K key) {
+			this.key = key;
+			this.value = new CompletableFuture<>();
+			this.lastAccess = clock.incrementAndGet();
+			this.weight = 0;
+			this.removed = false;
+		}
+	}
+
+	private final ConcurrentHashMap<K, Entry> map;
+	private final ToLongFunction<? super V> weigher;
+	private final ReentrantLock evictionLock;
+
+	private final AtomicLong clock, weight;
+	private final LongAdder hits, misses, evictions;
+	private volatile long budget;
+
+	/**
+	 * Creates a new, empty weighted cache.
+	 *
+	 * @param budget The maximum total weight of values to retain.
+	 * @param weigher A function which returns the weight of a loaded value. Must be non-negative.
+	 */
+	public WeightedCache(long budget, ToLongFunction<? super V> weigher) {
+		this.map = new ConcurrentHashMap<>();
+		this.weigher = weigher;
+		this.evictionLock = new ReentrantLock();
+
+		this.clock = new AtomicLong(0);
+		this.weight = new AtomicLong(0);
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+		this.budget = budget;
+	}
+
+	/**
+	 * Returns the cached future for the given key, or starts loading it via the given loader if it isn't present.
+	 * The loader is called at most once per miss, outside of any lock, and should return promptly.
+	 *
+	 * @param key The key to look up.
+	 * @param loader A function which begins loading the value for a key.
+	 * @return A future which will be completed with the value for the key.
+	 */
+	public CompletableFuture<V> get(K key, Function<? super K, ? extends CompletableFuture<? extends V>> loader) {
+		Entry entry = map.get(key);
+		if (entry != null) {
+			entry.lastAccess = clock.incrementAndGet();
+			hits.increment();
+			return entry.value;
+		}
+
+		Entry created = new Entry(key);
+		entry = map.putIfAbsent(key, created);
+		if (entry != null) {
+			entry.lastAccess = clock.incrementAndGet();
+			hits.increment();
+			return entry.value;
+		}
+
+		misses.increment();
+
+		created.value.whenComplete((v, t) -> {
+			if (t != null) {
+				invalidate(created);
+			} else {
+				charge(created, weigher.applyAsLong(v));
+			}
+		});
+
+		try {
+			loader.apply(key).whenComplete((v, t) -> {
+				if (t != null) {
+					created.value.completeExceptionally(t);
+				} else {
+					created.value.complete(v);
+				}
+			});
+		} catch (RuntimeException re) {
+			created.value.completeExceptionally(re);
+		}
+
+		return created.value;
+	}
+
+	/**
+	 * Returns the cached future for the given key, if present, without loading anything.
+	 *
+	 * @param key The key to look up.
+	 * @return The cached future, or null if there isn't one.
+	 */
+	public CompletableFuture<V> getIfPresent(K key) {
+		Entry entry = map.get(key);
+		if (entry == null) return null;
+		entry.lastAccess = clock.incrementAndGet();
+		return entry.value;
+	}
+
+	public void invalidate(K key) {
+		Entry entry = map.get(key);
+		if (entry != null) invalidate(entry);
+	}
+
+	public void clear() {
+		for (Entry entry : new ArrayList<>(map.values())) {
+			invalidate(entry);
+		}
+	}
+
+	public long budget() {
+		return budget;
+	}
+
+	public void budget(long budget) {
+		this.budget = budget;
+		if (weight.get() > budget) evict();
+	}
+
+	public Stats stats() {
+		return new Stats(hits.sum(), misses.sum(), evictions.sum(), map.size(), weight.get(), budget);
+	}
+
+	private boolean invalidate(Entry entry) {
+		if (!map.remove(entry.key, entry)) return false;
+
+		final long w;
+		synchronized (entry) {
+			entry.removed = true;
+			w = entry.weight;
+			entry.weight = 0;
+		}
+
+		weight.addAndGet(-w);
+		return true;
+	}
+
+	private void charge(Entry entry, long w) {
+		synchronized (entry) {
+			if (entry.removed) return;
+			entry.weight = w;
+		}
+
+		if (weight.addAndGet(w) > budget) evict();
+	}
+
+	private void evict() {
+		if (!evictionLock.tryLock()) return; // Someone else is already evicting.
+
+		try {
+			if (weight.get() <= budget) return;
+
+			final long target = (long) (budget * LOW_WATER);
+
+			List<Entry> candidates = new ArrayList<>(map.size());
+			for (Entry entry : map.values()) {
+				if (entry.value.isDone()) candidates.add(entry);
+			}
+			candidates.sort(Comparator.comparingLong(e -> e.lastAccess));
+
+			for (Entry entry : candidates) {
+				if (weight.get() <= target) break;
+				if (invalidate(entry)) evictions.increment();
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+}
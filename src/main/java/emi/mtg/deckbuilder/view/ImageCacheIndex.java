@@ -0,0 +1,249 @@
+package emi.mtg.deckbuilder.view;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-memory index of the PNG image cache, so existence checks, cleanup and size statistics never have to walk or
+ * stat the cache directories. The index is persisted as an append-only log beside the cache, one record per line:
+ *
+ *   + [path] [size] [last access, epoch millis] [source]
+ *   - [path]
+ *
+ * Fields are tab-separated, and paths are relative to the cache root. Later records replace earlier ones. The log is
+ * rewritten from memory whenever it grows well past the number of live entries. If there's no log, e.g. on first run,
+ * the cache directories are walked once to build one.
+ *
+ * Access times are only recorded to the nearest hour or so, which is plenty for cleanup and keeps hits from flooding
+ * the log.
+ */
+class ImageCacheIndex {
+	private static final String LOG_FILE = "index.log";
+	private static final String PUT = "+", REMOVE = "-";
+	private static final long TOUCH_GRANULARITY = TimeUnit.HOURS.toMillis(1);
+	private static final int COMPACT_SLACK = 4096;
+
+	static class Entry {
+		final String key;
+		final long size;
+		final String source;
+		volatile long lastAccess;
+
+		Entry(String key, long size, long lastAccess, String source) {
+			this.key = key;
+			this.size = size;
+			this.lastAccess = lastAccess;
+			this.source = source;
+		}
+	}
+
+	public static class Stats {
+		public final long files, bytes, medianBytes, records;
+
+		public Stats(long files, long bytes, long medianBytes, long records) {
+			this.files = files;
+			this.bytes = bytes;
+			this.medianBytes = medianBytes;
+			this.records = records;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d files, %d MB, %d KB median, %d log records", files, bytes / (1024 * 1024), medianBytes / 1024, records);
+		}
+	}
+
+	private final Path root, logPath;
+	private final Map<String, Entry> entries;
+
+	// Guarded by this.
+	private Writer log;
+	private long records;
+
+	/**
+	 * Loads the index, building it from the cache directories if it doesn't exist yet.
+	 *
+	 * @param root The cache root; the log lives here, and paths are recorded relative to it.
+	 * @param dirs The directories holding per-set subdirectories of PNGs, used to build a missing index.
+	 */
+	ImageCacheIndex(Path root, Path... dirs) throws IOException {
+		this.root = root;
+		this.logPath = root.resolve(LOG_FILE);
+		this.entries = new ConcurrentHashMap<>();
+
+		if (Files.exists(logPath)) {
+			replay();
+		} else {
+			scan(dirs);
+		}
+
+		if (!Files.exists(logPath) || records > 2L * entries.size() + COMPACT_SLACK) {
+			compact();
+		} else {
+			this.log = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+	}
+
+	private void replay() throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				++records;
+				final String[] fields = line.split("\t");
+
+				try {
+					if (fields.length >= 5 && PUT.equals(fields[0])) {
+						entries.put(fields[1], new Entry(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]), fields[4]));
+					} else if (fields.length >= 2 && REMOVE.equals(fields[0])) {
+						entries.remove(fields[1]);
+					}
+				} catch (NumberFormatException nfe) {
+					// A torn write at the end of the log; skip it.
+				}
+			}
+		}
+	}
+
+	private void scan(Path... dirs) throws IOException {
+		for (Path dir : dirs) {
+			try (DirectoryStream<Path> sets = Files.newDirectoryStream(dir, p -> Files.isDirectory(p))) {
+				for (Path set : sets) {
+					try (DirectoryStream<Path> images = Files.newDirectoryStream(set, "*.png")) {
+						for (Path image : images) {
+							BasicFileAttributes attrs = Files.readAttributes(image, BasicFileAttributes.class);
+							long lastAccess = Math.max(attrs.lastAccessTime().toMillis(), attrs.lastModifiedTime().toMillis());
+							String key = key(image);
+							entries.put(key, new Entry(key, attrs.size(), lastAccess, "unknown"));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private String key(Path path) {
+		return root.relativize(path).toString().replace(File.separatorChar, '/');
+	}
+
+	Path path(Entry entry) {
+		return root.resolve(entry.key);
+	}
+
+	private synchronized void append(String... fields) {
+		if (log == null) return;
+
+		try {
+			log.write(String.join("\t", fields));
+			log.write('\n');
+			log.flush();
+			++records;
+		} catch (IOException ioe) {
+			// The index is only an optimization; losing a record costs at worst a refetch or a missed cleanup.
+			ioe.printStackTrace();
+		}
+	}
+
+	private void appendPut(Entry entry) {
+		append(PUT, entry.key, Long.toString(entry.size), Long.toString(entry.lastAccess), entry.source);
+	}
+
+	boolean contains(Path path) {
+		return entries.containsKey(key(path));
+	}
+
+	/**
+	 * Records that a cached image was just used.
+	 */
+	void touch(Path path) {
+		final Entry entry = entries.get(key(path));
+		if (entry == null) return;
+
+		final long now = System.currentTimeMillis();
+		if (now - entry.lastAccess < TOUCH_GRANULARITY) return;
+
+		entry.lastAccess = now;
+		appendPut(entry);
+	}
+
+	/**
+	 * Records that an image was just written to the cache.
+	 *
+	 * @param path The image's path in the cache.
+	 * @param size The file's size in bytes.
+	 * @param source Where the image came from.
+	 */
+	void put(Path path, long size, String source) {
+		final String key = key(path);
+		final Entry entry = new Entry(key, size, System.currentTimeMillis(), source.replace('\t', ' '));
+		entries.put(key, entry);
+		appendPut(entry);
+	}
+
+	void remove(Path path) {
+		final String key = key(path);
+		if (entries.remove(key) != null) append(REMOVE, key);
+	}
+
+	/**
+	 * @return A snapshot of every indexed image.
+	 */
+	List<Entry> entries() {
+		return new ArrayList<>(entries.values());
+	}
+
+	Stats stats() {
+		final long[] sizes = entries.values().stream().mapToLong(e -> e.size).sorted().toArray();
+		final long records;
+		synchronized (this) {
+			records = this.records;
+		}
+
+		return new Stats(sizes.length, Arrays.stream(sizes).sum(), sizes.length == 0 ? 0 : sizes[sizes.length / 2], records);
+	}
+
+	/**
+	 * Rewrites the log with one record per live entry. The new log is written beside the old one and only swapped in once
+	 * it's complete; whatever happens, records keep being appended to whichever log ends up in place.
+	 */
+	synchronized void compact() throws IOException {
+		final Path tmp = logPath.resolveSibling(LOG_FILE + ".tmp");
+		long written = 0;
+		try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+			for (Entry entry : entries.values()) {
+				writer.write(String.join("\t", PUT, entry.key, Long.toString(entry.size), Long.toString(entry.lastAccess), entry.source));
+				writer.write('\n');
+				++written;
+			}
+		} catch (IOException ioe) {
+			Files.deleteIfExists(tmp);
+			throw ioe;
+		}
+
+		try {
+			// Some platforms won't replace a file that's still open.
+			if (log != null) {
+				final Writer old = log;
+				log = null;
+				old.close();
+			}
+
+			try {
+				Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException amnse) {
+				Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			records = written;
+		} finally {
+			if (log == null) log = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+	}
+}
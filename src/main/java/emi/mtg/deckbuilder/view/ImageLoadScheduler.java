@@ -0,0 +1,188 @@
+package emi.mtg.deckbuilder.view;
+
+import javafx.scene.image.Image;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of image loader threads, fed from a priority queue. Requests can be claimed by views, which may later
+ * release them; a queued request which no view wants anymore is cancelled before it ever touches the disk or network.
+ * Requests made without a claimant are pinned and always run.
+ */
+class ImageLoadScheduler {
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	public static class Stats {
+		public final int threads, active, maxThreads, queued, queuedVisible, queuedPrefetch, queuedBackground;
+		public final long completed, cancelled;
+
+		public Stats(int threads, int active, int maxThreads, int queuedVisible, int queuedPrefetch, int queuedBackground, long completed, long cancelled) {
+			this.threads = threads;
+			this.active = active;
+			this.maxThreads = maxThreads;
+			this.queued = queuedVisible + queuedPrefetch + queuedBackground;
+			this.queuedVisible = queuedVisible;
+			this.queuedPrefetch = queuedPrefetch;
+			this.queuedBackground = queuedBackground;
+			this.completed = completed;
+			this.cancelled = cancelled;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d / %d threads (%d active), %d queued (%d visible, %d prefetch, %d background), %d completed, %d cancelled",
+					threads, maxThreads, active, queued, queuedVisible, queuedPrefetch, queuedBackground, completed, cancelled);
+		}
+	}
+
+	private class Task implements Runnable, Comparable<Task> {
+		final Object key;
+		final long sequence;
+		final Runnable body;
+		final CompletableFuture<Image> future;
+
+		// Guarded by ImageLoadScheduler.this.
+		Images.Priority priority;
+		final Set<Object> claimants;
+		boolean pinned, started, cancelled;
+
+		Task(Object key, Images.Priority priority, Runnable body, CompletableFuture<Image> future) {
+			this.key = key;
+			this.sequence = sequencer.incrementAndGet();
+			this.body = body;
+			this.future = future;
+			this.priority = priority;
+			this.claimants = Collections.newSetFromMap(new IdentityHashMap<>());
+			this.pinned = false;
+			this.started = false;
+			this.cancelled = false;
+		}
+
+		@Override
+		public int compareTo(Task other) {
+			int cmp = priority.compareTo(other.priority);
+			return cmp != 0 ? cmp : Long.compare(sequence, other.sequence);
+		}
+
+		@Override
+		public void run() {
+			synchronized (ImageLoadScheduler.this) {
+				if (cancelled) return;
+				started = true;
+				pending.remove(key, this);
+			}
+
+			try {
+				body.run();
+			} finally {
+				completed.increment();
+			}
+		}
+	}
+
+	private final PriorityBlockingQueue<Runnable> queue;
+	private final ThreadPoolExecutor pool;
+	private final Map<Object, Task> pending;
+	private final AtomicLong sequencer;
+	private final LongAdder completed, cancelled;
+
+	ImageLoadScheduler(int threads) {
+		this.queue = new PriorityBlockingQueue<>();
+		this.pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, r -> {
+			Thread th = Executors.defaultThreadFactory().newThread(r);
+			th.setDaemon(true);
+			th.setName("ImageLoad-" + th.getId());
+			return th;
+		});
+		this.pool.allowCoreThreadTimeOut(true);
+		this.pending = new HashMap<>();
+		this.sequencer = new AtomicLong(0);
+		this.completed = new LongAdder();
+		this.cancelled = new LongAdder();
+	}
+
+	/**
+	 * Queues a load. The future will be cancelled if the load is released by all of its claimants before it starts.
+	 *
+	 * @param key The cache key being loaded.
+	 * @param priority The initial priority of the load.
+	 * @param body The load itself; must eventually complete the future.
+	 * @param future The future the load completes.
+	 */
+	synchronized void submit(Object key, Images.Priority priority, Runnable body, CompletableFuture<Image> future) {
+		Task task = new Task(key, priority, body, future);
+		pending.put(key, task);
+		pool.execute(task);
+	}
+
+	/**
+	 * Claims a queued load on behalf of a claimant, raising its priority if necessary. Does nothing if the load has
+	 * already started.
+	 *
+	 * @param key The cache key being loaded.
+	 * @param priority The priority the claimant needs the load at.
+	 * @param claimant The claimant, or null to pin the load so it can never be cancelled.
+	 */
+	synchronized void claim(Object key, Images.Priority priority, Object claimant) {
+		Task task = pending.get(key);
+		if (task == null) return;
+
+		if (claimant == null) {
+			task.pinned = true;
+		} else {
+			task.claimants.add(claimant);
+		}
+
+		if (priority.compareTo(task.priority) < 0 && queue.remove(task)) {
+			task.priority = priority;
+			queue.add(task);
+		}
+	}
+
+	/**
+	 * Releases a claimant's interest in a queued load. If nobody else wants it, it's dropped from the queue and its
+	 * future is cancelled.
+	 *
+	 * @param key The cache key being loaded.
+	 * @param claimant The claimant which no longer needs the image.
+	 */
+	void release(Object key, Object claimant) {
+		final Task task;
+
+		synchronized (this) {
+			task = pending.get(key);
+			if (task == null || !task.claimants.remove(claimant)) return;
+			if (task.pinned || !task.claimants.isEmpty() || task.started) return;
+
+			task.cancelled = true;
+			pending.remove(key, task);
+			queue.remove(task);
+		}
+
+		// Outside the lock; whoever's waiting on this future may well call back into us.
+		cancelled.increment();
+		task.future.cancel(false);
+	}
+
+	synchronized Stats stats() {
+		int visible = 0, prefetch = 0, background = 0;
+		for (Task task : pending.values()) {
+			switch (task.priority) {
+				case Visible:
+					++visible;
+					break;
+				case Prefetch:
+					++prefetch;
+					break;
+				case Background:
+					++background;
+					break;
+			}
+		}
+
+		return new Stats(pool.getPoolSize(), pool.getActiveCount(), pool.getMaximumPoolSize(), visible, prefetch, background, completed.sum(), cancelled.sum());
+	}
+}
@@ -3,9 +3,12 @@ package emi.mtg.deckbuilder.view;
 import emi.lib.mtg.Card;
 import emi.lib.mtg.ImageSource;
 import emi.lib.mtg.img.MtgAwtImageUtils;
+import emi.mtg.deckbuilder.model.Preferences;
 import emi.mtg.deckbuilder.util.PluginUtils;
+import emi.mtg.deckbuilder.util.WeightedCache;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 
 import javax.imageio.ImageIO;
@@ -13,16 +16,15 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.ref.SoftReference;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.DoubleConsumer;
 import java.util.function.Function;
 
@@ -33,6 +35,11 @@ public class Images {
 
 	private static final String CACHE_EXTENSION = "png";
 
+	/**
+	 * The number of thumbnail mip levels, including the full-size thumbnail. Each level is half the size of the last.
+	 */
+	public static final int MIP_LEVELS = 4;
+
 	public static final Image UNAVAILABLE_CARD, UNAVAILABLE_CARD_LARGE, LOADING_CARD, LOADING_CARD_LARGE;
 
 	static Image loadResourceImage(String path, int w, int h, int blank) {
@@ -59,21 +66,75 @@ public class Images {
 		LOADING_CARD = loadResourceImage("/META-INF/loading-small.png", (int) CARD_WIDTH, (int) CARD_HEIGHT, 0xffff0000);
 	}
 
-	private static final ExecutorService IMAGE_LOAD_POOL = Executors.newCachedThreadPool(r -> {
-		Thread th = Executors.defaultThreadFactory().newThread(r);
-		th.setDaemon(true);
-		th.setName("ImageLoad-" + th.getId());
-		return th;
-	});
+	/**
+	 * How urgently an image is needed. Loads are started in this order; within a priority, oldest first.
+	 */
+	public enum Priority {
+		/** The image is on screen right now. */
+		Visible,
+		/** The image is likely to be on screen soon. */
+		Prefetch,
+		/** Nobody is looking at the image yet. */
+		Background
+	}
+
+	private static final ImageLoadScheduler IMAGE_LOADER = new ImageLoadScheduler(Math.max(2, Runtime.getRuntime().availableProcessors()));
 
 	private static final List<ImageSource> sources = PluginUtils.providers(ImageSource.class, Comparator.comparing(s -> -s.priority()));
 
-	private final Map<Card.Print.Face, SoftReference<CompletableFuture<Image>>> faceCache = new HashMap<>();
-	private final Map<Card.Print, SoftReference<CompletableFuture<Image>>> frontCache = new HashMap<>();
+	private static boolean placeholder(Image image) {
+		return image == UNAVAILABLE_CARD || image == UNAVAILABLE_CARD_LARGE || image == LOADING_CARD || image == LOADING_CARD_LARGE;
+	}
+
+	/**
+	 * Estimates the memory consumed by a decoded image, assuming 32 bits per pixel.
+	 * The placeholder images are shared and never freed, so they cost nothing.
+	 */
+	private static long decodedBytes(Image image) {
+		if (placeholder(image)) {
+			return 0;
+		}
+
+		return (long) image.getWidth() * (long) image.getHeight() * 4L;
+	}
+
+	/**
+	 * Cache key for a reduced thumbnail.
+	 */
+	private static class MipKey {
+		final Card.Print print;
+		final int level;
+
+		MipKey(Card.Print print, int level) {
+			this.print = print;
+			this.level = level;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof MipKey)) return false;
+			MipKey other = (MipKey) o;
+			return print.equals(other.print) && level == other.level;
+		}
+
+		@Override
+		public int hashCode() {
+			return print.hashCode() * MIP_LEVELS + level;
+		}
+	}
+
+	// Keys are Card.Print (thumbnails), MipKey (reduced thumbnails) or Card.Print.Face (full faces); they never collide.
+	private final WeightedCache<Object, Image> memoryCache;
+	private final Consumer<Preferences> prefsListener;
 
 	private final Path fronts, faces;
+	private final ThumbnailPacks packs;
+	private final ImageCacheIndex index;
+
+	public Images(Path images, long memoryBudget) throws IOException {
+		this.memoryCache = new WeightedCache<>(memoryBudget, Images::decodedBytes);
+		Preferences.listen(prefsListener = prefs -> this.memoryCache.budget(prefs.imageCacheBytes()));
 
-	public Images(Path images) throws IOException {
 		if (!Files.exists(images)) {
 			Files.createDirectories(images);
 		}
@@ -88,6 +149,9 @@ public class Images {
 		if (!Files.exists(this.faces)) {
 			Files.createDirectories(this.faces);
 		}
+
+		this.packs = new ThumbnailPacks(images.resolve("packs/"));
+		this.index = new ImageCacheIndex(images, this.fronts, this.faces);
 	}
 
 	private <T> Path pathTo(T object) {
@@ -129,70 +193,302 @@ public class Images {
 		BufferedImage open(ImageSource source) throws IOException;
 	}
 
-	private <T> CompletableFuture<Image> open(T key, Map<T, SoftReference<CompletableFuture<Image>>> cache, ImageOpener getter, Function<BufferedImage, BufferedImage> transform) {
-		synchronized(cache) {
-			SoftReference<CompletableFuture<Image>> ref = cache.get(key);
-			CompletableFuture<Image> cached = ref == null ? null : ref.get();
-			if (cached == null) {
-				CompletableFuture<Image> ret = new CompletableFuture<>();
-				cache.put(key, new SoftReference<>(ret));
+	private <T> CompletableFuture<Image> open(T key, Priority priority, Object claimant, ImageOpener getter, Function<BufferedImage, BufferedImage> transform) {
+		CompletableFuture<Image> future = memoryCache.get(key, k -> load(key, priority, getter, transform));
+		if (!future.isDone()) IMAGE_LOADER.claim(key, priority, claimant);
+		return future;
+	}
+
+	private <T> CompletableFuture<Image> load(T key, Priority priority, ImageOpener getter, Function<BufferedImage, BufferedImage> transform) {
+		CompletableFuture<Image> ret = new CompletableFuture<>();
+
+		IMAGE_LOADER.submit(key, priority, () -> {
+			Path p = pathTo(key);
+			final boolean pack = key instanceof Card.Print && Preferences.get().packedThumbnails;
 
-				IMAGE_LOAD_POOL.submit(() -> {
-					Path p = pathTo(key);
+			if (pack) {
+				Image packed = null;
+				try {
+					packed = packs.read(p);
+				} catch (IOException ioe) {
+					// A damaged or unreadable pack; fall back to the PNG cache.
+					ioe.printStackTrace();
+				}
+
+				if (packed != null) {
+					index.touch(p);
+					ret.complete(packed);
+					return;
+				}
+			}
 
+			if (index.contains(p)) {
+				Image image = null;
+				try (InputStream s = Files.newInputStream(p)) {
+					BufferedImage cached = ImageIO.read(s);
+					if (cached == null) throw new IOException("Couldn't decode cached image " + p);
+					image = SwingFXUtils.toFXImage(cached, null);
+					index.touch(p);
+					ret.complete(image);
+				} catch (NoSuchFileException nsfe) {
+					// Deleted from under us; forget it and fetch it again.
+					index.remove(p);
+				} catch (IOException ioe) {
+					// Unreadable; fetch it again, which overwrites it.
+					ioe.printStackTrace();
+					index.remove(p);
+				}
+
+				if (image != null) {
+					// Lazily migrate thumbnails out of the PNG cache.
+					if (pack) writePack(p, image);
+					return;
+				}
+			}
+
+			for (ImageSource source : sources) {
+				BufferedImage imgSrc;
+				try {
+					imgSrc = getter.open(source);
+				} catch (IOException ioe) {
+					ioe.printStackTrace();
+					continue;
+				}
+
+				if (imgSrc == null) continue;
+
+				imgSrc = transform.apply(imgSrc);
+				Image image = SwingFXUtils.toFXImage(imgSrc, null);
+				ret.complete(image);
+
+				// We have the image now; failing to cache it shouldn't send us to the next source.
+				if (key instanceof Card.Print || source.cacheable()) {
 					try {
-						if (Files.exists(p)) {
-							InputStream s = Files.newInputStream(p);
-							Image image = SwingFXUtils.toFXImage(ImageIO.read(s), null);
-							s.close();
-							ret.complete(image);
-							return;
-						} else {
-							for (ImageSource source : sources) {
-								try {
-									BufferedImage imgSrc = getter.open(source);
-
-									if (imgSrc != null) {
-										imgSrc = transform.apply(imgSrc);
-										Image image = SwingFXUtils.toFXImage(imgSrc, null);
-										ret.complete(image);
-
-										if (key instanceof Card.Print || source.cacheable()) {
-											if (!Files.exists(p.getParent())) {
-												Files.createDirectories(p.getParent());
-											}
-											OutputStream s = Files.newOutputStream(p);
-											ImageIO.write(imgSrc, CACHE_EXTENSION, s);
-											s.close();
-										}
-
-										return;
-									}
-								} catch (IOException ioe) {
-									ioe.printStackTrace();
-								}
-							}
+						if (!Files.exists(p.getParent())) {
+							Files.createDirectories(p.getParent());
 						}
+						try (OutputStream s = Files.newOutputStream(p)) {
+							ImageIO.write(imgSrc, CACHE_EXTENSION, s);
+						}
+						index.put(p, Files.size(p), source.getClass().getSimpleName());
 					} catch (IOException ioe) {
 						ioe.printStackTrace();
 					}
+				}
 
-					ret.complete(UNAVAILABLE_CARD);
-				});
+				if (pack) writePack(p, image);
 
-				return ret;
+				return;
 			}
 
-			return cached;
+			ret.complete(UNAVAILABLE_CARD);
+		}, ret);
+
+		return ret;
+	}
+
+	private void writePack(Path p, Image image) {
+		try {
+			packs.write(p, image);
+		} catch (IOException ioe) {
+			// The image is still in the PNG cache, so the pack can do without it.
+			ioe.printStackTrace();
 		}
 	}
 
 	public CompletableFuture<Image> getFace(Card.Print.Face face) {
-		return open(face, faceCache, source -> source.open(face), MtgAwtImageUtils::clearCorners);
+		return open(face, Priority.Visible, null, source -> source.open(face), MtgAwtImageUtils::clearCorners);
 	}
 
 	public CompletableFuture<Image> getThumbnail(Card.Print print) {
-		return open(print, frontCache, source -> source.open(print), img -> MtgAwtImageUtils.scaled(MtgAwtImageUtils.clearCorners(img), CARD_WIDTH, CARD_HEIGHT, true));
+		return getThumbnail(print, Priority.Visible, null);
+	}
+
+	/**
+	 * Requests a card thumbnail on behalf of some claimant, usually a view. If the thumbnail is still queued when every
+	 * claimant has released it, the load is cancelled and the returned future completes exceptionally.
+	 *
+	 * @param print The print whose thumbnail to load.
+	 * @param priority How urgently the claimant needs the thumbnail. Raises the priority of an already-queued load.
+	 * @param claimant The claimant, or null if the load should never be cancelled.
+	 * @return A future which will be completed with the thumbnail.
+	 */
+	public CompletableFuture<Image> getThumbnail(Card.Print print, Priority priority, Object claimant) {
+		return open(print, priority, claimant, source -> source.open(print), img -> MtgAwtImageUtils.scaled(MtgAwtImageUtils.clearCorners(img), CARD_WIDTH, CARD_HEIGHT, true));
+	}
+
+	/**
+	 * Picks the smallest thumbnail mip level which is still at least as large as it'll be drawn.
+	 *
+	 * @param scale The size cards are drawn at, relative to CARD_WIDTH by CARD_HEIGHT.
+	 * @return The mip level, from 0 (full size) to MIP_LEVELS - 1.
+	 */
+	public static int mipLevel(double scale) {
+		if (!(scale > 0.0)) return 0;
+		return Math.max(0, Math.min(MIP_LEVELS - 1, (int) Math.floor(-Math.log(scale) / Math.log(2.0))));
+	}
+
+	/**
+	 * Requests a card thumbnail, reduced by some power of two. Reduced thumbnails are computed from the next level up on
+	 * first use and cached in memory alongside the full-size ones; they're never written to disk.
+	 *
+	 * Claims are made against the full-size thumbnail, which releaseThumbnail releases as usual.
+	 *
+	 * @param print The print whose thumbnail to load.
+	 * @param level The mip level; 0 is full size, and each level is half the width and height of the last.
+	 * @param priority How urgently the claimant needs the thumbnail.
+	 * @param claimant The claimant, or null if the load should never be cancelled.
+	 * @return A future which will be completed with the reduced thumbnail.
+	 */
+	public CompletableFuture<Image> getThumbnail(Card.Print print, int level, Priority priority, Object claimant) {
+		if (level <= 0) {
+			return getThumbnail(print, priority, claimant);
+		}
+
+		final int clamped = Math.min(level, MIP_LEVELS - 1);
+		CompletableFuture<Image> future = memoryCache.get(new MipKey(print, clamped), key ->
+				getThumbnail(print, clamped - 1, priority, claimant).thenApplyAsync(Images::halve, ForkJoinPool.commonPool()));
+		if (!future.isDone()) IMAGE_LOADER.claim(print, priority, claimant);
+		return future;
+	}
+
+	/**
+	 * Halves an image's width and height, averaging each two-by-two block of pixels. Averaging is done on premultiplied
+	 * pixels, so the transparent corners of a card don't bleed dark fringes into its border.
+	 */
+	private static Image halve(Image image) {
+		if (placeholder(image)) {
+			return image;
+		}
+
+		final int w = (int) image.getWidth(), h = (int) image.getHeight();
+		final int hw = Math.max(1, w / 2), hh = Math.max(1, h / 2);
+
+		final int[] src = new int[w * h];
+		image.getPixelReader().getPixels(0, 0, w, h, PixelFormat.getIntArgbPreInstance(), src, 0, w);
+
+		final int[] dst = new int[hw * hh];
+		for (int y = 0; y < hh; ++y) {
+			final int row0 = Math.min(h - 1, 2 * y) * w, row1 = Math.min(h - 1, 2 * y + 1) * w;
+
+			for (int x = 0; x < hw; ++x) {
+				final int x0 = Math.min(w - 1, 2 * x), x1 = Math.min(w - 1, 2 * x + 1);
+				final int a = src[row0 + x0], b = src[row0 + x1], c = src[row1 + x0], d = src[row1 + x1];
+
+				int pixel = 0;
+				for (int shift = 0; shift < 32; shift += 8) {
+					final int sum = ((a >>> shift) & 0xFF) + ((b >>> shift) & 0xFF) + ((c >>> shift) & 0xFF) + ((d >>> shift) & 0xFF);
+					pixel |= ((sum + 2) >>> 2) << shift;
+				}
+				dst[y * hw + x] = pixel;
+			}
+		}
+
+		WritableImage reduced = new WritableImage(hw, hh);
+		reduced.getPixelWriter().setPixels(0, 0, hw, hh, PixelFormat.getIntArgbPreInstance(), dst, 0, hw);
+		return reduced;
+	}
+
+	/**
+	 * Releases a claimant's interest in a thumbnail, cancelling its load if it hasn't started and nobody else wants it.
+	 *
+	 * @param print The print whose thumbnail is no longer needed.
+	 * @param claimant The claimant which passed to getThumbnail.
+	 */
+	public void releaseThumbnail(Card.Print print, Object claimant) {
+		IMAGE_LOADER.release(print, claimant);
+	}
+
+	/**
+	 * A batch of thumbnails being loaded ahead of need, e.g. a deck that was just opened. Loads run at background
+	 * priority, so anything actually on screen still goes first.
+	 */
+	public class WarmUp {
+		private final List<Card.Print> prints;
+		private final DoubleConsumer progress;
+		private final AtomicInteger remaining;
+		private final CompletableFuture<Void> done;
+
+		private WarmUp(List<Card.Print> prints, DoubleConsumer progress) {
+			this.prints = prints;
+			this.progress = progress;
+			this.remaining = new AtomicInteger(prints.size());
+			this.done = new CompletableFuture<>();
+		}
+
+		private void start(int level) {
+			if (prints.isEmpty()) {
+				if (progress != null) progress.accept(1.0);
+				done.complete(null);
+				return;
+			}
+
+			for (Card.Print print : prints) {
+				getThumbnail(print, level, Priority.Background, this).whenComplete((img, err) -> {
+					final int left = remaining.decrementAndGet();
+					if (progress != null && !done.isDone()) progress.accept(1.0 - (double) left / prints.size());
+					if (left == 0) done.complete(null);
+				});
+			}
+		}
+
+		/**
+		 * Drops any thumbnails in this batch which haven't started loading, unless something else has asked for them.
+		 */
+		public void cancel() {
+			if (!done.cancel(false)) return;
+			for (Card.Print print : prints) releaseThumbnail(print, this);
+		}
+
+		/**
+		 * @return A future which completes once every thumbnail in the batch has loaded, or is cancelled with the batch.
+		 */
+		public CompletableFuture<Void> completion() {
+			return done;
+		}
+
+		/**
+		 * @return The number of distinct thumbnails in the batch.
+		 */
+		public int size() {
+			return prints.size();
+		}
+	}
+
+	/**
+	 * Starts loading and decoding a batch of thumbnails in the background, so they're ready before a view asks for them.
+	 * To leave room for whatever's on screen, at most half of the memory cache's budget is spent on one batch, counting
+	 * each thumbnail at the size of the requested mip level; prints beyond that are skipped. Earlier prints are loaded
+	 * first.
+	 *
+	 * @param prints The prints to load, most important first. Duplicates are ignored.
+	 * @param level The mip level the thumbnails will be drawn at; see getThumbnail.
+	 * @param progress An optional callback to report the fraction of the batch loaded. Called from loader threads.
+	 * @return A handle to the batch, which should be cancelled if its thumbnails stop being interesting.
+	 */
+	public WarmUp warmUp(Collection<? extends Card.Print> prints, int level, DoubleConsumer progress) {
+		final long limit = Math.max(1, memoryCache.budget() / 2 / thumbnailBytes(level));
+		final List<Card.Print> batch = new ArrayList<>(new LinkedHashSet<>(prints));
+		final WarmUp warmUp = new WarmUp(batch.size() > limit ? new ArrayList<>(batch.subList(0, (int) limit)) : batch, progress);
+		warmUp.start(level);
+		return warmUp;
+	}
+
+	/**
+	 * @param level A thumbnail mip level; see getThumbnail.
+	 * @return The decoded size of one thumbnail at that level, in bytes, as halve would produce it.
+	 */
+	private static long thumbnailBytes(int level) {
+		long w = (long) CARD_WIDTH, h = (long) CARD_HEIGHT;
+		for (int i = Math.min(level, MIP_LEVELS - 1); i > 0; --i) {
+			w = Math.max(1, w / 2);
+			h = Math.max(1, h / 2);
+		}
+		return w * h * 4;
+	}
+
+	ImageLoadScheduler.Stats loaderStats() {
+		return IMAGE_LOADER.stats();
 	}
 
 	public static class CacheCleanupResults {
@@ -208,6 +504,8 @@ public class Images {
 	/**
 	 * Cleans up unused images in the disk caches. Slightly tunable. Might overshoot. Better sorry than safe!
 	 *
+	 * Candidates are picked from the cache index, so only the files actually being deleted are touched on disk.
+	 *
 	 * @param accessedBefore Any images that were last accessed prior to this instant will be deleted.
 	 * @param medianFraction Any image below this percentage of the median size of images will be deleted.
 	 * @param progress An optional callback to report cache purge progress.
@@ -216,58 +514,45 @@ public class Images {
 	public CacheCleanupResults cleanDiskCache(Instant accessedBefore, double medianFraction, DoubleConsumer progress) throws IOException {
 		long deletedFiles = 0, deletedBytes = 0;
 
-		Set<Path> allImages = new HashSet<>();
-		for (Path subdir : Files.newDirectoryStream(this.faces, p -> Files.isDirectory(p))) {
-			for (Path image : Files.newDirectoryStream(subdir, "*.png")) {
-				allImages.add(image);
-			}
+		final long cutoff = accessedBefore.toEpochMilli();
+		final List<ImageCacheIndex.Entry> doomed = new ArrayList<>(), kept = new ArrayList<>();
+		for (ImageCacheIndex.Entry entry : index.entries()) {
+			(entry.lastAccess < cutoff ? doomed : kept).add(entry);
 		}
 
-		for (Path subdir : Files.newDirectoryStream(this.fronts, p -> Files.isDirectory(p))) {
-			for (Path image : Files.newDirectoryStream(subdir, "*.png")) {
-				allImages.add(image);
+		if (!kept.isEmpty()) {
+			final long[] sizes = kept.stream().mapToLong(e -> e.size).sorted().toArray();
+			final long threshold = (long) (sizes[sizes.length / 2] * medianFraction);
+			for (ImageCacheIndex.Entry entry : kept) {
+				if (entry.size < threshold) doomed.add(entry);
 			}
 		}
 
-		NavigableMap<Long, Set<Path>> sizeMap = new ConcurrentSkipListMap<>();
-
-		long mask = allImages.size() / 100;
-		mask = 1 << (63 - Long.numberOfLeadingZeros(mask));
+		long mask = doomed.size() / 100;
+		mask = mask == 0 ? 0 : (1L << (63 - Long.numberOfLeadingZeros(mask))) - 1;
 
 		long i = 0;
-		for (Path p : allImages) {
-			BasicFileAttributes attrs = Files.readAttributes(p,BasicFileAttributes.class);
-
-			if (attrs.lastAccessTime().toInstant().isBefore(accessedBefore)) {
-				Files.delete(p);
+		for (ImageCacheIndex.Entry entry : doomed) {
+			final Path path = index.path(entry);
+			if (Files.deleteIfExists(path)) {
 				++deletedFiles;
-				deletedBytes += attrs.size();
-			} else {
-				sizeMap.computeIfAbsent(attrs.size(), s -> new HashSet<>()).add(p);
+				deletedBytes += entry.size;
 			}
+			index.remove(path);
 
-			if (progress != null) {
-				++i;
-
-				if ((i & mask) == 0) {
-					progress.accept((double) i / (double) allImages.size());
-				}
+			++i;
+			if (progress != null && (i & mask) == 0) {
+				progress.accept((double) i / (double) doomed.size());
 			}
 		}
 
-		i = 0;
-		Long size = sizeMap.firstKey();
-		while (i < sizeMap.size() / 2) {
-			++i;
-			size = sizeMap.higherKey(size);
-		}
+		index.compact();
 
-		for (Map.Entry<Long, Set<Path>> paths : sizeMap.headMap((long) (size * medianFraction)).entrySet()) {
-			for (Path path : paths.getValue()) {
-				Files.delete(path);
-				++deletedFiles;
-				deletedBytes += paths.getKey();
-			}
+		// Packs are rebuilt from whatever PNGs survived.
+		long packBytes = packs.clear();
+		if (packBytes > 0) {
+			++deletedFiles;
+			deletedBytes += packBytes;
 		}
 
 		if (deletedFiles > 0) flushMemoryCaches();
@@ -276,25 +561,34 @@ public class Images {
 	}
 
 	public void deleteSavedImages(Card.Print pr) throws IOException {
-		frontCache.remove(pr);
+		memoryCache.invalidate(pr);
+		for (int level = 1; level < MIP_LEVELS; ++level) {
+			memoryCache.invalidate(new MipKey(pr, level));
+		}
 
 		Path frontPath = pathTo(pr);
-		if (Files.exists(frontPath)) {
-			Files.delete(frontPath);
-		}
+		packs.remove(frontPath);
+		index.remove(frontPath);
+		Files.deleteIfExists(frontPath);
 
 		for (Card.Print.Face prf : pr.faces()) {
-			faceCache.remove(prf);
+			memoryCache.invalidate(prf);
 
 			Path facePath = pathTo(prf);
-			if (Files.exists(facePath)) {
-				Files.delete(facePath);
-			}
+			index.remove(facePath);
+			Files.deleteIfExists(facePath);
 		}
 	}
 
 	public void flushMemoryCaches() {
-		faceCache.clear();
-		frontCache.clear();
+		memoryCache.clear();
+	}
+
+	public WeightedCache.Stats memoryCacheStats() {
+		return memoryCache.stats();
+	}
+
+	ImageCacheIndex.Stats diskCacheStats() {
+		return index.stats();
 	}
 }
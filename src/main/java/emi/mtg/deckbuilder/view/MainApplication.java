@@ -1,9 +1,11 @@
 package emi.mtg.deckbuilder.view;
 
 import emi.lib.mtg.DataSource;
+import emi.mtg.deckbuilder.controller.BatchExporter;
 import emi.mtg.deckbuilder.controller.Context;
 import emi.mtg.deckbuilder.controller.Updateable;
 import emi.mtg.deckbuilder.controller.Updater;
+import emi.mtg.deckbuilder.controller.serdes.DeckImportExport;
 import emi.mtg.deckbuilder.model.DeckList;
 import emi.mtg.deckbuilder.model.Preferences;
 import emi.mtg.deckbuilder.model.State;
@@ -161,6 +163,11 @@ public class MainApplication extends Application {
 			Files.createDirectories(prefs.dataPath);
 		}
 
+		if (getParameters().getNamed().containsKey("batch-export")) {
+			batchExport(getParameters().getNamed());
+			return;
+		}
+
 		if (Runtime.getRuntime().maxMemory() <= 1024*1024*1024) {
 			AlertBuilder.notify(primaryStage)
 					.type(Alert.AlertType.WARNING)
@@ -311,6 +318,82 @@ public class MainApplication extends Application {
 		}
 	}
 
+	private static final String BATCH_EXPORT_USAGE = String.join("\n",
+			"Usage: --batch-export=<deck directory> --formats=<format>[,<format>...] [--output=<directory>] [--threads=<n>]",
+			"Formats are matched by name or class name, ignoring case. Available formats:");
+
+	/**
+	 * Exports a directory of decks from the command line, without showing any windows, then exits. Card data is loaded
+	 * from the preferred data source, or the first available one.
+	 */
+	private void batchExport(Map<String, String> args) {
+		final List<DeckImportExport> formats = new ArrayList<>();
+		for (String name : args.getOrDefault("formats", "").split(",")) {
+			if (name.trim().isEmpty()) continue;
+
+			Optional<DeckImportExport> format = DeckImportExport.DECK_FORMAT_PROVIDERS.stream()
+					.filter(DeckImportExport::supportsUnattendedExport)
+					.filter(f -> f.toString().equalsIgnoreCase(name.trim()) || f.getClass().getSimpleName().equalsIgnoreCase(name.trim()))
+					.findFirst();
+
+			if (!format.isPresent()) {
+				System.err.println("Unknown or unsupported format: " + name.trim());
+				formats.clear();
+				break;
+			}
+
+			formats.add(format.get());
+		}
+
+		if (formats.isEmpty() || DATA_SOURCES.isEmpty()) {
+			System.err.println(DATA_SOURCES.isEmpty() ? NO_DATA_SOURCES : BATCH_EXPORT_USAGE);
+			DeckImportExport.DECK_FORMAT_PROVIDERS.stream()
+					.filter(DeckImportExport::supportsUnattendedExport)
+					.forEach(f -> System.err.printf(" \u2022 %s (%s)%n", f, f.getClass().getSimpleName()));
+			System.exit(2);
+			return;
+		}
+
+		final Path source = new File(args.get("batch-export")).toPath();
+		final Path target = args.containsKey("output") ? new File(args.get("output")).toPath() : source;
+		final int threads;
+		try {
+			threads = args.containsKey("threads") ? Integer.parseInt(args.get("threads").trim()) : BatchExporter.defaultParallelism();
+			if (threads < 1) throw new NumberFormatException();
+		} catch (NumberFormatException nfe) {
+			System.err.println("--threads must be a positive whole number, e.g. --threads=4, not \"" + args.get("threads") + "\"");
+			System.err.println(BATCH_EXPORT_USAGE);
+			System.exit(2);
+			return;
+		}
+
+		// Rendering deck images needs the FX thread, so the export itself runs elsewhere.
+		Thread worker = new Thread(() -> {
+			int status = 1;
+
+			try {
+				DataSource data = Preferences.get().dataSource != null ? Preferences.get().dataSource : DATA_SOURCES.get(0);
+				Context.instantiate(data);
+				if (!Context.get().loadData(Updateable.Progress.cmdLine("Loading " + data, 40))) {
+					System.err.println(DATA_LOAD_ERROR);
+					return;
+				}
+
+				BatchExporter.Results results = new BatchExporter(source, target, formats, threads)
+						.run(Updateable.Progress.cmdLine("Exporting", 40));
+
+				System.out.println(results);
+				results.failures.forEach(f -> System.err.println(" \u2022 " + f));
+				status = results.failures.isEmpty() ? 0 : 1;
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+			} finally {
+				System.exit(status);
+			}
+		}, "Batch Export");
+		worker.start();
+	}
+
 	private void selectDataSource() {
 		// HACK: Use reflection to circumvent final.
 		final Field dataSourceField;
@@ -5,11 +5,15 @@ import emi.lib.mtg.DataSource;
 import emi.lib.mtg.game.Format;
 import emi.lib.mtg.game.Zone;
 import emi.lib.mtg.game.validation.Commander;
+import emi.mtg.deckbuilder.controller.BatchExporter;
 import emi.mtg.deckbuilder.controller.Context;
 import emi.mtg.deckbuilder.controller.DeckChanger;
+import emi.mtg.deckbuilder.controller.LegalityTable;
+import emi.mtg.deckbuilder.controller.PrintIndex;
 import emi.mtg.deckbuilder.controller.serdes.DeckImportExport;
 import emi.mtg.deckbuilder.controller.serdes.impl.Json;
 import emi.mtg.deckbuilder.model.CardInstance;
+import emi.mtg.deckbuilder.model.CollectionStore;
 import emi.mtg.deckbuilder.model.DeckList;
 import emi.mtg.deckbuilder.model.Preferences;
 import emi.mtg.deckbuilder.model.State;
@@ -18,6 +22,8 @@ import emi.mtg.deckbuilder.view.components.CardPane;
 import emi.mtg.deckbuilder.view.components.CardView;
 import emi.mtg.deckbuilder.view.components.DeckPane;
 import emi.mtg.deckbuilder.view.components.DeckTab;
+import emi.mtg.deckbuilder.view.components.RenderScheduler;
+import emi.mtg.deckbuilder.view.components.ThumbnailAtlas;
 import emi.mtg.deckbuilder.view.dialogs.DebugConsole;
 import emi.mtg.deckbuilder.view.dialogs.DeckInfoDialog;
 import emi.mtg.deckbuilder.view.dialogs.PreferencesDialog;
@@ -31,8 +37,10 @@ import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.SetChangeListener;
 import javafx.fxml.FXML;
 import javafx.geometry.Bounds;
+import javafx.geometry.HPos;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.Scene;
@@ -41,6 +49,7 @@ import javafx.scene.input.*;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.*;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -48,14 +57,17 @@ import javafx.stage.StageStyle;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class MainWindow extends Stage {
@@ -85,6 +97,27 @@ public class MainWindow extends Stage {
 
 	private final ObservableList<CardInstance> collectionModel;
 
+	// Collection instances by print ordinal, and the legality and Full flags they currently carry. Guarded by
+	// collectionLock.
+	private final Object collectionLock = new Object();
+	private PrintIndex collectionIndex;
+	private CardInstance[] collectionByPrint;
+	private LegalityTable.Flagging collectionFlagging;
+	private DeckPane collectionFullPane;
+	private final Set<Card> collectionFullCards = new HashSet<>();
+	private final SetChangeListener<Card> fullCardsListener = change -> {
+		final boolean changed;
+		synchronized (collectionLock) {
+			if (change.wasAdded()) {
+				changed = collectionFullCards.add(change.getElementAdded()) && flagCollectionCard(change.getElementAdded(), CardInstance.Flags.Full, true);
+			} else {
+				changed = collectionFullCards.remove(change.getElementRemoved()) && flagCollectionCard(change.getElementRemoved(), CardInstance.Flags.Full, false);
+			}
+		}
+
+		if (changed) redrawSearchPanes();
+	};
+
 	private FileChooser primaryFileChooser;
 	private DeckImportExport primarySerdes;
 
@@ -154,6 +187,24 @@ public class MainWindow extends Stage {
 		Context.get().images.flushMemoryCaches();
 	}
 
+	@FXML
+	protected void logImageCacheStats() {
+		log.log("Image memory cache: %s", Context.get().images.memoryCacheStats());
+		log.log("Image loader: %s", Context.get().images.loaderStats());
+		log.log("Image disk cache: %s", Context.get().images.diskCacheStats());
+	}
+
+	@FXML
+	protected void logSearchCacheStats() {
+		log.log("Search result cache: %s", Context.get().queries.stats());
+	}
+
+	@FXML
+	protected void logRenderStats() {
+		log.log("Card view rendering: %s", RenderScheduler.totals());
+		log.log("Thumbnail atlas: %s", ThumbnailAtlas.get().stats());
+	}
+
 	void emergencySave() throws IOException {
 		List<IOException> exceptions = new ArrayList<>();
 		allDecks().forEach(deck -> {
@@ -201,42 +252,135 @@ public class MainWindow extends Stage {
 		return pane == null ? null : pane.deck();
 	}
 
-	private void flagCollectionCardLegality(CardInstance ci) {
-		Format format = activeDeck() == null ? Preferences.get().defaultFormat : activeDeck().format();
+	private Format collectionFormat() {
+		return activeDeck() == null ? Preferences.get().defaultFormat : activeDeck().format();
+	}
+
+	private static void flagCollectionCardLegality(CardInstance ci, LegalityTable.Flagging flagging) {
+		ci.flags.remove(CardInstance.Flags.Invalid);
+		ci.flags.remove(CardInstance.Flags.Warning);
 
-		ci.flags.clear();
-		ci.flags.add(CardInstance.Flags.Unlimited);
+		CardInstance.Flags flag = flagging.flag(ci.card());
+		if (flag != null) ci.flags.add(flag);
+	}
 
-		if (format == Format.Freeform) return; // Don't do any collection flagging for freeform.
+	/**
+	 * Swaps the collection over to the current format's legality flags, re-flagging only the cards whose flags differ
+	 * between the old format and the new one.
+	 *
+	 * @return True if any card's flags changed.
+	 */
+	private boolean reflagCollectionLegality() {
+		final LegalityTable legality = Context.get().legality();
+		if (legality == null) return false;
 
-		switch (ci.card().legality(format)) {
-			case Legal:
-			case Restricted:
-				break;
-			case Banned:
-				ci.flags.add(CardInstance.Flags.Invalid);
-				break;
-			case NotLegal:
-				if (Preferences.get().theFutureIsNow && (ci.card().legality(Format.Future) == Card.Legality.Legal || ci.card().prints().stream().allMatch(pr -> pr.releaseDate().isAfter(LocalDate.now())))) {
-					ci.flags.add(CardInstance.Flags.Warning);
-				} else {
-					ci.flags.add(CardInstance.Flags.Invalid);
+		final LegalityTable.Flagging flagging = legality.flagging(collectionFormat(), Preferences.get().theFutureIsNow);
+
+		synchronized (collectionLock) {
+			if (collectionIndex != Context.get().printIndex()) return false; // Data's been reloaded; wait for remodel.
+
+			final BitSet changed = flagging.changedFrom(collectionFlagging);
+			collectionFlagging = flagging;
+
+			for (int card = changed.nextSetBit(0); card >= 0; card = changed.nextSetBit(card + 1)) {
+				for (int print : collectionIndex.printsOf(card)) {
+					if (collectionByPrint[print] != null) flagCollectionCardLegality(collectionByPrint[print], flagging);
 				}
-				break;
-			case Unknown:
-				ci.flags.add(CardInstance.Flags.Warning);
-				break;
+			}
+
+			return !changed.isEmpty();
+		}
+	}
+
+	/**
+	 * Moves the collection's Full flags over to the active deck's full cards, re-flagging only the cards which are full
+	 * in one deck but not the other. From then on, the deck's changes to its full cards are applied as they happen.
+	 * FX application thread only, like the decks' full card sets themselves.
+	 *
+	 * @return True if any card's flags changed.
+	 */
+	private boolean reflagCollectionFull() {
+		final DeckPane pane = activeDeckPane();
+
+		synchronized (collectionLock) {
+			if (pane == collectionFullPane) return false;
+
+			if (collectionFullPane != null) collectionFullPane.fullCards().removeListener(fullCardsListener);
+			collectionFullPane = pane;
+
+			final Set<Card> full;
+			if (pane == null) {
+				full = Collections.emptySet();
+			} else {
+				pane.fullCards().addListener(fullCardsListener);
+				full = new HashSet<>(pane.fullCards());
+			}
+
+			boolean changed = false;
+			for (Card card : collectionFullCards) {
+				if (!full.contains(card)) changed |= flagCollectionCard(card, CardInstance.Flags.Full, false);
+			}
+
+			for (Card card : full) {
+				if (!collectionFullCards.contains(card)) changed |= flagCollectionCard(card, CardInstance.Flags.Full, true);
+			}
+
+			collectionFullCards.clear();
+			collectionFullCards.addAll(full);
+			return changed;
 		}
 	}
 
+	/**
+	 * Sets or clears a flag on every collection instance of a card. Hold collectionLock.
+	 *
+	 * @return True if any instance's flags changed.
+	 */
+	private boolean flagCollectionCard(Card card, CardInstance.Flags flag, boolean set) {
+		final int ordinal = collectionIndex == null ? -1 : collectionIndex.cardOrdinal(card);
+		if (ordinal < 0) return false;
+
+		boolean changed = false;
+		for (int print : collectionIndex.printsOf(ordinal)) {
+			final CardInstance ci = collectionByPrint[print];
+			if (ci == null) continue;
+			changed |= set ? ci.flags.add(flag) : ci.flags.remove(flag);
+		}
+		return changed;
+	}
+
 	private ObservableList<CardInstance> collectionModel(DataSource cs) {
-		return FXCollections.observableList(cs.prints().stream()
-				.map(CardInstance::new)
+		final PrintIndex index = Context.get().printIndex();
+		final LegalityTable.Flagging flagging = Context.get().legality().flagging(collectionFormat(), Preferences.get().theFutureIsNow);
+
+		final List<Card.Print> prints = new ArrayList<>(cs.prints());
+		final CollectionStore store = new CollectionStore(prints.size());
+		final List<CardInstance> model = IntStream.range(0, prints.size())
+				.mapToObj(i -> store.instance(i, prints.get(i)))
 				.peek(ci -> ci.flags.add(CardInstance.Flags.Unlimited))
 				.peek(ci -> ci.tags().addAll(Context.get().tags.tags(ci.card())))
 				.peek(ci -> ci.tags().addAll(Context.get().tags.tags(ci.print())))
-				.peek(this::flagCollectionCardLegality)
-				.collect(Collectors.toList()));
+				.peek(ci -> flagCollectionCardLegality(ci, flagging))
+				.collect(Collectors.toList());
+
+		final CardInstance[] byPrint = new CardInstance[index.size()];
+		for (CardInstance ci : model) {
+			int ordinal = index.ordinal(ci.print());
+			if (ordinal >= 0) byPrint[ordinal] = ci;
+		}
+
+		synchronized (collectionLock) {
+			collectionIndex = index;
+			collectionByPrint = byPrint;
+			collectionFlagging = flagging;
+
+			// None of the new instances are flagged Full yet; the next update flags them.
+			if (collectionFullPane != null) collectionFullPane.fullCards().removeListener(fullCardsListener);
+			collectionFullPane = null;
+			collectionFullCards.clear();
+		}
+
+		return FXCollections.observableList(model);
 	}
 
 	private CardView.ContextMenu createCollectionContextMenu(CardPane collection) {
@@ -340,6 +484,7 @@ public class MainWindow extends Stage {
 		Tab newSearchTab = new Tab("Search", searchPane);
 		newSearchTab.textProperty().bind(Bindings.when(Bindings.isEmpty(searchPane.filter().textProperty())).then("Search").otherwise(searchPane.filter().textProperty()));
 		newSearchTab.closableProperty().bind(Bindings.size(searchTabs.getTabs()).greaterThan(2));
+		newSearchTab.setOnClosed(ce -> searchPane.closing());
 
 		Platform.runLater(() -> {
 			log.start().log("Preparing search pane...");
@@ -350,6 +495,7 @@ public class MainWindow extends Stage {
 				try {
 					searchPane.updateFilter();
 					searchPane.changeModel(x -> x.setAll(collectionModel));
+					searchPane.warmUpResults();
 					Platform.runLater(() -> searchPane.loading().set(false));
 					log.log("Search pane ready in %.3f seconds", log.elapsed());
 				} catch (Throwable t) {
@@ -397,8 +543,11 @@ public class MainWindow extends Stage {
 			DeckPane old = oldTab == null ? null : (DeckPane) oldTab.getContent();
 			DeckPane newp = newTab == null ? null : (DeckPane) newTab.getContent();
 
+			// The new deck's full cards are watched from here on; its listeners have to be wired up on this thread.
+			reflagCollectionFull();
+
 			ForkJoinPool.commonPool().submit(() -> {
-				updateCollectionState();
+				reflagCollectionLegality();
 
 				final boolean refilter = (old != null && newp != null && !old.deck().format().equals(newp.deck().format()));
 
@@ -960,16 +1109,9 @@ public class MainWindow extends Stage {
 	}
 
 	private void updateCollectionState() {
-		Set<Card> fullCards = activeDeckPane().fullCards();
-		collectionModel.forEach(ci -> {
-			flagCollectionCardLegality(ci);
-			if (fullCards.contains(ci.card())) {
-				ci.flags.add(CardInstance.Flags.Full);
-			} else {
-				ci.flags.remove(CardInstance.Flags.Full);
-			}
-		});
-		redrawSearchPanes();
+		boolean changed = reflagCollectionLegality();
+		changed |= reflagCollectionFull();
+		if (changed) redrawSearchPanes();
 	}
 
 	private void updateCardStates(Format.Validator.Result result) {
@@ -1069,6 +1211,7 @@ public class MainWindow extends Stage {
 		getScene().getRoot().setStyle(Preferences.get().theme.style());
 
 		ForkJoinPool.commonPool().submit(() -> {
+			reflagCollectionLegality(); // The future-is-now preference may have changed. Every pane is redrawn below.
 			searchPanesAction(pane -> {
 				pane.updateFilter();
 				pane.view().scheduleRender();
@@ -1106,6 +1249,7 @@ public class MainWindow extends Stage {
 		allDecks().flatMap(deck -> deck.cards().values().stream())
 				.flatMap(ObservableList::stream)
 				.forEach(CardInstance::refreshInstance);
+		allPanes().forEach(DeckPane::recountCopies);
 
 		updateCardStates(autoValidateDeck.isSelected() ? activeDeck().validate() : null);
 	}
@@ -1222,6 +1366,114 @@ public class MainWindow extends Stage {
 		}
 	}
 
+	@FXML
+	protected void batchExportDecks() {
+		GridPane grid = new GridPane();
+		grid.setHgap(8.0);
+		grid.setVgap(8.0);
+
+		Path initial = State.get().lastExportDirectory != null ? State.get().lastExportDirectory : null;
+		TextField sourceField = new TextField(initial != null ? initial.toString() : "");
+		TextField targetField = new TextField(initial != null ? initial.toString() : "");
+		sourceField.setPrefColumnCount(32);
+		targetField.setPromptText("Same as deck folder");
+
+		Consumer<TextField> browse = field -> {
+			DirectoryChooser chooser = new DirectoryChooser();
+			File current = new File(field.getText().isEmpty() ? sourceField.getText() : field.getText());
+			if (current.isDirectory()) chooser.setInitialDirectory(current);
+			File dir = chooser.showDialog(this);
+			if (dir != null) field.setText(dir.getAbsolutePath());
+		};
+
+		Button sourceBrowse = new Button("Browse...");
+		sourceBrowse.setOnAction(ae -> browse.accept(sourceField));
+		Button targetBrowse = new Button("Browse...");
+		targetBrowse.setOnAction(ae -> browse.accept(targetField));
+
+		FlowPane formatsFlow = new FlowPane(8.0, 8.0);
+		formatsFlow.setPrefWrapLength(384.0);
+		Map<CheckBox, DeckImportExport> formatBoxes = new LinkedHashMap<>();
+		DeckImportExport.DECK_FORMAT_PROVIDERS.stream()
+				.filter(DeckImportExport::supportsUnattendedExport)
+				.sorted(Comparator.comparing(DeckImportExport::toString))
+				.forEach(f -> {
+					CheckBox box = new CheckBox(f.toString());
+					formatBoxes.put(box, f);
+					formatsFlow.getChildren().add(box);
+				});
+
+		Spinner<Integer> threads = new Spinner<>(1, Runtime.getRuntime().availableProcessors(), BatchExporter.defaultParallelism());
+
+		grid.addRow(0, new Label("Deck Folder:"), sourceField, sourceBrowse);
+		grid.addRow(1, new Label("Output Folder:"), targetField, targetBrowse);
+		grid.addRow(2, new Label("Formats:"), formatsFlow);
+		grid.addRow(3, new Label("Parallel Exports:"), threads);
+		GridPane.setColumnSpan(formatsFlow, 2);
+		GridPane.setHgrow(sourceField, Priority.ALWAYS);
+		GridPane.setHgrow(targetField, Priority.ALWAYS);
+		for (Node child : grid.getChildren()) {
+			if (child instanceof Label) GridPane.setHalignment(child, HPos.RIGHT);
+		}
+
+		// Controls are only read on the FX thread, when OK is pressed; the worker just runs the exporter built from them.
+		final AtomicReference<BatchExporter> exporter = new AtomicReference<>();
+		final List<BatchExporter.Results> results = new ArrayList<>(1);
+		AlertBuilder builder = AlertBuilder.query(this)
+				.title("Batch Export")
+				.headerText("Export every deck in a folder:")
+				.contentNode(grid)
+				.buttons(ButtonType.OK, ButtonType.CANCEL)
+				.modal(Modality.WINDOW_MODAL)
+				.longRunning(ButtonType.OK, a -> {
+					Path source = new File(sourceField.getText()).toPath();
+					Path target = targetField.getText().isEmpty() ? source : new File(targetField.getText()).toPath();
+					List<DeckImportExport> formats = formatBoxes.entrySet().stream()
+							.filter(e -> e.getKey().isSelected())
+							.map(Map.Entry::getValue)
+							.collect(Collectors.toList());
+
+					exporter.set(new BatchExporter(source, target, formats, threads.getValue()));
+				}, prg -> {
+					results.add(exporter.get().run(prg));
+					return true;
+				}, null, AlertBuilder.Exceptions.Defer);
+
+		builder.get().getDialogPane().lookupButton(ButtonType.OK).disableProperty().bind(Bindings.createBooleanBinding(
+				() -> !new File(sourceField.getText()).isDirectory() || formatBoxes.keySet().stream().noneMatch(CheckBox::isSelected),
+				Stream.concat(Stream.of(sourceField.textProperty()), formatBoxes.keySet().stream().map(CheckBox::selectedProperty)).toArray(javafx.beans.Observable[]::new)));
+
+		try {
+			if (builder.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK || results.isEmpty()) return;
+		} catch (CompletionException ce) {
+			final Throwable cause = ce.getCause() != null && ce.getCause().getCause() != null ? ce.getCause().getCause() : ce;
+			if (cause instanceof InterruptedIOException) return;
+
+			AlertBuilder.notify(this)
+					.type(Alert.AlertType.ERROR)
+					.title("Batch Export")
+					.headerText("An error occurred while exporting:")
+					.contentText(cause.getMessage())
+					.modal(Modality.WINDOW_MODAL)
+					.showAndWait();
+			return;
+		}
+
+		BatchExporter.Results result = results.get(0);
+		State.get().lastExportDirectory = new File(targetField.getText().isEmpty() ? sourceField.getText() : targetField.getText()).toPath();
+
+		AlertBuilder.notify(this)
+				.type(result.failures.isEmpty() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING)
+				.title("Batch Export")
+				.headerText(String.format("Exported %d files from %d decks.", result.exports, result.decks))
+				.contentText(result.failures.isEmpty() ? "No problems were encountered." : result.failures.stream()
+						.limit(20)
+						.map(f -> " \u2022 " + f)
+						.collect(Collectors.joining("\n", "Some exports failed:\n", result.failures.size() > 20 ? "\n..." : "")))
+				.modal(Modality.WINDOW_MODAL)
+				.showAndWait();
+	}
+
 	protected DeckImportExport.CopyPaste serdesGrid(String title, Function<DeckImportExport.CopyPaste, DeckImportExport.DataFormat> format) {
 		List<DeckImportExport.CopyPaste> formats = DeckImportExport.COPYPASTE_PROVIDERS.stream()
 				.filter(serdes -> format.apply(serdes) != null)
@@ -0,0 +1,213 @@
+package emi.mtg.deckbuilder.view;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A disk cache of decoded, pre-scaled card thumbnails. Each set gets a pack file of fixed-size premultiplied ARGB
+ * pixel blocks, plus an index file naming the card in each slot, one per line. Packs are memory-mapped, so a cached
+ * thumbnail is copied straight into a WritableImage with no decoding at all.
+ *
+ * Packs are derived from the PNG cache and can be thrown away at any time; they'll be rebuilt as thumbnails are read.
+ */
+class ThumbnailPacks {
+	private static final String PACK_EXTENSION = ".pack", INDEX_EXTENSION = ".idx";
+	private static final String TOMBSTONE = "";
+
+	static final int WIDTH = (int) Images.CARD_WIDTH, HEIGHT = (int) Images.CARD_HEIGHT;
+	private static final int BLOCK_SIZE = WIDTH * HEIGHT * 4;
+	private static final int MAX_SLOTS = Integer.MAX_VALUE / BLOCK_SIZE;
+
+	private static class Pack {
+		private final Path indexPath;
+		private final FileChannel channel;
+		private final List<String> names;
+		private final Map<String, Integer> slots;
+		private final Deque<Integer> free;
+		private MappedByteBuffer mapped;
+
+		Pack(Path packPath, Path indexPath) throws IOException {
+			this.indexPath = indexPath;
+			this.channel = FileChannel.open(packPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.names = new ArrayList<>();
+			this.slots = new HashMap<>();
+			this.free = new ArrayDeque<>();
+			this.mapped = null;
+
+			if (Files.exists(indexPath)) {
+				long complete = channel.size() / BLOCK_SIZE;
+				for (String name : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+					if (names.size() >= complete) break; // Index got ahead of the data somehow; drop the remainder.
+					if (name.equals(TOMBSTONE)) free.add(names.size());
+					else slots.put(name, names.size());
+					names.add(name);
+				}
+			}
+		}
+
+		synchronized Image read(String name) throws IOException {
+			Integer slot = slots.get(name);
+			if (slot == null) return null;
+
+			final int offset = slot * BLOCK_SIZE;
+			if (mapped == null || mapped.capacity() < offset + BLOCK_SIZE) {
+				mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+
+			ByteBuffer block = mapped.duplicate();
+			block.position(offset);
+			block.limit(offset + BLOCK_SIZE);
+			IntBuffer pixels = block.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+			WritableImage image = new WritableImage(WIDTH, HEIGHT);
+			image.getPixelWriter().setPixels(0, 0, WIDTH, HEIGHT, PixelFormat.getIntArgbPreInstance(), pixels, WIDTH);
+			return image;
+		}
+
+		synchronized void write(String name, ByteBuffer block) throws IOException {
+			if (slots.containsKey(name)) return;
+
+			final boolean reused = !free.isEmpty();
+			final int slot = reused ? free.removeFirst() : names.size();
+			if (slot >= MAX_SLOTS) return; // Can't map it anyway.
+
+			// Data goes down before the index, so a crash can't leave the index pointing at garbage.
+			block.rewind();
+			channel.write(block, (long) slot * BLOCK_SIZE);
+
+			if (reused) {
+				names.set(slot, name);
+				Files.write(indexPath, names, StandardCharsets.UTF_8);
+			} else {
+				names.add(name);
+				Files.write(indexPath, Collections.singletonList(name), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			}
+
+			slots.put(name, slot);
+		}
+
+		synchronized void remove(String name) throws IOException {
+			Integer slot = slots.remove(name);
+			if (slot == null) return;
+
+			names.set(slot, TOMBSTONE);
+			free.add(slot);
+			Files.write(indexPath, names, StandardCharsets.UTF_8);
+		}
+
+		synchronized void close() throws IOException {
+			mapped = null;
+			channel.close();
+		}
+	}
+
+	private final Path dir;
+	private final Map<String, Pack> packs;
+
+	ThumbnailPacks(Path dir) throws IOException {
+		if (!Files.exists(dir)) {
+			Files.createDirectories(dir);
+		}
+
+		this.dir = dir;
+		this.packs = new ConcurrentHashMap<>();
+	}
+
+	private Pack pack(Path png) throws IOException {
+		final String set = png.getParent().getFileName().toString();
+
+		try {
+			return packs.computeIfAbsent(set, s -> {
+				try {
+					return new Pack(dir.resolve(s + PACK_EXTENSION), dir.resolve(s + INDEX_EXTENSION));
+				} catch (IOException ioe) {
+					throw new RuntimeException(ioe);
+				}
+			});
+		} catch (RuntimeException re) {
+			if (re.getCause() instanceof IOException) throw (IOException) re.getCause();
+			throw re;
+		}
+	}
+
+	private static String name(Path png) {
+		String file = png.getFileName().toString();
+		int dot = file.lastIndexOf('.');
+		return dot < 0 ? file : file.substring(0, dot);
+	}
+
+	/**
+	 * Reads the packed thumbnail corresponding to a PNG cache path, if one has been packed.
+	 *
+	 * @param png The path the thumbnail would have in the PNG cache.
+	 * @return The thumbnail, or null if it isn't packed.
+	 */
+	Image read(Path png) throws IOException {
+		return pack(png).read(name(png));
+	}
+
+	/**
+	 * Packs a thumbnail. Thumbnails which aren't exactly CARD_WIDTH x CARD_HEIGHT are ignored.
+	 *
+	 * @param png The path the thumbnail has in the PNG cache.
+	 * @param image The decoded thumbnail.
+	 */
+	void write(Path png, Image image) throws IOException {
+		if ((int) image.getWidth() != WIDTH || (int) image.getHeight() != HEIGHT || image.getPixelReader() == null) return;
+
+		int[] argb = new int[WIDTH * HEIGHT];
+		image.getPixelReader().getPixels(0, 0, WIDTH, HEIGHT, PixelFormat.getIntArgbPreInstance(), argb, 0, WIDTH);
+
+		ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		block.asIntBuffer().put(argb);
+		pack(png).write(name(png), block);
+	}
+
+	void remove(Path png) throws IOException {
+		pack(png).remove(name(png));
+	}
+
+	/**
+	 * Closes and deletes every pack. They'll be rebuilt from the PNG cache as needed.
+	 *
+	 * @return The number of bytes deleted.
+	 */
+	long clear() throws IOException {
+		long deleted = 0;
+
+		for (Iterator<Pack> iter = packs.values().iterator(); iter.hasNext(); ) {
+			iter.next().close();
+			iter.remove();
+		}
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*{" + PACK_EXTENSION + "," + INDEX_EXTENSION + "}")) {
+			for (Path file : files) {
+				long size = Files.size(file);
+				try {
+					Files.delete(file);
+					deleted += size;
+				} catch (IOException ioe) {
+					// On some platforms a file can't be deleted while a stale mapping is still alive; try next time.
+					ioe.printStackTrace();
+				}
+			}
+		}
+
+		return deleted;
+	}
+}
@@ -3,9 +3,12 @@ package emi.mtg.deckbuilder.view.components;
 import emi.lib.mtg.Card;
 import emi.lib.mtg.enums.CardType;
 import emi.lib.mtg.game.Zone;
+import emi.mtg.deckbuilder.controller.Context;
 import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.model.DeckList;
+import emi.mtg.deckbuilder.model.FilteredGroupedModel;
 import emi.mtg.deckbuilder.model.Preferences;
+import emi.mtg.deckbuilder.view.Images;
 import emi.mtg.deckbuilder.view.dialogs.DeckStatsDialog;
 import emi.mtg.deckbuilder.view.dialogs.SortDialog;
 import emi.mtg.deckbuilder.view.groupings.ManaValue;
@@ -148,6 +151,8 @@ public class CardPane extends BorderPane {
 		}
 	}
 
+	private static final int WARM_UP_RESULTS = 256;
+
 	private final static Predicate<CardInstance> STANDARD_CARDS = c -> c.card().faces().stream().flatMap(f -> f.type().cardTypes().stream()).allMatch(CardType::constructed);
 
 	private final MenuButton deckMenuButton;
@@ -164,6 +169,15 @@ public class CardPane extends BorderPane {
 	private final CheckMenuItem findOtherCards;
 	private final ToggleButton autoToggle;
 
+	// Thumbnails being loaded for the current results; replaced after each filter. Guarded by this.
+	private Images.WarmUp warmUp = null;
+
+	// The filter last applied to the model, so we can tell whether a new one only narrows it.
+	private String appliedQuery = null;
+	private SearchProvider appliedProvider = null;
+	private boolean appliedFindOther, appliedShowIllegal;
+	private long appliedModifications;
+
 	public final ObjectProperty<SearchProvider> searchProvider = new SimpleObjectProperty<>(Preferences.get().searchProvider);
 	public final ObjectProperty<Consumer<CardInstance>> autoAction = new SimpleObjectProperty<>(null);
 	public final BooleanProperty autoEnabled = new SimpleBooleanProperty(true);
@@ -448,25 +462,43 @@ public class CardPane extends BorderPane {
 		}
 	}
 
-	private Predicate<CardInstance> calculateFilter() throws IllegalArgumentException {
-		Predicate<CardInstance> compositeFilter;
-		if (filter.getText().isEmpty()) {
-			compositeFilter = c -> true;
-		} else {
-			compositeFilter = searchProvider.get().parse(filter.getText());
-		}
+	private Predicate<CardInstance> calculateFilter(String query, SearchProvider provider, boolean findOther, boolean showIllegal) throws IllegalArgumentException {
+		// Invalid flags depend on the deck, so they're checked live rather than cached with the query.
+		Predicate<CardInstance> compositeFilter = Context.get().queries.get(Context.get().printIndex(), provider, query, findOther, () -> {
+			Predicate<CardInstance> tmp;
+			if (query.isEmpty()) {
+				tmp = c -> true;
+			} else {
+				tmp = provider.parse(query);
+			}
 
-		if (!findOtherCards.isSelected()) {
-			compositeFilter = compositeFilter.and(STANDARD_CARDS);
-		}
+			if (!findOther) {
+				tmp = tmp.and(STANDARD_CARDS);
+			}
 
-		if (!showIllegalCards.isSelected()) {
+			return tmp;
+		});
+
+		if (!showIllegal) {
 			compositeFilter = compositeFilter.and(c -> !c.flags.contains(CardInstance.Flags.Invalid));
 		}
 
 		return compositeFilter;
 	}
 
+	private boolean narrowsAppliedFilter(String query, SearchProvider provider, boolean findOther, boolean showIllegal, long modifications) {
+		if (appliedQuery == null || provider != appliedProvider) return false;
+
+		// Cards hidden by the last filter may match now that their flags or tags have changed.
+		if (modifications != appliedModifications) return false;
+		if (findOther && !appliedFindOther || showIllegal && !appliedShowIllegal) return false;
+
+		// Re-applying the very same filter is how callers ask for a full refresh, e.g. after card flags change.
+		if (query.equals(appliedQuery)) return findOther != appliedFindOther || showIllegal != appliedShowIllegal;
+
+		return appliedQuery.isEmpty() || provider.narrows(appliedQuery, query);
+	}
+
 	private void updateFilterFx(ActionEvent ae) {
 		if (!Platform.isFxApplicationThread()) {
 			throw new IllegalStateException("updateFilterFx must only be called from the FX Application thread!");
@@ -485,9 +517,14 @@ public class CardPane extends BorderPane {
 			return;
 		}
 
+		final String query = filter.getText();
+		final SearchProvider provider = searchProvider.get();
+		final boolean findOther = findOtherCards.isSelected(), showIllegal = showIllegalCards.isSelected();
+		final long modifications = CardInstance.modifications();
+
 		final Predicate<CardInstance> finalFilter;
 		try {
-			finalFilter = calculateFilter();
+			finalFilter = calculateFilter(query, provider, findOther, showIllegal);
 		} catch (IllegalArgumentException iae) {
 			Platform.runLater(() -> {
 				Tooltip.install(filter, filterErrorTooltip);
@@ -509,7 +546,19 @@ public class CardPane extends BorderPane {
 		});
 
 		// TODO: Make interruptible with volatile generation ala CardView
-		changeModel(x -> this.cardView.model.predicate.set(finalFilter));
+		changeModel(x -> {
+			if (narrowsAppliedFilter(query, provider, findOther, showIllegal, modifications)) {
+				this.cardView.model.predicate.set(FilteredGroupedModel.narrowing(this.cardView.model.predicate.get(), finalFilter));
+			} else {
+				this.cardView.model.predicate.set(finalFilter);
+			}
+
+			appliedQuery = query;
+			appliedProvider = provider;
+			appliedFindOther = findOther;
+			appliedShowIllegal = showIllegal;
+			appliedModifications = modifications;
+		});
 
 		final boolean clear;
 		final Node focusTarget;
@@ -530,6 +579,56 @@ public class CardPane extends BorderPane {
 		});
 
 		updateStats();
+		warmUpResults();
+	}
+
+	/**
+	 * Starts loading thumbnails for the first results, replacing any earlier warm-up. Results are taken from the groups
+	 * as they're laid out and sorted on screen, a rank at a time across groups, i.e. the first card of each group, then
+	 * the second, and so on, since every layout shows the tops of its groups first. Progress is shown in the filter bar.
+	 */
+	public void warmUpResults() {
+		final List<Card.Print> prints = new ArrayList<>(WARM_UP_RESULTS);
+		try {
+			final List<ObservableList<CardInstance>> groups = this.cardView.sortedGroups();
+			for (int rank = 0; prints.size() < WARM_UP_RESULTS; ++rank) {
+				boolean any = false;
+				for (List<CardInstance> group : groups) {
+					if (rank >= group.size()) continue;
+					any = true;
+					prints.add(group.get(rank).print());
+					if (prints.size() >= WARM_UP_RESULTS) break;
+				}
+				if (!any) break;
+			}
+		} catch (ConcurrentModificationException | IndexOutOfBoundsException comod) {
+			// The groups are still changing. Warm up what we have; the next update starts a fresh warm-up.
+		}
+
+		final AtomicLong lastUpdate = new AtomicLong(0);
+		synchronized (this) {
+			if (warmUp != null) warmUp.cancel();
+
+			final Images.WarmUp[] self = new Images.WarmUp[1];
+			warmUp = self[0] = Context.get().images.warmUp(prints, cardView.thumbnailLevel(), d -> {
+				if (d < 0.999 && System.nanoTime() - lastUpdate.get() < 1e9 / 60) return;
+				lastUpdate.set(System.nanoTime());
+				Platform.runLater(() -> {
+					synchronized (CardPane.this) {
+						if (warmUp != self[0] || filterProgress.getProgress() < 0.0) return;
+					}
+					filterProgress.setProgress(d >= 0.999 ? 0.0 : d);
+				});
+			});
+		}
+	}
+
+	/**
+	 * Stops loading thumbnails for this pane's results. Call when the pane is going away.
+	 */
+	public synchronized void closing() {
+		if (warmUp != null) warmUp.cancel();
+		warmUp = null;
 	}
 
 	public CardPane(DeckList deck, Zone zone, CardView.LayoutEngine initEngine, CardView.Grouping initGrouping, List<CardView.ActiveSorting> sortings) {
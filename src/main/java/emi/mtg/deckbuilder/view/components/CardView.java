@@ -18,6 +18,7 @@ import javafx.collections.*;
 import javafx.collections.transformation.SortedList;
 import javafx.geometry.Rectangle2D;
 import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
@@ -27,11 +28,13 @@ import javafx.scene.input.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
 import javafx.stage.Screen;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
@@ -158,6 +161,27 @@ public class CardView extends Canvas {
 			buffer = coordinatesOf(view, card, buffer);
 			return cardInSelection(view, buffer, min, max, groupSize);
 		}
+
+		/**
+		 * Narrows down which cards of a group might lie within a rectangle, so callers needn't place every card in the
+		 * group to find out. The range may include cards outside the rectangle, but must include every card inside it.
+		 *
+		 * @param view The view being laid out.
+		 * @param min The rectangle's top-left corner, relative to the group's position.
+		 * @param max The rectangle's bottom-right corner, relative to the group's position.
+		 * @param groupSize The number of cards in the group.
+		 * @param buffer A two-element array to store the range in, or null to allocate one.
+		 * @return The range, as the first card index and one past the last.
+		 */
+		default int[] visibleRange(CardView view, MVec2d min, MVec2d max, int groupSize, int[] buffer) {
+			if (buffer == null) {
+				buffer = new int[2];
+			}
+
+			buffer[0] = 0;
+			buffer[1] = groupSize;
+			return buffer;
+		}
 	}
 
 	public interface Grouping {
@@ -715,10 +739,23 @@ public class CardView extends Canvas {
 			this.sortedModel = this.model.sorted(initialSort);
 		}
 
+		// The label last drawn for this group, and the total it was formatted with.
+		private String label = null;
+		private int labelTotal = -1;
+
 		public ObservableList<CardInstance> model() {
 			return sortedModel;
 		}
 
+		String label() {
+			final int total = model.total();
+			if (label == null || total != labelTotal) {
+				label = String.format("%s (%d)", group.toString(), total);
+				labelTotal = total;
+			}
+			return label;
+		}
+
 		public synchronized void setSort(Comparator<CardInstance> sort) {
 			this.sortedModel.setComparator(sort);
 		}
@@ -897,6 +934,9 @@ public class CardView extends Canvas {
 	final FilteredGroupedModel<Grouping.Group, CardInstance> model;
 	final Map<Grouping.Group, Group> groupedModel;
 
+	// Rebuilt on every layout; null while the groups have changed since the last one.
+	private volatile GroupIndex groupIndex;
+
 	private LayoutEngine engine;
 	private Comparator<CardInstance> sort;
 	private List<ActiveSorting> sortingElements;
@@ -1001,6 +1041,7 @@ public class CardView extends Canvas {
 				this.groupedModel.put(mce.getKey(), new Group(mce.getKey(), mce.getValueAdded(), sort));
 			}
 
+			this.groupIndex = null;
 			scheduleLayout();
 		});
 
@@ -1169,18 +1210,7 @@ public class CardView extends Canvas {
 
 		MVec2d rel = new MVec2d(x + scrollX.get(), y + scrollY.get());
 
-		Group newHoverGroup = null;
-
-		for (Group g : groupedModel.values()) {
-			if (g == null) {
-				continue;
-			}
-
-			if (g.groupBounds != null && g.groupBounds.contains(rel) || g.labelBounds != null && g.labelBounds.contains(rel)) {
-				newHoverGroup = g;
-				break;
-			}
-		}
+		Group newHoverGroup = groupAt(rel, true);
 
 		if (newHoverGroup != hoverGroup) {
 			rerender = true;
@@ -1214,6 +1244,25 @@ public class CardView extends Canvas {
 		}
 	}
 
+	private Group groupAt(MVec2d point, boolean includeLabels) {
+		final GroupIndex index = groupIndex;
+		if (index != null) {
+			return index.groupAt(point, includeLabels);
+		}
+
+		for (Group g : groupedModel.values()) {
+			if (g == null) {
+				continue;
+			}
+
+			if (g.groupBounds.contains(point) || includeLabels && g.labelBounds.contains(point)) {
+				return g;
+			}
+		}
+
+		return null;
+	}
+
 	private Set<CardInstance> cardsInBounds(double x1, double y1, double x2, double y2) {
 		Set<CardInstance> selectedCards = new HashSet<>();
 
@@ -1221,11 +1270,13 @@ public class CardView extends Canvas {
 				max = new MVec2d(Math.max(x1, x2), Math.max(y1, y2));
 
 		MVec2d localMin = new MVec2d(), localMax = new MVec2d(), buffer = new MVec2d();
+		int[] range = new int[2];
 		for (Group group : groupedModel.values()) {
 			localMin.set(group.groupBounds.pos).negate().plus(min);
 			localMax.set(group.groupBounds.pos).negate().plus(max);
 
-			for (int j = 0; j < group.model().size(); ++j) {
+			range = engine.visibleRange(this, localMin, localMax, group.model().size(), range);
+			for (int j = range[0]; j < range[1]; ++j) {
 				if (engine.cardInSelection(CardView.this, j, localMin, localMax, buffer, group.model().size())) {
 					selectedCards.addAll(group.hoverCards(group.model().get(j)));
 				}
@@ -1254,13 +1305,7 @@ public class CardView extends Canvas {
 
 		MVec2d point = new MVec2d(x + scrollX.get(), y + scrollY.get());
 
-		Group group = null;
-		for (Group g : groupedModel.values()) {
-			if (g.groupBounds.contains(point)) {
-				group = g;
-				break;
-			}
-		}
+		Group group = groupAt(point, false);
 
 		if (group == null || group.model().isEmpty()) {
 			return new CardHitResult(group, -1, null);
@@ -1341,6 +1386,22 @@ public class CardView extends Canvas {
 		return cardScaleProperty;
 	}
 
+	/**
+	 * @return The thumbnail mip level cards are drawn at on screen.
+	 */
+	int thumbnailLevel() {
+		return Preferences.get().mipmappedThumbnails ? Images.mipLevel(cardScaleProperty.get()) : 0;
+	}
+
+	/**
+	 * @return Each group's cards, sorted as they're drawn, with the groups in the order they're laid out.
+	 */
+	List<ObservableList<CardInstance>> sortedGroups() {
+		return Arrays.stream(groupedModel.values().toArray(new Group[0]))
+				.map(Group::model)
+				.collect(Collectors.toList());
+	}
+
 	public BooleanProperty showEmptyGroupsProperty() {
 		return showEmptyGroupsProperty;
 	}
@@ -1435,11 +1496,16 @@ public class CardView extends Canvas {
 		}
 	}
 
-	private volatile long renderGeneration = 0, layoutGeneration = 0;
+	private volatile long layoutGeneration = 0;
+
+	private final RenderScheduler<RenderMap> renderScheduler = new RenderScheduler<>(this::render, frame -> drawRenderMap(frame, true), this::recycle);
+
+	public void scheduleRender() {
+		renderScheduler.request();
+	}
 
-	public synchronized void scheduleRender() {
-		final long nextGen = ++renderGeneration;
-		ForkJoinPool.commonPool().submit(() -> this.render(nextGen));
+	public RenderScheduler.Stats renderStats() {
+		return renderScheduler.stats();
 	}
 
 	private synchronized void layout(long generation) {
@@ -1452,8 +1518,10 @@ public class CardView extends Canvas {
 		}
 
 		Bounds boundingBox = new Bounds();
+		final Group[] groups;
 		try {
-			engine.layoutGroups(this, boundingBox, groupedModel.values().toArray(new Group[0]), showEmptyGroupsProperty.get()); // TODO inefficient and unordered
+			groups = groupedModel.values().toArray(new Group[0]);
+			engine.layoutGroups(this, boundingBox, groups, showEmptyGroupsProperty.get()); // TODO inefficient and unordered
 		} catch (ConcurrentModificationException comod) {
 			return; // Groups is still changing; let's wait.
 		}
@@ -1462,6 +1530,8 @@ public class CardView extends Canvas {
 			return;
 		}
 
+		groupIndex = new GroupIndex(groups);
+
 		scrollMinX.set(boundingBox.pos.x);
 		scrollMinY.set(boundingBox.pos.y);
 		scrollMaxX.set(boundingBox.dim.x - getWidth());
@@ -1482,7 +1552,7 @@ public class CardView extends Canvas {
 		Platform.runLater(() -> this.layout(nextGen));
 	}
 
-	private enum CardState {
+	enum CardState {
 		Full (() -> Color.TRANSPARENT, () -> Color.color(0.0f, 0.0f, 0.0f, 0.5f)),
 		Hover (() -> Preferences.get().theme.accent.deriveColor(0.0, 1.0, 1.25, 1.0), () -> Color.TRANSPARENT),
 		Selected (() -> Preferences.get().theme.accent.deriveColor(0.0, 1.0, 1.25, 1.0), () -> Preferences.get().theme.accent.deriveColor(0.0, 1.0, 1.25, 0.25)),
@@ -1491,43 +1561,52 @@ public class CardView extends Canvas {
 		Notice (() -> Color.LIGHTGREEN, () -> Color.TRANSPARENT);
 
 		public final Supplier<Color> outlineColor, fillColor;
+		public final int bit;
 
 		CardState(Supplier<Color> outlineColor, Supplier<Color> fillColor) {
 			this.outlineColor = outlineColor;
 			this.fillColor = fillColor;
+			this.bit = 1 << ordinal();
 		}
 	}
 
-	private static class RenderMap {
-		private static class CardState {
-			public final Image img;
-			public final EnumSet<CardView.CardState> state;
-			public final int count;
+	// Render maps which aren't being built, waiting to be drawn, or retained as the last frame drawn.
+	private final ArrayDeque<RenderMap> spareRenderMaps = new ArrayDeque<>();
 
-			public CardState(Image img, EnumSet<CardView.CardState> states, int count) {
-				this.img = img;
-				this.state = states;
-				this.count = count;
-			}
+	// The last frame drawn, so the next one can repaint only the regions that changed. FX application thread only.
+	private RenderMap retainedFrame = null;
+	private Preferences.Theme retainedTheme = null;
+	private final List<Bounds> dirtyRegions = new ArrayList<>();
+
+	// Count badges, pre-composited with their drop shadows. FX application thread only.
+	private final Map<Integer, Image> badges = new HashMap<>();
+	private double badgeCardHeight = -1.0;
+
+	private RenderMap takeRenderMap() {
+		synchronized (spareRenderMaps) {
+			RenderMap map = spareRenderMaps.poll();
+			return map != null ? map : new RenderMap();
 		}
+	}
 
-		public final SortedMap<MVec2d, CardState> cards;
-		public final Map<Bounds, String> labels;
-		public final Bounds hoverGroupBounds;
+	private void recycle(RenderMap map) {
+		if (map == null) return;
 
-		public RenderMap() {
-			this.cards = new TreeMap<>();
-			this.labels = new HashMap<>();
-			this.hoverGroupBounds = new Bounds();
+		synchronized (spareRenderMaps) {
+			spareRenderMaps.push(map);
 		}
 	}
 
-	@SuppressWarnings("DuplicateCondition")
-	protected synchronized void render(long generation) {
-		if (generation < renderGeneration) return;
+	private void discardRetainedFrame() {
+		recycle(retainedFrame);
+		retainedFrame = null;
+	}
 
+	protected synchronized RenderMap render() {
 		if (engine == null || grouping == null) {
+			renderScheduler.cancelPending();
 			Platform.runLater(() -> {
+				discardRetainedFrame();
 				GraphicsContext gfx = getGraphicsContext2D();
 				gfx.setFill(Preferences.get().theme.base);
 				gfx.fillRect(0, 0, getWidth(), getHeight());
@@ -1536,11 +1615,13 @@ public class CardView extends Canvas {
 				gfx.setFont(new Font(null, getHeight() / 10.0));
 				gfx.fillText("Select a valid display layout/card grouping.", getWidth() / 2, getHeight() / 2, getWidth());
 			});
-			return;
+			return null;
 		}
 
 		if (model == null || model.values().stream().mapToLong(List::size).sum() == 0) {
+			renderScheduler.cancelPending();
 			Platform.runLater(() -> {
+				discardRetainedFrame();
 				GraphicsContext gfx = getGraphicsContext2D();
 				gfx.setFill(Preferences.get().theme.base);
 				gfx.fillRect(0, 0, getWidth(), getHeight());
@@ -1549,29 +1630,125 @@ public class CardView extends Canvas {
 				gfx.setFont(new Font(null, getHeight() / 10.0));
 				gfx.fillText("No cards to display.", getWidth() / 2, getHeight() / 2, getWidth());
 			});
-			return;
+			return null;
 		}
 
 		if (groupedModel == null) {
-			return; // TODO: What do we do here? Call layout manually...?
+			return null; // TODO: What do we do here? Call layout manually...?
 		}
 
-		if (generation < renderGeneration) return;
-		RenderMap renderMap = buildRenderMap(false);
+		return buildRenderMap(takeRenderMap(), false);
+	}
+
+	/**
+	 * @param atlas Whether thumbnails may be drawn from the ThumbnailAtlas. Only frames drawn during a pulse, i.e. by the
+	 *              RenderScheduler, may use it.
+	 */
+	private void drawRenderMap(RenderMap renderMap, boolean atlas) {
+		GraphicsContext gfx = getGraphicsContext2D();
 
-		if (generation < renderGeneration) return;
-		Platform.runLater(() -> drawRenderMap(generation, renderMap));
+		if (selectBehavior.selecting) {
+			renderMap.selecting = true;
+			renderMap.selection.pos.set(selectBehavior.selectX - scrollX.get(), selectBehavior.selectY - scrollY.get());
+			renderMap.selection.dim.set(selectBehavior.selectW, selectBehavior.selectH);
+		}
+
+		if (Preferences.get().incrementalRepaint && findDirtyRegions(retainedFrame, renderMap)) {
+			for (Bounds region : dirtyRegions) {
+				gfx.save();
+				gfx.beginPath();
+				gfx.rect(region.pos.x, region.pos.y, region.dim.x, region.dim.y);
+				gfx.clip();
+				paint(gfx, renderMap, region, atlas);
+				gfx.restore();
+			}
+		} else {
+			paint(gfx, renderMap, null, atlas);
+		}
+
+		discardRetainedFrame();
+		retainedFrame = renderMap;
+		retainedTheme = Preferences.get().theme;
 	}
 
-	private void drawRenderMap(long generation, RenderMap renderMap) {
-		if (generation >= 0 && generation < renderGeneration) return;
+	/**
+	 * Works out which parts of the canvas differ between the last frame drawn and the next one: cards whose image,
+	 * state or count changed, changed labels, the hovered group and the selection rectangle. If any card or label
+	 * moved, appeared or vanished, e.g. due to scrolling or a relayout, the frame is repainted in full.
+	 *
+	 * @return True if dirtyRegions holds the regions to repaint, or false to repaint the whole canvas.
+	 */
+	private boolean findDirtyRegions(RenderMap last, RenderMap next) {
+		dirtyRegions.clear();
 
-		GraphicsContext gfx = getGraphicsContext2D();
+		if (last == null || retainedTheme != Preferences.get().theme) return false;
+		if (last.width != next.width || last.height != next.height || last.cardWidth != next.cardWidth || last.cardHeight != next.cardHeight) return false;
+		if (last.cards != next.cards || last.labels != next.labels) return false;
 
+		if (last.hovering != next.hovering || !sameBounds(last.hoverGroupBounds, next.hoverGroupBounds)) {
+			if (last.hovering) dirtyRegions.add(copy(last.hoverGroupBounds, 0.0));
+			if (next.hovering) dirtyRegions.add(copy(next.hoverGroupBounds, 0.0));
+		}
+
+		if (last.selecting != next.selecting || !sameBounds(last.selection, next.selection)) {
+			if (last.selecting) dirtyRegions.add(copy(last.selection, 2.0));
+			if (next.selecting) dirtyRegions.add(copy(next.selection, 2.0));
+		}
+
+		for (int i = 0; i < next.labels; ++i) {
+			if (last.labelX[i] != next.labelX[i] || last.labelY[i] != next.labelY[i]) return false;
+			if (!next.sameLabel(i, last, i)) dirtyRegions.add(region(next.labelX[i], next.labelY[i], Math.max(last.labelW[i], next.labelW[i]), Math.max(last.labelH[i], next.labelH[i]), 0.0));
+		}
+
+		final double margin = next.cardMargin();
+		for (int i = 0; i < next.cards; ++i) {
+			if (last.cardX[i] != next.cardX[i] || last.cardY[i] != next.cardY[i]) return false;
+			if (!next.sameCard(i, last, i)) dirtyRegions.add(region(next.cardX[i], next.cardY[i], next.cardWidth, next.cardHeight, margin));
+			if (dirtyRegions.size() > MAX_DIRTY_REGIONS) return false;
+		}
+
+		double area = 0.0;
+		for (Bounds region : dirtyRegions) area += region.dim.x * region.dim.y;
+		return area <= next.width * next.height * MAX_DIRTY_FRACTION;
+	}
+
+	private static final int MAX_DIRTY_REGIONS = 64;
+	private static final double MAX_DIRTY_FRACTION = 0.5;
+
+	private static boolean sameBounds(Bounds a, Bounds b) {
+		return a.pos.equals(b.pos) && a.dim.equals(b.dim);
+	}
+
+	private static Bounds copy(Bounds bounds, double margin) {
+		return region(bounds.pos.x, bounds.pos.y, bounds.dim.x, bounds.dim.y, margin);
+	}
+
+	private static Bounds region(double x, double y, double w, double h, double margin) {
+		Bounds region = new Bounds();
+		region.pos.set(x - margin, y - margin);
+		region.dim.set(w + 2.0 * margin, h + 2.0 * margin);
+		return region;
+	}
+
+	private static boolean intersects(Bounds region, double x, double y, double w, double h) {
+		return region == null || (x < region.pos.x + region.dim.x && x + w > region.pos.x && y < region.pos.y + region.dim.y && y + h > region.pos.y);
+	}
+
+	/**
+	 * Paints a frame, or just the parts of it which intersect a region. The caller is responsible for clipping.
+	 *
+	 * @param region The region to paint, or null to paint the whole canvas.
+	 * @param useAtlas Whether thumbnails may be drawn from the ThumbnailAtlas.
+	 */
+	private void paint(GraphicsContext gfx, RenderMap renderMap, Bounds region, boolean useAtlas) {
 		gfx.setFill(Preferences.get().theme.base);
-		gfx.fillRect(0, 0, getWidth(), getHeight());
+		if (region == null) {
+			gfx.fillRect(0, 0, getWidth(), getHeight());
+		} else {
+			gfx.fillRect(region.pos.x, region.pos.y, region.dim.x, region.dim.y);
+		}
 
-		if (renderMap.hoverGroupBounds.dim.x >= 0 && renderMap.hoverGroupBounds.dim.y >= 0) {
+		if (renderMap.hovering) {
 			gfx.setFill(Preferences.get().theme.base.deriveColor(0.0, 1.0, 0.9, 1.0));
 			gfx.fillRect(renderMap.hoverGroupBounds.pos.x, renderMap.hoverGroupBounds.pos.y,
 					renderMap.hoverGroupBounds.dim.x, renderMap.hoverGroupBounds.dim.y);
@@ -1580,31 +1757,40 @@ public class CardView extends Canvas {
 		gfx.setFill(Preferences.get().theme.base.invert());
 		gfx.setTextAlign(TextAlignment.CENTER);
 		gfx.setTextBaseline(VPos.CENTER);
-		for (Map.Entry<Bounds, String> label : renderMap.labels.entrySet()) {
-			gfx.setFont(Font.font(null, FontWeight.MEDIUM, label.getKey().dim.y));
-			gfx.fillText(label.getValue(),
-					label.getKey().pos.x + label.getKey().dim.x / 2.0,
-					label.getKey().pos.y + label.getKey().dim.y / 2.0,
-					label.getKey().dim.x);
+		for (int i = 0; i < renderMap.labels; ++i) {
+			final double x = renderMap.labelX[i], y = renderMap.labelY[i], w = renderMap.labelW[i], h = renderMap.labelH[i];
+			if (!intersects(region, x, y, w, h)) continue;
+
+			gfx.setFont(Font.font(null, FontWeight.MEDIUM, h));
+			gfx.fillText(renderMap.labelText[i], x + w / 2.0, y + h / 2.0, w);
 		}
 
-		final double cw = cardWidth();
-		final double ch = cardHeight();
+		final double cw = renderMap.cardWidth;
+		final double ch = renderMap.cardHeight;
+		final double margin = renderMap.cardMargin();
+		final CardState[] allStates = CardState.values();
+		final ThumbnailAtlas atlas = useAtlas && Preferences.get().thumbnailAtlas ? ThumbnailAtlas.get() : null;
+
+		for (int i = 0; i < renderMap.cards; ++i) {
+			final double x = renderMap.cardX[i], y = renderMap.cardY[i];
+			if (!intersects(region, x - margin, y - margin, cw + 2.0 * margin, ch + 2.0 * margin)) continue;
 
-		for (Map.Entry<MVec2d, RenderMap.CardState> str : renderMap.cards.entrySet()) {
-			gfx.drawImage(str.getValue().img, str.getKey().x, str.getKey().y, cw, ch);
+			if (atlas == null || !atlas.draw(gfx, renderMap.cardImages[i], x, y, cw, ch)) {
+				gfx.drawImage(renderMap.cardImages[i], x, y, cw, ch);
+			}
 
+			final int states = renderMap.cardStates[i];
 			boolean drewFill = false, drewOutline = false;
 
-			for (CardState state : CardView.CardState.values()) {
-				if (str.getValue().state.contains(state)) {
+			for (CardState state : allStates) {
+				if ((states & state.bit) != 0) {
 					Color fill = state.fillColor.get(), outline = state.outlineColor.get();
 
 					if (!drewFill && fill != Color.TRANSPARENT) {
 						drewFill = true;
 
 						gfx.setFill(fill);
-						gfx.fillRoundRect(str.getKey().x, str.getKey().y, cw, ch, cw / 8.0, cw / 8.0);
+						gfx.fillRoundRect(x, y, cw, ch, cw / 8.0, cw / 8.0);
 					}
 
 					if (!drewOutline && outline != Color.TRANSPARENT) {
@@ -1612,63 +1798,113 @@ public class CardView extends Canvas {
 
 						gfx.setStroke(outline);
 						gfx.setLineWidth(6.0);
-						gfx.strokeRoundRect(str.getKey().x, str.getKey().y, cw, ch, cw / 12.0, cw / 12.0);
+						gfx.strokeRoundRect(x, y, cw, ch, cw / 12.0, cw / 12.0);
 					}
 				}
 			}
 
-			if (str.getValue().count != 1) {
-				gfx.setTextAlign(TextAlignment.RIGHT);
-				gfx.setFill(Color.WHITE.deriveColor(1.0, 1.0, 1.0, 1.0));
-				gfx.setEffect(new DropShadow(8.0, Color.BLACK.deriveColor(1.0, 1.0, 1.0, 1.0)));
-				gfx.setFont(Font.font(null, FontWeight.BOLD,null, ch / 16.0));
-				gfx.fillText(String.format("x%d", str.getValue().count),
-						str.getKey().x + cw * 0.95,
-						str.getKey().y + cw * 0.035,
-						cw);
-				gfx.setEffect(null);
+			if (renderMap.cardCounts[i] != 1) {
+				// Right-aligned on the card's top edge, as the text itself used to be drawn.
+				Image badge = badge(renderMap.cardCounts[i], ch);
+				gfx.drawImage(badge, x + cw * 0.95 - badge.getWidth() + BADGE_SHADOW, y + cw * 0.035 - badge.getHeight() / 2.0);
 			}
 		}
 
-		if (selectBehavior.selecting) {
-			double x = selectBehavior.selectX - scrollX.get();
-			double y = selectBehavior.selectY - scrollY.get();
-			double w = selectBehavior.selectW;
-			double h = selectBehavior.selectH;
+		if (renderMap.selecting) {
+			final Bounds selection = renderMap.selection;
 
 			gfx.setFill(Preferences.get().theme.accent.deriveColor(0, 1.0, 1.25, 0.25));
-			gfx.fillRect(x, y, w, h);
+			gfx.fillRect(selection.pos.x, selection.pos.y, selection.dim.x, selection.dim.y);
 
 			gfx.setStroke(Preferences.get().theme.accent);
 			gfx.setFill(Color.TRANSPARENT);
 			gfx.setLineWidth(2.0);
-			gfx.strokeRect(x, y, w, h);
+			gfx.strokeRect(selection.pos.x, selection.pos.y, selection.dim.x, selection.dim.y);
 		}
+	}
+
+	static final double BADGE_SHADOW = 8.0;
 
-		// This should never happen.
-		if (generation >= Long.MAX_VALUE / 2 && generation == renderGeneration) {
-			renderGeneration = 0;
+	/**
+	 * Renders a count badge once per card size, rather than applying a drop shadow effect to every badge every frame.
+	 */
+	Image badge(int count, double ch) {
+		if (ch != badgeCardHeight) {
+			badges.clear();
+			badgeCardHeight = ch;
 		}
+
+		return badges.computeIfAbsent(count, c -> {
+			Text text = new Text(String.format("x%d", c));
+			text.setFont(Font.font(null, FontWeight.BOLD, null, ch / 16.0));
+			text.setFill(Color.WHITE);
+			text.setEffect(new DropShadow(BADGE_SHADOW, Color.BLACK));
+
+			SnapshotParameters params = new SnapshotParameters();
+			params.setFill(Color.TRANSPARENT);
+			return text.snapshot(params, null);
+		});
 	}
 
 	private final Set<CompletableFuture<Image>> waiting = new HashSet<>();
+	private Set<Card.Print> requested = new HashSet<>(), nowRequested = new HashSet<>();
+	private double lastScrollX = 0.0, lastScrollY = 0.0;
+
+	// Scratch vectors for buildRenderMap, which only runs with this view's monitor held.
+	private final MVec2d renderLoc = new MVec2d(), renderAbs = new MVec2d(), renderScroll = new MVec2d(),
+			renderDragStart = new MVec2d(), renderDragEnd = new MVec2d(), renderDragStartLocal = new MVec2d(), renderDragEndLocal = new MVec2d(),
+			renderRangeMin = new MVec2d(), renderRangeMax = new MVec2d();
+	private int[] renderGroups = new int[16], renderRange = new int[2];
+
+	private RenderMap buildRenderMap(RenderMap renderMap, boolean blocking) {
+		final double width = getWidth(), height = getHeight(), cw = cardWidth(), ch = cardHeight();
+		renderMap.reset(width, height, cw, ch);
 
-	private RenderMap buildRenderMap(boolean blocking) {
-		RenderMap renderMap = new RenderMap();
-		MVec2d loc = new MVec2d(), abs = new MVec2d();
-		MVec2d scroll = new MVec2d(-scrollX.get(), -scrollY.get());
+		MVec2d loc = renderLoc, abs = renderAbs;
+		final MVec2d scroll = renderScroll.set(-scrollX.get(), -scrollY.get());
 
-		MVec2d dragStart = new MVec2d(selectBehavior.selectX, selectBehavior.selectY),
-				dragEnd = new MVec2d(selectBehavior.selectX2, selectBehavior.selectY2),
-				dragStartLocal = new MVec2d(), dragEndLocal = new MVec2d(), buffer = new MVec2d();
+		// Prefetch one screen ahead in whichever direction we're scrolling; down, if we aren't.
+		double prefetchMinX = -cw, prefetchMaxX = width, prefetchMinY = -ch, prefetchMaxY = height;
+		if (scrollX.get() > lastScrollX) prefetchMaxX += width;
+		if (scrollX.get() < lastScrollX) prefetchMinX -= width;
+		if (scrollY.get() < lastScrollY) prefetchMinY -= height;
+		if (scrollY.get() > lastScrollY || scrollX.get() == lastScrollX && scrollY.get() == lastScrollY) prefetchMaxY += height;
+		lastScrollX = scrollX.get();
+		lastScrollY = scrollY.get();
+
+		nowRequested.clear();
+
+		final MVec2d dragStart = renderDragStart.set(selectBehavior.selectX, selectBehavior.selectY),
+				dragEnd = renderDragEnd.set(selectBehavior.selectX2, selectBehavior.selectY2),
+				dragStartLocal = renderDragStartLocal, dragEndLocal = renderDragEndLocal;
 
 		if (hoverGroup != null) {
+			renderMap.hovering = true;
 			renderMap.hoverGroupBounds.pos.set(hoverGroup.groupBounds.pos).plus(scroll);
 			renderMap.hoverGroupBounds.dim.set(hoverGroup.groupBounds.dim);
 			renderMap.hoverGroupBounds.plus(hoverGroup.labelBounds);
 		}
 
-		for (Group group : groupedModel.values()) {
+		final boolean flags = showFlags.get();
+
+		// Zoomed out, draw a reduced thumbnail rather than have the canvas scale down (and upload) the full-size one.
+		// Blocking renders are for export, which always wants full-size images.
+		final int mip = !blocking ? thumbnailLevel() : 0;
+
+		// Only groups which reach into the prefetch area need to be looked at; that area contains the viewport.
+		final GroupIndex index = groupIndex;
+		final Group[] unindexed = index == null ? groupedModel.values().toArray(new Group[0]) : null;
+		final int groupCount;
+		if (index != null) {
+			if (renderGroups.length < index.size()) renderGroups = new int[index.size()];
+			groupCount = index.overlapping(-scroll.x + prefetchMinX, -scroll.y + prefetchMinY, -scroll.x + prefetchMaxX, -scroll.y + prefetchMaxY, renderGroups);
+		} else {
+			groupCount = unindexed.length;
+		}
+
+		for (int g = 0; g < groupCount; ++g) {
+			final Group group = index != null ? index.group(renderGroups[g]) : unindexed[g];
+
 			if (!showEmptyGroupsProperty.get() && group.model().isEmpty()) {
 				continue;
 			}
@@ -1682,91 +1918,135 @@ public class CardView extends Canvas {
 				continue;
 			}
 
-			final Bounds labelBounds = new Bounds();
-			labelBounds.pos.set(group.labelBounds.pos).plus(scroll);
-			labelBounds.dim.set(group.labelBounds.dim);
+			final double labelX = group.labelBounds.pos.x + scroll.x, labelY = group.labelBounds.pos.y + scroll.y;
+			final double labelW = group.labelBounds.dim.x, labelH = group.labelBounds.dim.y;
 
-			if (labelBounds.pos.x > -labelBounds.dim.x && labelBounds.pos.x < getWidth() && labelBounds.pos.y > -labelBounds.dim.y && labelBounds.pos.y < getHeight()) {
-				renderMap.labels.put(labelBounds, String.format("%s (%d)", group.group.toString(), group.model.total()));
+			if (labelX > -labelW && labelX < width && labelY > -labelH && labelY < height) {
+				renderMap.addLabel(labelX, labelY, labelW, labelH, group.label());
 			}
 
-			final MVec2d gpos = new MVec2d(bounds.pos).plus(scroll);
+			final double gx = bounds.pos.x + scroll.x, gy = bounds.pos.y + scroll.y;
 
-			if (gpos.x < -bounds.dim.x || gpos.x > getWidth() || gpos.y < -bounds.dim.y || gpos.y > getHeight()) {
+			if (gx < prefetchMinX - bounds.dim.x || gx > prefetchMaxX || gy < prefetchMinY - bounds.dim.y || gy > prefetchMaxY) {
 				continue;
 			}
 
-			for (int j = 0; j < group.model().size(); ++j) {
+			renderRangeMin.set(prefetchMinX - gx, prefetchMinY - gy);
+			renderRangeMax.set(prefetchMaxX - gx, prefetchMaxY - gy);
+			final int[] range = renderRange = engine.visibleRange(this, renderRangeMin, renderRangeMax, group.model().size(), renderRange);
+
+			for (int j = range[0]; j < range[1]; ++j) {
 				abs = engine.coordinatesOf(this, j, abs);
 				loc = loc.set(abs).plus(group.groupBounds.pos).plus(scroll);
 
-				if (loc.x < -cardWidth() || loc.x > getWidth() || loc.y < -cardHeight() || loc.y > getHeight()) {
+				if (loc.x < prefetchMinX || loc.x > prefetchMaxX || loc.y < prefetchMinY || loc.y > prefetchMaxY) {
 					continue;
 				}
 
 				final CardInstance ci = group.model().get(j);
 				final Card.Print print = ci.print();
 
-				CompletableFuture<Image> futureImage = Context.get().images.getThumbnail(print);
+				if (loc.x < -cw || loc.x > width || loc.y < -ch || loc.y > height) {
+					if (!Context.get().images.getThumbnail(print, Images.Priority.Prefetch, this).isDone()) {
+						nowRequested.add(print);
+					}
+					continue;
+				}
+
+				CompletableFuture<Image> futureImage = Context.get().images.getThumbnail(print, mip, Images.Priority.Visible, this);
 
 				if (blocking) {
 					try {
 						futureImage.get();
+					} catch (CancellationException ce) {
+						// Somebody else gave up on this image; draw the placeholder, as we would on screen.
 					} catch (InterruptedException | ExecutionException e) {
 						throw new RuntimeException(e);
 					}
-				} else if (!futureImage.isDone() && !waiting.contains(futureImage)) {
-					waiting.add(futureImage);
-					futureImage.thenRun(() -> {
-						this.scheduleRender();
-						waiting.remove(futureImage);
-					});
+				} else if (!futureImage.isDone()) {
+					nowRequested.add(print);
+
+					if (!waiting.contains(futureImage)) {
+						waiting.add(futureImage);
+						// Also re-render on cancellation, in case somebody else cancelled an image we still want.
+						futureImage.whenComplete((img, err) -> {
+							this.scheduleRender();
+							waiting.remove(futureImage);
+						});
+					}
 				}
 
-				EnumSet<CardState> states = EnumSet.noneOf(CardState.class);
+				int states = 0;
 
-				if (showFlags.get()) {
+				if (flags) {
 					if (ci.flags.contains(CardInstance.Flags.Invalid)) {
-						states.add(CardView.CardState.Flagged);
+						states |= CardState.Flagged.bit;
 					}
 
 					if (ci.flags.contains(CardInstance.Flags.Full)) {
-						states.add(CardView.CardState.Full);
+						states |= CardState.Full.bit;
 					}
 
 					if (ci.flags.contains(CardInstance.Flags.Warning)) {
-						states.add(CardView.CardState.Warning);
+						states |= CardState.Warning.bit;
 					}
 
 					if (ci.flags.contains(CardInstance.Flags.Notice)) {
-						states.add(CardView.CardState.Notice);
+						states |= CardState.Notice.bit;
 					}
 				}
 
 				if (hoverCard == ci) {
-					states.add(CardView.CardState.Hover);
+					states |= CardState.Hover.bit;
 				}
 
 				if (selectedCards.contains(ci)) {
-					states.add(CardView.CardState.Selected);
+					states |= CardState.Selected.bit;
 				} else if (selectBehavior.selecting) {
 					if (engine.cardInSelection(this, abs, dragStartLocal, dragEndLocal, group.model().size())) {
-						states.add(CardView.CardState.Selected);
+						states |= CardState.Selected.bit;
 					}
 				}
 
-				renderMap.cards.put(new MVec2d(loc), new RenderMap.CardState(futureImage.getNow(Images.LOADING_CARD), states, group.model.count(group.sortedModel.getSourceIndex(j))));
+				Image image = futureImage.isCompletedExceptionally() ? Images.LOADING_CARD : futureImage.getNow(null);
+				if (image == null) {
+					// Until the reduced thumbnail's ready, the full-size one will do, if we have it.
+					CompletableFuture<Image> fullImage = mip > 0 ? Context.get().images.getThumbnail(print, Images.Priority.Visible, this) : futureImage;
+					image = fullImage.isDone() && !fullImage.isCompletedExceptionally() ? fullImage.getNow(Images.LOADING_CARD) : Images.LOADING_CARD;
+				}
+				renderMap.addCard(loc.x, loc.y, states, group.model.count(group.sortedModel.getSourceIndex(j)), image);
+			}
+		}
+
+		// Anything we asked for last time but don't need now can be dropped from the load queue.
+		for (Card.Print print : requested) {
+			if (!nowRequested.contains(print)) {
+				Context.get().images.releaseThumbnail(print, this);
 			}
 		}
 
+		final Set<Card.Print> tmp = requested;
+		requested = nowRequested;
+		nowRequested = tmp;
+
 		return renderMap;
 	}
 
+	/**
+	 * Lays this view out and records its contents as a frame, without drawing it. Waits for any thumbnails which aren't
+	 * loaded yet, so they should be prefetched first. FX application thread only.
+	 */
+	synchronized RenderMap captureFrame() {
+		layout();
+		return buildRenderMap(new RenderMap(), true);
+	}
+
 	public synchronized void renderNow() throws IllegalStateException {
 		if (!Platform.isFxApplicationThread()) {
 			throw new IllegalStateException("renderNow must be called from the FX Application thread!");
 		}
 
-		drawRenderMap(-1, buildRenderMap(true));
+		renderScheduler.cancelPending();
+		drawRenderMap(buildRenderMap(takeRenderMap(), true), false); // Outside any pulse, so the atlas can't be used.
 	}
 }
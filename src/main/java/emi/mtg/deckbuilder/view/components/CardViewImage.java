@@ -0,0 +1,167 @@
+package emi.mtg.deckbuilder.view.components;
+
+import emi.mtg.deckbuilder.model.Preferences;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.*;
+
+/**
+ * A CardView's contents, captured so they can be drawn into an AWT image away from the FX application thread. Capturing
+ * only lays the view out and records where each card and label goes; thumbnails are converted and composited later,
+ * on whatever thread paints the capture.
+ */
+public class CardViewImage {
+	private final RenderMap frame;
+	private final Map<Integer, Image> badges;
+	private final Color background, text;
+
+	private CardViewImage(RenderMap frame, Map<Integer, Image> badges, Color background, Color text) {
+		this.frame = frame;
+		this.badges = badges;
+		this.background = background;
+		this.text = text;
+	}
+
+	/**
+	 * Captures a view at its current size. Its thumbnails should already be loaded. FX application thread only.
+	 *
+	 * @param view The view to capture.
+	 * @return The captured contents.
+	 */
+	public static CardViewImage capture(CardView view) {
+		final RenderMap frame = view.captureFrame();
+
+		// Badges are drop-shadowed text snapshots, which have to be made on the FX thread.
+		final Map<Integer, Image> badges = new HashMap<>();
+		for (int i = 0; i < frame.cards; ++i) {
+			if (frame.cardCounts[i] != 1) badges.computeIfAbsent(frame.cardCounts[i], c -> view.badge(c, frame.cardHeight));
+		}
+
+		return new CardViewImage(frame, badges, Preferences.get().theme.base, Preferences.get().theme.base.invert());
+	}
+
+	public int width() {
+		return (int) Math.ceil(frame.width);
+	}
+
+	public int height() {
+		return (int) Math.ceil(frame.height);
+	}
+
+	/**
+	 * @return Every distinct image this capture draws, so callers can convert them ahead of time, e.g. in parallel.
+	 */
+	public Set<Image> images() {
+		final Set<Image> images = Collections.newSetFromMap(new IdentityHashMap<>());
+		images.addAll(Arrays.asList(frame.cardImages).subList(0, frame.cards));
+		images.addAll(badges.values());
+		return images;
+	}
+
+	/**
+	 * Converts an FX image for painting.
+	 *
+	 * @param image The image, which must be fully loaded.
+	 * @return An AWT copy of the image.
+	 */
+	public static BufferedImage convert(Image image) {
+		return SwingFXUtils.fromFXImage(image, null);
+	}
+
+	/**
+	 * Draws this capture. Can be called from any thread.
+	 *
+	 * @param target The graphics to draw into.
+	 * @param x The left edge to draw at.
+	 * @param y The top edge to draw at.
+	 * @param converted AWT copies of FX images, from convert. Images missing from here are converted and added.
+	 */
+	public void paint(Graphics2D target, double x, double y, Map<Image, BufferedImage> converted) {
+		final Graphics2D g = (Graphics2D) target.create();
+
+		try {
+			g.translate(x, y);
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+			g.setColor(awt(background));
+			g.fill(new Rectangle2D.Double(0, 0, frame.width, frame.height));
+
+			g.setColor(awt(text));
+			for (int i = 0; i < frame.labels; ++i) {
+				paintLabel(g, frame.labelText[i], frame.labelX[i], frame.labelY[i], frame.labelW[i], frame.labelH[i]);
+			}
+
+			final double cw = frame.cardWidth, ch = frame.cardHeight;
+			final CardView.CardState[] allStates = CardView.CardState.values();
+
+			for (int i = 0; i < frame.cards; ++i) {
+				final double cx = frame.cardX[i], cy = frame.cardY[i];
+
+				final BufferedImage card = converted.computeIfAbsent(frame.cardImages[i], CardViewImage::convert);
+				g.drawImage(card, new AffineTransform(cw / card.getWidth(), 0, 0, ch / card.getHeight(), cx, cy), null);
+
+				boolean drewFill = false, drewOutline = false;
+				for (CardView.CardState state : allStates) {
+					if ((frame.cardStates[i] & state.bit) == 0) continue;
+
+					final Color fill = state.fillColor.get(), outline = state.outlineColor.get();
+
+					if (!drewFill && fill != Color.TRANSPARENT) {
+						drewFill = true;
+						g.setColor(awt(fill));
+						g.fill(new RoundRectangle2D.Double(cx, cy, cw, ch, cw / 8.0, cw / 8.0));
+					}
+
+					if (!drewOutline && outline != Color.TRANSPARENT) {
+						drewOutline = true;
+						g.setColor(awt(outline));
+						g.setStroke(new BasicStroke(6.0f));
+						g.draw(new RoundRectangle2D.Double(cx, cy, cw, ch, cw / 12.0, cw / 12.0));
+					}
+				}
+
+				if (frame.cardCounts[i] != 1) {
+					final BufferedImage badge = converted.computeIfAbsent(badges.get(frame.cardCounts[i]), CardViewImage::convert);
+					g.drawImage(badge, AffineTransform.getTranslateInstance(
+							cx + cw * 0.95 - badge.getWidth() + CardView.BADGE_SHADOW,
+							cy + cw * 0.035 - badge.getHeight() / 2.0), null);
+				}
+			}
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * Draws text centered in a box, shrunk to fit its width, as GraphicsContext.fillText does with a maximum width.
+	 */
+	static void paintLabel(Graphics2D g, String label, double x, double y, double w, double h) {
+		Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 1).deriveFont((float) h);
+		FontMetrics metrics = g.getFontMetrics(font);
+
+		final double textWidth = metrics.stringWidth(label);
+		if (textWidth > w && textWidth > 0) {
+			font = font.deriveFont((float) (h * w / textWidth));
+			metrics = g.getFontMetrics(font);
+		}
+
+		g.setFont(font);
+		g.drawString(label,
+				(float) (x + (w - metrics.stringWidth(label)) / 2.0),
+				(float) (y + h / 2.0 + (metrics.getAscent() - metrics.getDescent()) / 2.0));
+	}
+
+	public static java.awt.Color awt(Color color) {
+		return new java.awt.Color((float) color.getRed(), (float) color.getGreen(), (float) color.getBlue(), (float) color.getOpacity());
+	}
+}
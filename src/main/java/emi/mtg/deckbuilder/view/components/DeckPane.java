@@ -10,20 +10,22 @@ import emi.mtg.deckbuilder.model.Preferences;
 import emi.mtg.deckbuilder.view.dialogs.PrintSelectorDialog;
 import emi.mtg.deckbuilder.view.groupings.ManaValue;
 import emi.mtg.deckbuilder.view.layouts.Piles;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanBinding;
 import javafx.beans.property.*;
+import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableObjectValue;
+import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
-import javafx.scene.Node;
+import javafx.collections.ObservableSet;
 import javafx.scene.control.*;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class DeckPane extends SplitPane {
 	private final EnumMap<Zone, CardPane> paneMap;
@@ -35,14 +37,35 @@ public class DeckPane extends SplitPane {
 	private BooleanBinding useCutboard;
 
 	private final ListChangeListener<CardInstance> deckListChangedListener;
+	private final ValidationScheduler validation;
+
+	// Copy counts are only touched on the FX application thread.
+	private final Map<Card, Integer> copyCounts;
+	private final AtomicBoolean recountPending;
+	private final ObservableSet<Card> fullCards, fullCardsView;
+	private final ListChangeListener<CardInstance> copyCountListener;
+	private final ChangeListener<Format> formatListener;
 
 	public DeckPane(DeckList deck) {
 		super();
 		this.paneMap = new EnumMap<>(Zone.class);
 		this.deck = deck;
 
+		this.copyCounts = new HashMap<>();
+		this.recountPending = new AtomicBoolean(false);
+		this.fullCards = FXCollections.observableSet(new HashSet<>());
+		this.fullCardsView = FXCollections.unmodifiableObservableSet(fullCards);
+		this.copyCountListener = this::countCopies;
+		this.formatListener = (obs, oldFormat, newFormat) -> recountCopies();
+
+		deck.cards().values().forEach(l -> l.addListener(copyCountListener));
+		deck.formatProperty().addListener(formatListener);
+		recountCopies();
+
+		this.validation = new ValidationScheduler(deck, this::updateCardStates);
+
 		deckListChangedListener =  lce -> {
-			if (getAutoValidate()) updateCardStates(deck.validate());
+			if (getAutoValidate()) validation.request();
 			deck.modifiedProperty().set(true);
 			if (onDeckChanged.get() != null) onDeckChanged.get().onChanged(lce);
 		};
@@ -62,7 +85,12 @@ public class DeckPane extends SplitPane {
 			autoValidate = new BooleanPropertyBase() {
 				@Override
 				protected void invalidated() {
-					updateCardStates(getAutoValidate() ? deck.validate() : null);
+					if (getAutoValidate()) {
+						validation.request();
+					} else {
+						validation.cancel();
+						updateCardStates(null);
+					}
 				}
 
 				@Override
@@ -194,57 +222,110 @@ public class DeckPane extends SplitPane {
 		onDeckChangedProperty().set(listener);
 	}
 
+	/**
+	 * Applies a validation result to the deck's cards. Only cards whose flags actually change are touched, and only the
+	 * zones holding them are redrawn.
+	 *
+	 * @param result The validation result, or null to clear every card's validation state.
+	 */
 	public void updateCardStates(Format.Validator.Result result) {
-		Stream<CardInstance> stream = deck.cards().values().stream()
-				.flatMap(ObservableList::stream);
+		for (Map.Entry<Zone, ObservableList<CardInstance>> zone : deck.cards().entrySet()) {
+			boolean changed = false;
+			for (CardInstance ci : zone.getValue()) {
+				changed |= updateCardState(ci, result == null ? null : result.cards.get(ci));
+			}
 
-		stream.forEach(ci -> {
-			Format.Validator.Result.CardResult cr = ci.lastValidation = (result == null ? null : result.cards.get(ci));
+			if (changed && zonePane(zone.getKey()) != null) zonePane(zone.getKey()).view().scheduleRender();
+		}
 
-			if (cr == null) {
-				ci.flags.clear();
-				return;
-			}
+		boolean cutChanged = false;
+		for (CardInstance ci : deck.cutCards()) {
+			cutChanged |= !ci.flags.isEmpty();
+			ci.flags.clear();
+		}
 
-			if (cr.errors.isEmpty())
-				ci.flags.remove(CardInstance.Flags.Invalid);
-			else
-				ci.flags.add(CardInstance.Flags.Invalid);
+		if (cutChanged && cutCardsPane != null) cutCardsPane.view().scheduleRender();
+	}
 
-			if (cr.warnings.isEmpty())
-				ci.flags.remove(CardInstance.Flags.Warning);
-			else
-				ci.flags.add(CardInstance.Flags.Warning);
+	private static boolean updateCardState(CardInstance ci, Format.Validator.Result.CardResult cr) {
+		ci.lastValidation = cr;
 
-			if (cr.notices.isEmpty())
-				ci.flags.remove(CardInstance.Flags.Notice);
-			else
-				ci.flags.add(CardInstance.Flags.Notice);
-		});
+		if (cr == null) {
+			if (ci.flags.isEmpty()) return false;
+			ci.flags.clear();
+			return true;
+		}
 
-		for (Node zonePane : getItems()) {
-			if (zonePane instanceof CardPane) {
-				((CardPane) zonePane).view().scheduleRender();
-			}
+		boolean changed = setFlag(ci, CardInstance.Flags.Invalid, !cr.errors.isEmpty());
+		changed |= setFlag(ci, CardInstance.Flags.Warning, !cr.warnings.isEmpty());
+		changed |= setFlag(ci, CardInstance.Flags.Notice, !cr.notices.isEmpty());
+		return changed;
+	}
+
+	private static boolean setFlag(CardInstance ci, CardInstance.Flags flag, boolean set) {
+		return set ? ci.flags.add(flag) : ci.flags.remove(flag);
+	}
+
+	/**
+	 * @return The cards with at least the format's maximum number of copies across the deck's zones. Kept up to date as
+	 * the deck changes, so listeners only hear about cards crossing that limit. Changes are made on the FX application
+	 * thread.
+	 */
+	public ObservableSet<Card> fullCards() {
+		return fullCardsView;
+	}
+
+	private void countCopies(ListChangeListener.Change<? extends CardInstance> lce) {
+		if (!Platform.isFxApplicationThread()) {
+			// A change from another thread can't be ordered against the counts, so count again on the FX thread.
+			recountCopies();
+			return;
 		}
 
-		deck.cutCards().forEach(ci -> ci.flags.clear());
+		final int maxCopies = deck.format().cardCount.maxCopies;
+
+		while (lce.next()) {
+			for (CardInstance ci : lce.getRemoved()) countCopies(ci.card(), -1, maxCopies);
+			for (CardInstance ci : lce.getAddedSubList()) countCopies(ci.card(), 1, maxCopies);
+		}
 	}
 
-	public Set<Card> fullCards() {
-		Map<Card, AtomicInteger> histo = new HashMap<>();
-		Set<Card> fullCards = new HashSet<>();
+	private void countCopies(Card card, int delta, int maxCopies) {
+		final int copies = copyCounts.merge(card, delta, Integer::sum);
+		if (copies <= 0) copyCounts.remove(card);
 
+		if (copies >= maxCopies) {
+			fullCards.add(card);
+		} else {
+			fullCards.remove(card);
+		}
+	}
+
+	/**
+	 * Counts every card in the deck from scratch, e.g. because the format (and so the copy limit) changed, or the deck's
+	 * card instances were refreshed after a data reload. Called off the FX application thread, the count is made there
+	 * later.
+	 */
+	public void recountCopies() {
+		if (!Platform.isFxApplicationThread()) {
+			if (recountPending.compareAndSet(false, true)) Platform.runLater(this::recountCopies);
+			return;
+		}
+
+		recountPending.set(false);
+		copyCounts.clear();
 		deck.cards().values().stream()
 				.flatMap(ObservableList::stream)
-				.map(CardInstance::card)
-				.forEach(c -> {
-					if (histo.computeIfAbsent(c, x -> new AtomicInteger(0)).incrementAndGet() >= deck.format().cardCount.maxCopies) {
-						fullCards.add(c);
-					}
-				});
+				.forEach(ci -> copyCounts.merge(ci.card(), 1, Integer::sum));
+
+		final int maxCopies = deck.format().cardCount.maxCopies;
+		final Set<Card> full = copyCounts.entrySet().stream()
+				.filter(e -> e.getValue() >= maxCopies)
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toSet());
 
-		return fullCards;
+		fullCards.retainAll(full);
+		fullCards.addAll(full);
 	}
 
 	public CardPane zonePane(Zone zone) {
@@ -295,7 +376,7 @@ public class DeckPane extends SplitPane {
 				})
 				.collect(Collectors.toList()));
 		setDividerPosition(0, 0.85);
-		if (getAutoValidate()) updateCardStates(deck.validate());
+		if (getAutoValidate()) validation.request();
 
 		cutCardsPane = new CardPane(
 				"Cut Cards",
@@ -319,9 +400,14 @@ public class DeckPane extends SplitPane {
 	}
 
 	public void closing() {
+		validation.cancel();
+		deck.cards().values().forEach(l -> l.removeListener(copyCountListener));
+		deck.formatProperty().removeListener(formatListener);
 		paneMap.keySet().stream()
 				.map(deck::cards)
 				.forEach(l -> l.removeListener(deckListChangedListener));
+		paneMap.values().forEach(CardPane::closing);
+		if (cutCardsPane != null) cutCardsPane.closing();
 	}
 
 	private CardView.ContextMenu createDeckContextMenu(CardPane pane, Zone zone) {
@@ -1,8 +1,12 @@
 package emi.mtg.deckbuilder.view.components;
 
+import emi.lib.mtg.Card;
 import emi.lib.mtg.game.Format;
+import emi.mtg.deckbuilder.controller.Context;
 import emi.mtg.deckbuilder.controller.DeckChanger;
+import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.model.DeckList;
+import emi.mtg.deckbuilder.view.Images;
 import emi.mtg.deckbuilder.view.MainWindow;
 import emi.mtg.deckbuilder.view.dialogs.DeckInfoDialog;
 import javafx.application.Platform;
@@ -12,6 +16,9 @@ import javafx.scene.control.*;
 import javafx.scene.input.*;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 public class DeckTab extends Tab {
 	public static final DataFormat DRAGGED_TAB = new DataFormat("application/deckbuilder-dragged-tab");
@@ -20,6 +27,7 @@ public class DeckTab extends Tab {
 	private final DeckPane pane;
 	private final Label label;
 	private final TextField textField;
+	private final Images.WarmUp warmUp;
 
 	public DeckTab(DeckPane pane) {
 		super();
@@ -113,6 +121,37 @@ public class DeckTab extends Tab {
 
 		ContextMenu menu = new ContextMenu(deckInfo, undock, duplicate, export);
 		setContextMenu(menu);
+
+		this.warmUp = warmUpDeck();
+	}
+
+	/**
+	 * Starts loading thumbnails for every card in the deck, showing progress beside the tab's name until they're in.
+	 */
+	private Images.WarmUp warmUpDeck() {
+		final List<Card.Print> prints = pane.deck().cards().values().stream()
+				.flatMap(List::stream)
+				.map(CardInstance::print)
+				.collect(Collectors.toList());
+		if (prints.isEmpty()) return null;
+
+		final ProgressIndicator indicator = new ProgressIndicator(0.0);
+		indicator.setPrefSize(12.0, 12.0);
+		indicator.setMaxSize(12.0, 12.0);
+		label.setGraphic(indicator);
+
+		final AtomicLong lastUpdate = new AtomicLong(0);
+		final Images.WarmUp warmUp = Context.get().images.warmUp(prints, 0, d -> {
+			if (d < 0.999 && System.nanoTime() - lastUpdate.get() < 1e9 / 30) return;
+			lastUpdate.set(System.nanoTime());
+			Platform.runLater(() -> indicator.setProgress(d));
+		});
+
+		warmUp.completion().whenComplete((v, t) -> Platform.runLater(() -> {
+			if (label.getGraphic() == indicator) label.setGraphic(null);
+		}));
+
+		return warmUp;
 	}
 
 	public DeckPane pane() {
@@ -138,6 +177,7 @@ public class DeckTab extends Tab {
 
 	protected void reallyForceClose(Event close) {
 		getTabPane().getTabs().remove(DeckTab.this);
+		if (warmUp != null) warmUp.cancel();
 		pane.closing();
 		if (getOnClosed() != null) getOnClosed().handle(close);
 	}
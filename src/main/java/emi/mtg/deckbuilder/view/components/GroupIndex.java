@@ -0,0 +1,188 @@
+package emi.mtg.deckbuilder.view.components;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the bounds of a CardView's groups, built each time the view is laid out. Hit-tests look in one
+ * cell instead of scanning every group, and viewport queries only visit the cells the viewport overlaps.
+ *
+ * Cells are sized to the average group, so a column of full-width groups becomes a single column of cells, and a row
+ * of piles a single row. A group is entered in every cell its group and label bounds overlap.
+ *
+ * The index is immutable once built and holds no per-query state, so it can be read from the FX thread and a render
+ * thread at once.
+ */
+class GroupIndex {
+	private static final int MAX_CELLS_PER_GROUP = 4;
+
+	private final CardView.Group[] groups;
+	private final double[] minX, minY, maxX, maxY;
+	private final int[] minCol, minRow;
+
+	private final double originX, originY, cellW, cellH;
+	private final int cols, rows;
+	private final int[][] cells;
+
+	/**
+	 * @param groups The groups, in drawing order. Groups which were laid out with empty bounds are left out.
+	 */
+	GroupIndex(CardView.Group[] groups) {
+		int n = 0;
+		CardView.Group[] kept = new CardView.Group[groups.length];
+		for (CardView.Group group : groups) {
+			if (group == null) continue;
+
+			final CardView.Bounds bounds = group.groupBounds;
+			if (bounds.pos.x == 0 && bounds.pos.y == 0 && (bounds.dim.x == 0 || bounds.dim.y == 0)) continue;
+
+			kept[n++] = group;
+		}
+
+		this.groups = Arrays.copyOf(kept, n);
+		this.minX = new double[n];
+		this.minY = new double[n];
+		this.maxX = new double[n];
+		this.maxY = new double[n];
+		this.minCol = new int[n];
+		this.minRow = new int[n];
+
+		double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+		double sumW = 0.0, sumH = 0.0;
+		for (int i = 0; i < n; ++i) {
+			final CardView.Bounds g = this.groups[i].groupBounds, l = this.groups[i].labelBounds;
+			minX[i] = Math.min(g.pos.x, l.pos.x);
+			minY[i] = Math.min(g.pos.y, l.pos.y);
+			maxX[i] = Math.max(g.pos.x + g.dim.x, l.pos.x + l.dim.x);
+			maxY[i] = Math.max(g.pos.y + g.dim.y, l.pos.y + l.dim.y);
+
+			x0 = Math.min(x0, minX[i]);
+			y0 = Math.min(y0, minY[i]);
+			x1 = Math.max(x1, maxX[i]);
+			y1 = Math.max(y1, maxY[i]);
+			sumW += maxX[i] - minX[i];
+			sumH += maxY[i] - minY[i];
+		}
+
+		if (n == 0) {
+			this.originX = this.originY = 0.0;
+			this.cellW = this.cellH = 1.0;
+			this.cols = this.rows = 0;
+			this.cells = new int[0][];
+			return;
+		}
+
+		this.originX = x0;
+		this.originY = y0;
+
+		int cols = Math.max(1, (int) Math.ceil((x1 - x0) / Math.max(1.0, sumW / n)));
+		int rows = Math.max(1, (int) Math.ceil((y1 - y0) / Math.max(1.0, sumH / n)));
+
+		// Wildly uneven groups could ask for far more cells than groups; coarsen the grid if so.
+		while ((long) cols * rows > (long) MAX_CELLS_PER_GROUP * n) {
+			if (cols >= rows) cols = (cols + 1) / 2;
+			else rows = (rows + 1) / 2;
+		}
+
+		this.cols = cols;
+		this.rows = rows;
+		this.cellW = Math.max(1.0, (x1 - x0) / cols);
+		this.cellH = Math.max(1.0, (y1 - y0) / rows);
+
+		final int[] counts = new int[cols * rows];
+		for (int i = 0; i < n; ++i) {
+			minCol[i] = col(minX[i]);
+			minRow[i] = row(minY[i]);
+			for (int r = minRow[i], r1 = row(maxY[i]); r <= r1; ++r) {
+				for (int c = minCol[i], c1 = col(maxX[i]); c <= c1; ++c) {
+					++counts[r * cols + c];
+				}
+			}
+		}
+
+		this.cells = new int[cols * rows][];
+		for (int i = 0; i < cells.length; ++i) cells[i] = new int[counts[i]];
+		Arrays.fill(counts, 0);
+
+		// Groups are visited in order, so each cell lists its groups in drawing order.
+		for (int i = 0; i < n; ++i) {
+			for (int r = minRow[i], r1 = row(maxY[i]); r <= r1; ++r) {
+				for (int c = minCol[i], c1 = col(maxX[i]); c <= c1; ++c) {
+					final int cell = r * cols + c;
+					cells[cell][counts[cell]++] = i;
+				}
+			}
+		}
+	}
+
+	private int col(double x) {
+		return Math.max(0, Math.min(cols - 1, (int) Math.floor((x - originX) / cellW)));
+	}
+
+	private int row(double y) {
+		return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - originY) / cellH)));
+	}
+
+	/**
+	 * @return The number of groups indexed.
+	 */
+	int size() {
+		return groups.length;
+	}
+
+	CardView.Group group(int i) {
+		return groups[i];
+	}
+
+	/**
+	 * Finds the first group whose group bounds (and, optionally, label bounds) contain a point.
+	 *
+	 * @param point The point, in layout coordinates.
+	 * @param includeLabels Whether a point over a group's label counts as over the group.
+	 * @return The group, or null if there isn't one there.
+	 */
+	CardView.Group groupAt(CardView.MVec2d point, boolean includeLabels) {
+		if (cells.length == 0) return null;
+		if (point.x < originX || point.y < originY || point.x > originX + cols * cellW || point.y > originY + rows * cellH) return null;
+
+		for (int i : cells[row(point.y) * cols + col(point.x)]) {
+			final CardView.Group group = groups[i];
+			if (group.groupBounds.contains(point) || includeLabels && group.labelBounds.contains(point)) {
+				return group;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Collects the groups whose group or label bounds overlap a rectangle, in drawing order.
+	 *
+	 * @param x0 The rectangle's left edge, in layout coordinates.
+	 * @param y0 The rectangle's top edge.
+	 * @param x1 The rectangle's right edge.
+	 * @param y1 The rectangle's bottom edge.
+	 * @param into An array to fill with the groups' indices. Must have room for {@link #size()} entries.
+	 * @return The number of groups found.
+	 */
+	int overlapping(double x0, double y0, double x1, double y1, int[] into) {
+		if (cells.length == 0 || x1 < originX || y1 < originY || x0 > originX + cols * cellW || y0 > originY + rows * cellH) return 0;
+
+		final int c0 = col(x0), c1 = col(x1), r0 = row(y0), r1 = row(y1);
+		int n = 0;
+
+		for (int r = r0; r <= r1; ++r) {
+			for (int c = c0; c <= c1; ++c) {
+				for (int i : cells[r * cols + c]) {
+					// A group spanning several cells is only reported from the first of them the rectangle touches.
+					if (c != Math.max(c0, minCol[i]) || r != Math.max(r0, minRow[i])) continue;
+					if (maxX[i] < x0 || minX[i] > x1 || maxY[i] < y0 || minY[i] > y1) continue;
+
+					into[n++] = i;
+				}
+			}
+		}
+
+		Arrays.sort(into, 0, n);
+		return n;
+	}
+}
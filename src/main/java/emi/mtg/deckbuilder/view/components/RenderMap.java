@@ -0,0 +1,126 @@
+package emi.mtg.deckbuilder.view.components;
+
+import javafx.scene.image.Image;
+
+import java.util.Arrays;
+
+/**
+ * One frame of a CardView: where each visible card and group label goes, and how to draw it. Cards and labels are
+ * stored as parallel arrays in the order they're drawn, and the arrays are kept between frames, so once a map has grown
+ * to fit a view, building another frame into it allocates nothing.
+ *
+ * A map is built on a render thread, then handed to the FX application thread to be drawn; it isn't thread-safe.
+ */
+class RenderMap {
+	private static final int INITIAL_CARDS = 256, INITIAL_LABELS = 16;
+
+	double width, height, cardWidth, cardHeight;
+
+	int cards;
+	double[] cardX, cardY;
+	int[] cardStates, cardCounts;
+	Image[] cardImages;
+
+	int labels;
+	double[] labelX, labelY, labelW, labelH;
+	String[] labelText;
+
+	boolean hovering;
+	final CardView.Bounds hoverGroupBounds;
+
+	// Filled in when the map is drawn, since selection changes don't go through buildRenderMap.
+	boolean selecting;
+	final CardView.Bounds selection;
+
+	RenderMap() {
+		this.cardX = new double[INITIAL_CARDS];
+		this.cardY = new double[INITIAL_CARDS];
+		this.cardStates = new int[INITIAL_CARDS];
+		this.cardCounts = new int[INITIAL_CARDS];
+		this.cardImages = new Image[INITIAL_CARDS];
+
+		this.labelX = new double[INITIAL_LABELS];
+		this.labelY = new double[INITIAL_LABELS];
+		this.labelW = new double[INITIAL_LABELS];
+		this.labelH = new double[INITIAL_LABELS];
+		this.labelText = new String[INITIAL_LABELS];
+
+		this.hoverGroupBounds = new CardView.Bounds();
+		this.selection = new CardView.Bounds();
+	}
+
+	/**
+	 * Empties this map for a new frame, keeping its arrays.
+	 */
+	void reset(double width, double height, double cardWidth, double cardHeight) {
+		this.width = width;
+		this.height = height;
+		this.cardWidth = cardWidth;
+		this.cardHeight = cardHeight;
+
+		Arrays.fill(cardImages, 0, cards, null);
+		Arrays.fill(labelText, 0, labels, null);
+		this.cards = 0;
+		this.labels = 0;
+
+		this.hovering = false;
+		this.selecting = false;
+	}
+
+	void addCard(double x, double y, int states, int count, Image image) {
+		if (cards == cardX.length) {
+			final int capacity = cards * 2;
+			cardX = Arrays.copyOf(cardX, capacity);
+			cardY = Arrays.copyOf(cardY, capacity);
+			cardStates = Arrays.copyOf(cardStates, capacity);
+			cardCounts = Arrays.copyOf(cardCounts, capacity);
+			cardImages = Arrays.copyOf(cardImages, capacity);
+		}
+
+		cardX[cards] = x;
+		cardY[cards] = y;
+		cardStates[cards] = states;
+		cardCounts[cards] = count;
+		cardImages[cards] = image;
+		++cards;
+	}
+
+	void addLabel(double x, double y, double w, double h, String text) {
+		if (labels == labelX.length) {
+			final int capacity = labels * 2;
+			labelX = Arrays.copyOf(labelX, capacity);
+			labelY = Arrays.copyOf(labelY, capacity);
+			labelW = Arrays.copyOf(labelW, capacity);
+			labelH = Arrays.copyOf(labelH, capacity);
+			labelText = Arrays.copyOf(labelText, capacity);
+		}
+
+		labelX[labels] = x;
+		labelY[labels] = y;
+		labelW[labels] = w;
+		labelH[labels] = h;
+		labelText[labels] = text;
+		++labels;
+	}
+
+	/**
+	 * @return How far a card's outline and count badge can reach outside its bounds.
+	 */
+	double cardMargin() {
+		return 8.0 + cardHeight / 16.0;
+	}
+
+	/**
+	 * @return True if card i in this map is drawn identically to card j in another, in the same place.
+	 */
+	boolean sameCard(int i, RenderMap other, int j) {
+		return cardX[i] == other.cardX[j] && cardY[i] == other.cardY[j] && cardStates[i] == other.cardStates[j] && cardCounts[i] == other.cardCounts[j] && cardImages[i] == other.cardImages[j];
+	}
+
+	/**
+	 * @return True if label i in this map is drawn identically to label j in another.
+	 */
+	boolean sameLabel(int i, RenderMap other, int j) {
+		return labelX[i] == other.labelX[j] && labelY[i] == other.labelY[j] && labelW[i] == other.labelW[j] && labelH[i] == other.labelH[j] && labelText[i].equals(other.labelText[j]);
+	}
+}
@@ -0,0 +1,200 @@
+package emi.mtg.deckbuilder.view.components;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Paces a view's frames to the FX pulse. Render requests only set a dirty flag; on the next pulse, if the view is dirty
+ * and no frame is already being built, one frame is built on the common pool, and it's drawn on the pulse after it's
+ * done. However many requests arrive in between (a screenful of thumbnails landing at once, say) they cost one build.
+ *
+ * The timer only runs while there's something to build or draw, so idle views don't keep the pulse going.
+ *
+ * @param <F> The type of frame built and drawn.
+ */
+public class RenderScheduler<F> extends AnimationTimer {
+	public static class Stats {
+		public final long requests, built, drawn, dropped, buildNanos, maxBuildNanos;
+
+		public Stats(long requests, long built, long drawn, long dropped, long buildNanos, long maxBuildNanos) {
+			this.requests = requests;
+			this.built = built;
+			this.drawn = drawn;
+			this.dropped = dropped;
+			this.buildNanos = buildNanos;
+			this.maxBuildNanos = maxBuildNanos;
+		}
+
+		/**
+		 * @return The fraction of render requests which were folded into another request's frame.
+		 */
+		public double coalesceRate() {
+			return requests == 0 ? 0.0 : 1.0 - (double) built / (double) requests;
+		}
+
+		public double meanBuildMillis() {
+			return built == 0 ? 0.0 : buildNanos / 1e6 / built;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d requests, %d frames built (%.1f%% coalesced), %d drawn, %d dropped, %.2f ms mean build, %.2f ms max build",
+					requests, built, coalesceRate() * 100.0, drawn, dropped, meanBuildMillis(), maxBuildNanos / 1e6);
+		}
+	}
+
+	private static final LongAdder totalRequests = new LongAdder(), totalBuilt = new LongAdder(), totalDrawn = new LongAdder(),
+			totalDropped = new LongAdder(), totalBuildNanos = new LongAdder();
+	private static volatile long totalMaxBuildNanos = 0;
+
+	/**
+	 * @return Counters summed over every view's scheduler since startup.
+	 */
+	public static Stats totals() {
+		return new Stats(totalRequests.sum(), totalBuilt.sum(), totalDrawn.sum(), totalDropped.sum(), totalBuildNanos.sum(), totalMaxBuildNanos);
+	}
+
+	private final Supplier<F> build;
+	private final Consumer<F> draw, discard;
+
+	private final AtomicBoolean running = new AtomicBoolean(false);
+	private volatile boolean dirty = false;
+
+	// Guarded by this.
+	private boolean building = false;
+	private F pending = null;
+	private long requests, built, drawn, dropped, buildNanos, maxBuildNanos;
+
+	/**
+	 * @param build Builds a frame. Called on the common pool, never concurrently with itself. May return null if there's
+	 *              nothing to draw.
+	 * @param draw Draws a frame. Called on the FX application thread.
+	 * @param discard Disposes of a frame which was built but will never be drawn.
+	 */
+	RenderScheduler(Supplier<F> build, Consumer<F> draw, Consumer<F> discard) {
+		this.build = build;
+		this.draw = draw;
+		this.discard = discard;
+	}
+
+	/**
+	 * Marks the view dirty. A frame will be built on a coming pulse. Can be called from any thread.
+	 */
+	public void request() {
+		synchronized (this) {
+			++requests;
+		}
+		totalRequests.increment();
+
+		dirty = true;
+		if (!running.getAndSet(true)) {
+			if (Platform.isFxApplicationThread()) {
+				start();
+			} else {
+				Platform.runLater(this::start);
+			}
+		}
+	}
+
+	@Override
+	public void handle(long now) {
+		ThumbnailAtlas.get().pulse(now);
+
+		final F frame;
+		final boolean idle;
+
+		synchronized (this) {
+			frame = pending;
+			pending = null;
+
+			if (dirty && !building) {
+				dirty = false;
+				building = true;
+				ForkJoinPool.commonPool().submit(this::build);
+			}
+
+			idle = !building && !dirty;
+		}
+
+		if (frame != null) {
+			draw.accept(frame);
+
+			synchronized (this) {
+				++drawn;
+			}
+			totalDrawn.increment();
+		}
+
+		if (idle) {
+			stop();
+			running.set(false);
+
+			// A request may have come in after we checked, and seen the timer still running.
+			if (dirty && !running.getAndSet(true)) {
+				start();
+			}
+		}
+	}
+
+	private void build() {
+		final long start = System.nanoTime();
+		F frame = null;
+
+		try {
+			frame = build.get();
+		} finally {
+			final long elapsed = System.nanoTime() - start;
+			F superseded = null;
+
+			synchronized (this) {
+				building = false;
+				++built;
+				buildNanos += elapsed;
+				maxBuildNanos = Math.max(maxBuildNanos, elapsed);
+
+				if (frame != null) {
+					superseded = pending;
+					pending = frame;
+					if (superseded != null) ++dropped;
+				}
+			}
+
+			totalBuilt.increment();
+			totalBuildNanos.add(elapsed);
+			if (elapsed > totalMaxBuildNanos) totalMaxBuildNanos = elapsed;
+
+			if (superseded != null) {
+				totalDropped.increment();
+				discard.accept(superseded);
+			}
+		}
+	}
+
+	/**
+	 * Discards any frame waiting to be drawn, e.g. because the view has just been drawn synchronously.
+	 */
+	void cancelPending() {
+		final F frame;
+
+		synchronized (this) {
+			frame = pending;
+			pending = null;
+			if (frame != null) ++dropped;
+		}
+
+		if (frame != null) {
+			totalDropped.increment();
+			discard.accept(frame);
+		}
+	}
+
+	public synchronized Stats stats() {
+		return new Stats(requests, built, drawn, dropped, buildNanos, maxBuildNanos);
+	}
+}
@@ -0,0 +1,216 @@
+package emi.mtg.deckbuilder.view.components;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Packs thumbnails into a few large pages, so a canvas full of cards draws from a handful of textures instead of binding
+ * a new one per card. Each distinct thumbnail size (i.e. mip level) gets its own sheet of pages divided into equal
+ * slots, with a one-pixel gutter so filtering doesn't pull in a neighbour. Slots are reused least-recently-drawn first.
+ *
+ * A canvas only rasterizes its drawing commands at the end of the pulse they were issued in, so a slot drawn from can't
+ * be overwritten until that pulse has passed; slots drawn during the current pulse are never evicted. RenderScheduler
+ * marks each pulse; drawing from the atlas outside of one (e.g. CardView.renderNow) isn't allowed.
+ *
+ * The atlas only holds its thumbnails weakly, so it never keeps an image alive after the image cache has let it go;
+ * such thumbnails' slots are freed at the next pulse. There are at most a few sheets and pages in all. If a thumbnail
+ * can't be packed within those limits, or a sheet is full of slots drawn this pulse, callers draw it directly.
+ *
+ * Shared between every CardView. FX application thread only.
+ */
+public class ThumbnailAtlas {
+	private static final int PAGE_SIZE = 1024, GUTTER = 1, MAX_PAGES_PER_SHEET = 4, MAX_SHEETS = 8, MAX_PAGES = 16;
+
+	public static class Stats {
+		public final int sheets, pages, resident;
+		public final long uploads, evictions;
+
+		public Stats(int sheets, int pages, int resident, long uploads, long evictions) {
+			this.sheets = sheets;
+			this.pages = pages;
+			this.resident = resident;
+			this.uploads = uploads;
+			this.evictions = evictions;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d sheets, %d pages, %d thumbnails resident, %d uploads, %d evictions", sheets, pages, resident, uploads, evictions);
+		}
+	}
+
+	private static ThumbnailAtlas instance;
+
+	public static ThumbnailAtlas get() {
+		if (instance == null) instance = new ThumbnailAtlas();
+		return instance;
+	}
+
+	/**
+	 * A weak reference to a resident thumbnail, which compares by the thumbnail's identity while it's alive.
+	 */
+	private static class Key extends WeakReference<Image> {
+		private final Sheet sheet;
+		private final int hash;
+
+		Key(Image image, Sheet sheet, ReferenceQueue<Image> queue) {
+			super(image, queue);
+			this.sheet = sheet;
+			this.hash = System.identityHashCode(image);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof Key)) return false;
+			final Image image = get();
+			return image != null && image == ((Key) obj).get();
+		}
+	}
+
+	private static class Slot {
+		final WritableImage page;
+		final int x, y;
+		long epoch;
+
+		Slot(WritableImage page, int x, int y) {
+			this.page = page;
+			this.x = x;
+			this.y = y;
+			this.epoch = -1;
+		}
+	}
+
+	private class Sheet {
+		final int w, h, cols, rows;
+		final List<WritableImage> pages = new ArrayList<>();
+		final ArrayDeque<Slot> free = new ArrayDeque<>();
+		final LinkedHashMap<Key, Slot> resident = new LinkedHashMap<>(64, 0.75f, true);
+
+		Sheet(int w, int h) {
+			this.w = w;
+			this.h = h;
+			this.cols = PAGE_SIZE / (w + GUTTER);
+			this.rows = PAGE_SIZE / (h + GUTTER);
+		}
+
+		Slot slotFor(Image image) {
+			Slot slot = resident.get(new Key(image, this, null));
+			if (slot != null) {
+				slot.epoch = epoch;
+				return slot;
+			}
+
+			slot = free.poll();
+			if (slot == null && pages.size() < MAX_PAGES_PER_SHEET && totalPages() < MAX_PAGES) {
+				addPage();
+				slot = free.poll();
+			}
+
+			if (slot == null) {
+				Iterator<Map.Entry<Key, Slot>> eldest = resident.entrySet().iterator();
+				if (!eldest.hasNext()) return null;
+
+				Map.Entry<Key, Slot> entry = eldest.next();
+				if (entry.getValue().epoch == epoch) return null; // Everything here is still waiting to be drawn.
+
+				slot = entry.getValue();
+				eldest.remove();
+				++evictions;
+			}
+
+			slot.page.getPixelWriter().setPixels(slot.x, slot.y, w, h, image.getPixelReader(), 0, 0);
+			slot.epoch = epoch;
+			resident.put(new Key(image, this, collected), slot);
+			++uploads;
+			return slot;
+		}
+
+		private void addPage() {
+			WritableImage page = new WritableImage(PAGE_SIZE, PAGE_SIZE);
+			pages.add(page);
+
+			for (int row = 0; row < rows; ++row) {
+				for (int col = 0; col < cols; ++col) {
+					free.add(new Slot(page, col * (w + GUTTER), row * (h + GUTTER)));
+				}
+			}
+		}
+	}
+
+	private final Map<Long, Sheet> sheets = new HashMap<>();
+	private final ReferenceQueue<Image> collected = new ReferenceQueue<>();
+	private long epoch = 0, pulse = Long.MIN_VALUE;
+	private long uploads = 0, evictions = 0;
+
+	private ThumbnailAtlas() {
+	}
+
+	private int totalPages() {
+		int pages = 0;
+		for (Sheet sheet : sheets.values()) pages += sheet.pages.size();
+		return pages;
+	}
+
+	/**
+	 * Notes the start of a pulse. Everything drawn from the atlas before it has been rasterized by now, so those slots can
+	 * be reused, and slots of thumbnails which have since been garbage collected are freed.
+	 *
+	 * @param now The pulse's timestamp, as given to AnimationTimer.handle. Repeated calls within a pulse are ignored.
+	 */
+	void pulse(long now) {
+		if (now == pulse) return;
+		pulse = now;
+		++epoch;
+
+		for (Key key = (Key) collected.poll(); key != null; key = (Key) collected.poll()) {
+			final Slot slot = key.sheet.resident.remove(key);
+			if (slot != null) key.sheet.free.add(slot);
+		}
+	}
+
+	/**
+	 * Draws a thumbnail from the atlas, packing it in first if need be. Only call from a pulse, once pulse has been told.
+	 *
+	 * @return True if the thumbnail was drawn; false if it can't be packed, and the caller should draw it directly.
+	 */
+	boolean draw(GraphicsContext gfx, Image image, double x, double y, double w, double h) {
+		if (image == null || image.getProgress() < 1.0 || image.isError() || image.getPixelReader() == null) return false;
+
+		final int iw = (int) image.getWidth(), ih = (int) image.getHeight();
+		if (iw <= 0 || ih <= 0 || iw + GUTTER > PAGE_SIZE / 2 || ih + GUTTER > PAGE_SIZE / 2) return false;
+
+		final long size = ((long) iw << 32) | ih;
+		Sheet sheet = sheets.get(size);
+		if (sheet == null) {
+			if (sheets.size() >= MAX_SHEETS || totalPages() >= MAX_PAGES) return false;
+			sheets.put(size, sheet = new Sheet(iw, ih));
+		}
+
+		final Slot slot = sheet.slotFor(image);
+		if (slot == null) return false;
+
+		gfx.drawImage(slot.page, slot.x, slot.y, iw, ih, x, y, w, h);
+		return true;
+	}
+
+	public Stats stats() {
+		int pages = 0, resident = 0;
+		for (Sheet sheet : sheets.values()) {
+			pages += sheet.pages.size();
+			resident += sheet.resident.size();
+		}
+
+		return new Stats(sheets.size(), pages, resident, uploads, evictions);
+	}
+}
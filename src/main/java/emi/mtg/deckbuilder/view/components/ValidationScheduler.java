@@ -0,0 +1,86 @@
+package emi.mtg.deckbuilder.view.components;
+
+import emi.lib.mtg.game.Format;
+import emi.mtg.deckbuilder.model.DeckList;
+import javafx.application.Platform;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Validates a deck in the background as it's edited. Requests are debounced, so a burst of edits (a drag of several
+ * cards, say) costs one validation. When the burst is over, the deck is snapshotted on the FX application thread and
+ * validated on a shared worker thread; the result is handed back on the FX application thread, unless the deck has
+ * changed since the snapshot was taken, in which case it's dropped in favour of the newer validation.
+ */
+class ValidationScheduler {
+	private static final long DEBOUNCE_MILLIS = 150;
+
+	private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread th = Executors.defaultThreadFactory().newThread(r);
+		th.setDaemon(true);
+		th.setName("DeckValidator");
+		return th;
+	});
+
+	private final DeckList deck;
+	private final Consumer<Format.Validator.Result> apply;
+	private final AtomicLong generation;
+
+	// Guarded by this, as are changes to generation, so a newer request's task is never replaced by an older one's.
+	private Future<?> pending;
+
+	/**
+	 * @param deck The deck to validate.
+	 * @param apply Receives each current validation result, on the FX application thread.
+	 */
+	ValidationScheduler(DeckList deck, Consumer<Format.Validator.Result> apply) {
+		this.deck = deck;
+		this.apply = apply;
+		this.generation = new AtomicLong(0);
+	}
+
+	/**
+	 * Notes that the deck has changed. It'll be validated once changes stop coming in. Any validation of an older
+	 * version of the deck is abandoned.
+	 */
+	synchronized void request() {
+		final long gen = generation.incrementAndGet();
+		replace(EXECUTOR.schedule(() -> Platform.runLater(() -> snapshot(gen)), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Abandons any pending validation; its result won't be applied.
+	 */
+	synchronized void cancel() {
+		generation.incrementAndGet();
+		replace(null);
+	}
+
+	private void replace(Future<?> next) {
+		if (pending != null) pending.cancel(false);
+		pending = next;
+	}
+
+	private void snapshot(long gen) {
+		if (gen != generation.get()) return;
+
+		// Copying the zone lists is cheap, and the copies share the deck's card instances, which results are keyed by.
+		final DeckList snapshot = new DeckList(deck.name(), deck.author(), deck.format(), deck.description(), deck.cards());
+
+		synchronized (this) {
+			if (gen == generation.get()) replace(EXECUTOR.submit(() -> validate(gen, snapshot)));
+		}
+	}
+
+	private void validate(long gen, DeckList snapshot) {
+		if (gen != generation.get()) return;
+
+		final Format.Validator.Result result = snapshot.validate();
+
+		Platform.runLater(() -> {
+			if (gen == generation.get()) apply.accept(result);
+		});
+	}
+}
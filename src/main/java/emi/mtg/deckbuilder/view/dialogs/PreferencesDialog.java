@@ -301,6 +301,12 @@ public class PreferencesDialog extends Alert {
 		}
 	}
 
+	private static class ImageMemoryPreference extends NumberPreference {
+		public ImageMemoryPreference(String label, Tooltip tooltip, Function<Preferences, Double> fromPrefs, Predicate<Double> validate, BiConsumer<Preferences, Double> toPrefs) {
+			super(label, 64.0, 16384.0, tooltip, fromPrefs, validate, toPrefs);
+		}
+	}
+
 	private static class StringLikePreference<T> extends OneControlPreference<T, TextField> {
 		public StringLikePreference(Consumer<TextField> modifier, Function<String, T> fromString, Function<T, String> toString, String label, Tooltip tooltip, Function<Preferences, T> fromPrefs, Predicate<T> validate, BiConsumer<Preferences, T> toPrefs) {
 			super(
@@ -650,6 +656,10 @@ public class PreferencesDialog extends Alert {
 		map.put("Collection & Zones", new PrefEntry[] {
 				reflectField(SearchProviderPreference::new, "Search Provider", "searchProvider", x -> true),
 				reflectField(StringPreference::new, "New Window Search", "defaultQuery", x -> true),
+				reflectField(BooleanPreference::new, "Specialize Expression Filter Searches", "specializeSearches", x -> true),
+				reflectField(BooleanPreference::new, "Repaint Only Changed Card Regions", "incrementalRepaint", x -> true),
+				reflectField(BooleanPreference::new, "Draw Smaller Thumbnails When Zoomed Out", "mipmappedThumbnails", x -> true),
+				reflectField(BooleanPreference::new, "Pack Thumbnails Into Shared Textures", "thumbnailAtlas", x -> true),
 				new PrefSeparator(),
 				reflectField(BooleanPreference::new, "The Future is Now", "theFutureIsNow", x -> true),
 				reflectField(GroupingPreference::new, "Collection Grouping", "collectionGrouping", x -> true),
@@ -670,6 +680,8 @@ public class PreferencesDialog extends Alert {
 				new PrefSeparator(),
 				reflectField(PathPreference::new, "Data Path", "dataPath", PATH_WRITABLE_VALIDATOR),
 				reflectField(PathPreference::new, "Images Path", "imagesPath", IMAGES_PATH_VALIDATOR),
+				reflectField(ImageMemoryPreference::new, "Image Memory (MB)", "imageCacheMegabytes", x -> true),
+				reflectField(BooleanPreference::new, "Packed Thumbnail Cache", "packedThumbnails", x -> true),
 				new PrefSeparator(),
 				reflectField(BooleanPreference::new, "Auto-Update Data", "autoUpdateData", x -> true),
 				reflectField(BooleanPreference::new, "Auto-Update Deckbuilder", "autoUpdateProgram", x -> true),
@@ -114,6 +114,26 @@ public class FlowGrid implements CardView.LayoutEngine {
 		return idx < 0 || idx >= groupSize ? -1 : idx;
 	}
 
+	@Override
+	public int[] visibleRange(CardView view, CardView.MVec2d min, CardView.MVec2d max, int groupSize, int[] buffer) {
+		if (buffer == null) {
+			buffer = new int[2];
+		}
+
+		double p = view.cardPadding();
+		double php = p + view.cardHeight() + p;
+
+		int stride = stride(view);
+
+		// Row r spans p + r * php to p + r * php + h; only whole rows are culled.
+		int firstRow = (int) Math.max(0.0, Math.ceil((min.y - p - view.cardHeight()) / php));
+		int lastRow = (int) Math.min(groupSize, Math.floor((max.y - p) / php));
+
+		buffer[0] = Math.min(groupSize, firstRow * stride);
+		buffer[1] = lastRow < firstRow ? buffer[0] : Math.min(groupSize, (lastRow + 1) * stride);
+		return buffer;
+	}
+
 	@Override
 	public boolean cardInSelection(CardView view, CardView.MVec2d cardPos, CardView.MVec2d min, CardView.MVec2d max, int groupSize) {
 		return cardPos.x + view.cardWidth() >= min.x && cardPos.x <= max.x && cardPos.y + view.cardHeight() >= min.y && cardPos.y <= max.y;
@@ -101,6 +101,31 @@ public class Piles implements CardView.LayoutEngine {
 		return idx < 0 || idx >= groupSize ? -1 : idx;
 	}
 
+	@Override
+	public int[] visibleRange(CardView view, CardView.MVec2d min, CardView.MVec2d max, int groupSize, int[] buffer) {
+		if (buffer == null) {
+			buffer = new int[2];
+		}
+
+		double p = view.cardPadding();
+		double w = view.cardWidth();
+		double h = view.cardHeight();
+		double step = h * OVERLAP_FACTOR;
+
+		if (max.x < p || min.x > p + w) {
+			buffer[0] = buffer[1] = 0;
+			return buffer;
+		}
+
+		// Card i spans p + i * step to p + i * step + h.
+		int first = (int) Math.max(0.0, Math.ceil((min.y - p - h) / step));
+		int last = (int) Math.min(groupSize - 1, Math.floor((max.y - p) / step));
+
+		buffer[0] = Math.min(groupSize, first);
+		buffer[1] = Math.max(buffer[0], last + 1);
+		return buffer;
+	}
+
 	@Override
 	public boolean cardInSelection(CardView view, CardView.MVec2d cardPos, CardView.MVec2d min, CardView.MVec2d max, int groupSize) {
 		double p = view.cardPadding();
@@ -0,0 +1,160 @@
+package emi.mtg.deckbuilder.view.search;
+
+import emi.mtg.deckbuilder.controller.PrintIndex;
+import emi.mtg.deckbuilder.model.CardInstance;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * An LRU cache of search results, shared between every card pane. Each entry remembers, per print, whether a query
+ * matched it, so switching back to a recent query (or opening another tab on the same one) costs a byte lookup per
+ * card rather than a full evaluation. Results fill in lazily as cards are tested.
+ *
+ * Only queries whose provider reports a cache key are cached, since those depend on nothing but the print being tested.
+ * Entries are keyed by that key, the provider, whether nontraditional cards are included, and the print index they were
+ * computed against; a data reload builds a new print index, which drops every entry.
+ */
+public class QueryCache {
+	private static final int CAPACITY = 32;
+	private static final byte UNKNOWN = 0, MATCH = 1, REJECT = 2;
+
+	public static class Stats {
+		public final long hits, misses, bypasses, evictions, entries;
+
+		public Stats(long hits, long misses, long bypasses, long evictions, long entries) {
+			this.hits = hits;
+			this.misses = misses;
+			this.bypasses = bypasses;
+			this.evictions = evictions;
+			this.entries = entries;
+		}
+
+		public double hitRate() {
+			return hits + misses == 0 ? 0.0 : (double) hits / (double) (hits + misses);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d entries, %d hits, %d misses (%.1f%% hit rate), %d uncacheable, %d evictions",
+					entries, hits, misses, hitRate() * 100.0, bypasses, evictions);
+		}
+	}
+
+	private static class Key {
+		final SearchProvider provider;
+		final String query;
+		final boolean findOther;
+
+		Key(SearchProvider provider, String query, boolean findOther) {
+			this.provider = provider;
+			this.query = query;
+			this.findOther = findOther;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key other = (Key) o;
+			return provider == other.provider && query.equals(other.query) && findOther == other.findOther;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(provider), query, findOther);
+		}
+	}
+
+	private final LinkedHashMap<Key, Predicate<CardInstance>> entries;
+	private PrintIndex index;
+	private long hits, misses, bypasses, evictions;
+
+	public QueryCache() {
+		this.entries = new LinkedHashMap<Key, Predicate<CardInstance>>(CAPACITY, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Predicate<CardInstance>> eldest) {
+				if (size() <= CAPACITY) return false;
+				++evictions;
+				return true;
+			}
+		};
+		this.index = null;
+	}
+
+	/**
+	 * Returns a filter for a query, from the cache if possible.
+	 *
+	 * @param index The current print index. If null, nothing is cached.
+	 * @param provider The search provider which will parse the query.
+	 * @param query The query, as entered. An empty query is always cacheable.
+	 * @param findOther Whether the filter includes nontraditional cards.
+	 * @param compile Compiles the filter on a miss. May throw IllegalArgumentException, which is passed on.
+	 * @return The filter.
+	 */
+	public Predicate<CardInstance> get(PrintIndex index, SearchProvider provider, String query, boolean findOther, Supplier<Predicate<CardInstance>> compile) {
+		final String normalized = index == null ? null : query.isEmpty() ? "" : provider.cacheKey(query);
+
+		if (normalized == null) {
+			synchronized (this) {
+				++bypasses;
+			}
+			return compile.get();
+		}
+
+		final Key key = new Key(provider, normalized, findOther);
+
+		synchronized (this) {
+			if (this.index != index) {
+				entries.clear();
+				this.index = index;
+			}
+
+			Predicate<CardInstance> cached = entries.get(key);
+			if (cached != null) {
+				++hits;
+				return cached;
+			}
+
+			++misses;
+		}
+
+		final Predicate<CardInstance> memo = memoize(index, compile.get());
+
+		synchronized (this) {
+			if (this.index == index) entries.putIfAbsent(key, memo);
+		}
+
+		return memo;
+	}
+
+	/**
+	 * Remembers a predicate's result for every indexed print it's tested against. The states are single bytes, so
+	 * concurrent tests can at worst both evaluate the same print, and will agree on its result.
+	 */
+	private static Predicate<CardInstance> memoize(PrintIndex index, Predicate<CardInstance> live) {
+		final byte[] states = new byte[index.size()];
+
+		return ci -> {
+			int ordinal = index.ordinal(ci.print());
+			if (ordinal < 0) return live.test(ci);
+
+			byte state = states[ordinal];
+			if (state != UNKNOWN) return state == MATCH;
+
+			boolean result = live.test(ci);
+			states[ordinal] = result ? MATCH : REJECT;
+			return result;
+		};
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	public synchronized Stats stats() {
+		return new Stats(hits, misses, bypasses, evictions, entries.size());
+	}
+}
@@ -39,6 +39,31 @@ public interface SearchProvider {
 	 */
 	Predicate<CardInstance> parse(String query) throws IllegalArgumentException;
 
+	/**
+	 * Determines whether one query is known to match no more cards than another. This lets card views avoid re-testing
+	 * cards the previous query already rejected, e.g. as the user types more terms into the filter bar. When in doubt,
+	 * return false.
+	 *
+	 * @param previous A query which was successfully parsed.
+	 * @param next Another query which was successfully parsed.
+	 * @return True only if every card matching next must also match previous.
+	 */
+	default boolean narrows(String previous, String next) {
+		return false;
+	}
+
+	/**
+	 * Returns a normalized form of a query, if its results depend only on each card instance's printing, so they can be
+	 * remembered across searches. Two queries with the same key must match exactly the same printings. Queries which
+	 * look at anything else, e.g. an instance's tags, must not have a key. When in doubt, return null.
+	 *
+	 * @param query A query which was successfully parsed.
+	 * @return A normalized form of the query, or null if its results can't be cached.
+	 */
+	default String cacheKey(String query) {
+		return null;
+	}
+
 	Map<String, SearchProvider> SEARCH_PROVIDERS = PluginUtils.providers(SearchProvider.class).stream()
 			.collect(Collectors.toMap(SearchProvider::name, v -> v));
 }
@@ -1,9 +1,12 @@
 package emi.mtg.deckbuilder.view.search;
 
 import emi.lib.mtg.Card;
+import emi.mtg.deckbuilder.controller.Context;
+import emi.mtg.deckbuilder.controller.PrintIndex;
 import emi.mtg.deckbuilder.model.CardInstance;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
@@ -34,22 +37,30 @@ public class TextSearch implements SearchProvider {
 
 	private static final Pattern TERM_PATTERN = Pattern.compile("\"([^\"]+)\"|(?<!\")([^ ]+)(?!\")");
 
-	@Override
-	public Predicate<CardInstance> parse(String query) throws IllegalArgumentException {
-		boolean requiresCardname = false;
+	private static List<String> terms(String query) {
 		List<String> terms = new ArrayList<>();
 		Matcher matcher = TERM_PATTERN.matcher(query);
 		while (matcher.find()) {
 			String term = matcher.group();
 			if (term.charAt(0) == '\"') term = term.substring(1);
 			if (term.length() > 0 && term.charAt(term.length() - 1) == '\"') term = term.substring(0, term.length() - 1);
+			terms.add(term);
+		}
+		return terms;
+	}
+
+	@Override
+	public Predicate<CardInstance> parse(String query) throws IllegalArgumentException {
+		boolean requiresCardname = false;
+		List<String> terms = new ArrayList<>();
+		for (String term : terms(query)) {
 			terms.add(term.toLowerCase());
 			if (term.contains("~") || term.contains("CARDNAME")) requiresCardname = true;
 		}
 
 		final boolean finCardname = requiresCardname;
 
-		return ci -> {
+		Predicate<CardInstance> predicate = ci -> {
 			for (String term : terms) {
 				for (Card.Face face : ci.card().faces()) {
 					String finterm = term;
@@ -63,5 +74,45 @@ public class TextSearch implements SearchProvider {
 
 			return false;
 		};
+
+		PrintIndex index = Context.instantiated() ? Context.get().printIndex() : null;
+		if (index == null) return predicate;
+
+		BitSet candidates = candidates(index, terms);
+		return candidates == null ? predicate : index.prefilter(candidates, predicate);
+	}
+
+	/**
+	 * A card matches if any term appears in its text, so the candidates are the union of every term's candidates.
+	 * Tildes are substituted per face, so only the literal text around them narrows anything.
+	 */
+	private static BitSet candidates(PrintIndex index, List<String> terms) {
+		BitSet cards = new BitSet();
+
+		for (String term : terms) {
+			BitSet termCards = null;
+			for (String segment : term.split("~")) {
+				BitSet next = index.text.containing(segment);
+				if (next == null) continue;
+
+				if (termCards == null) {
+					termCards = next;
+				} else {
+					termCards.and(next);
+				}
+			}
+
+			if (termCards == null) return null;
+			cards.or(termCards);
+		}
+
+		return index.printsOf(cards);
+	}
+
+	@Override
+	public String cacheKey(String query) {
+		StringBuilder key = new StringBuilder();
+		for (String term : terms(query)) key.append(term.toLowerCase()).append('\n');
+		return key.toString();
 	}
 }
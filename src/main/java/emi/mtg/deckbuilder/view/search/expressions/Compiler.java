@@ -9,6 +9,10 @@ import emi.mtg.deckbuilder.model.Preferences;
 import emi.mtg.deckbuilder.view.MainApplication;
 
 import java.io.IOException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.util.Collection;
@@ -17,6 +21,7 @@ import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -60,28 +65,92 @@ public class Compiler {
 			}
 		}
 
-		static <T> Value<T> of(Class<T> cls, Function<CardInstance, T> calculator) {
-			return new Value<T>() {
-				@Override
-				public Class<T> type() {
-					return cls;
-				}
+		/**
+		 * A value which depends on the card instance being tested.
+		 */
+		abstract class Computed<T> implements Value<T> {
+			public final Class<T> type;
+
+			protected Computed(Class<T> cls) {
+				this.type = cls;
+			}
+
+			@Override
+			public Class<T> type() {
+				return type;
+			}
+
+			@Override
+			public String toString() {
+				return typeRep();
+			}
+
+			@Override
+			public String typeRep() {
+				return "dynamic " + type.getSimpleName();
+			}
+		}
+
+		/**
+		 * A value calculated directly from the card instance.
+		 */
+		class Dynamic<T> extends Computed<T> {
+			public final Function<CardInstance, T> calculator;
+
+			public Dynamic(Class<T> cls, Function<CardInstance, T> calculator) {
+				super(cls);
+				this.calculator = calculator;
+			}
+
+			@Override
+			public T get(CardInstance ci) {
+				return calculator.apply(ci);
+			}
+		}
+
+		/**
+		 * A unary operator (or cast, or member access) applied to a non-constant value. Kept as a node, rather than a
+		 * closure, so the Specializer can see what it's made of.
+		 */
+		class Unary<T, R> extends Computed<R> {
+			public final Value<T> operand;
+			public final Function<T, R> operator;
+
+			public Unary(Value<T> operand, Function<T, R> operator, Class<R> type) {
+				super(type);
+				this.operand = operand;
+				this.operator = operator;
+			}
+
+			@Override
+			public R get(CardInstance ci) {
+				return operator.apply(operand.get(ci));
+			}
+		}
 
-				@Override
-				public T get(CardInstance ci) {
-					return calculator.apply(ci);
-				}
+		/**
+		 * A binary operator applied to two values, at least one of which is non-constant.
+		 */
+		class Binary<A, B, R> extends Computed<R> {
+			public final Value<A> left;
+			public final BiFunction<A, B, R> operator;
+			public final Value<B> right;
+
+			public Binary(Value<A> left, BiFunction<A, B, R> operator, Value<B> right, Class<R> type) {
+				super(type);
+				this.left = left;
+				this.operator = operator;
+				this.right = right;
+			}
 
-				@Override
-				public String toString() {
-					return typeRep();
-				}
+			@Override
+			public R get(CardInstance ci) {
+				return operator.apply(left.get(ci), right.get(ci));
+			}
+		}
 
-				@Override
-				public String typeRep() {
-					return "dynamic " + cls.getSimpleName();
-				}
-			};
+		static <T> Value<T> of(Class<T> cls, Function<CardInstance, T> calculator) {
+			return new Dynamic<>(cls, calculator);
 		}
 
 		static <T> Value<T> constant(Class<T> cls, T constant) {
@@ -93,25 +162,14 @@ public class Compiler {
 		}
 
 		static <A, B, R> Value<R> applyBinaryOperator(Value<A> left, BiFunction<A, B, R> operator, Value<B> right, Class<R> finalType) {
-			if (left instanceof Value.Constant) {
+			if (left instanceof Value.Constant && right instanceof Value.Constant) {
 				final A l = ((Value.Constant<A>) left).get();
-
-				if (right instanceof Constant) {
-					final B r = ((Value.Constant<B>) right).get();
-
-					return Value.constant(finalType, operator.apply(l, r));
-				}
-
-				return Value.of(finalType, x -> operator.apply(l, right.get(x)));
-			}
-
-			if (right instanceof Constant) {
 				final B r = ((Value.Constant<B>) right).get();
 
-				return Value.of(finalType, x -> operator.apply(left.get(x), r));
+				return Value.constant(finalType, operator.apply(l, r));
 			}
 
-			return Value.of(finalType, x -> operator.apply(left.get(x), right.get(x)));
+			return new Binary<>(left, operator, right, finalType);
 		}
 
 		static <A, B, X, Y, T> Value<?> applyBinaryOperator(Value<A> left, Value<B> right, Operators.BinaryOperatorLookupResult<A, B, X, Y, T> result) {
@@ -138,7 +196,7 @@ public class Compiler {
 				return Value.constant(finalType, operator.apply(v));
 			}
 
-			return Value.of(finalType, x -> operator.apply(value.get(x)));
+			return new Unary<>(value, operator, finalType);
 		}
 	}
 
@@ -333,6 +391,70 @@ public class Compiler {
 		return input;
 	}
 
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	/**
+	 * A member access bound directly to its method, for members returning double. Can be called without boxing.
+	 */
+	private static class DoubleAccessor implements Function<Object, Object>, ToDoubleFunction<Object> {
+		private final ToDoubleFunction<Object> getter;
+
+		DoubleAccessor(ToDoubleFunction<Object> getter) {
+			this.getter = getter;
+		}
+
+		@Override
+		public Object apply(Object x) {
+			return applyAsDouble(x);
+		}
+
+		@Override
+		public double applyAsDouble(Object x) {
+			return x == null ? Double.NaN : getter.applyAsDouble(x);
+		}
+	}
+
+	/**
+	 * Binds a member access. Where possible, the method is bound with LambdaMetafactory, so each access is a direct
+	 * interface call rather than a reflective invocation; otherwise it falls back to reflection.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> accessor(java.lang.reflect.Method method, Class<?> returnType, Grammar.Identifier member) {
+		try {
+			final MethodHandle handle = LOOKUP.unreflect(method);
+			final Class<?> owner = method.getDeclaringClass();
+
+			if (method.getReturnType() == double.class) {
+				final ToDoubleFunction<Object> getter = (ToDoubleFunction<Object>) LambdaMetafactory.metafactory(LOOKUP,
+						"applyAsDouble",
+						MethodType.methodType(ToDoubleFunction.class),
+						MethodType.methodType(double.class, Object.class),
+						handle,
+						MethodType.methodType(double.class, owner)).getTarget().invoke();
+				return new DoubleAccessor(getter);
+			}
+
+			final Function<Object, Object> getter = (Function<Object, Object>) LambdaMetafactory.metafactory(LOOKUP,
+					"apply",
+					MethodType.methodType(Function.class),
+					MethodType.methodType(Object.class, Object.class),
+					handle,
+					MethodType.methodType(MethodType.methodType(method.getReturnType()).wrap().returnType(), owner)).getTarget().invoke();
+			return x -> sanitize(x == null ? null : getter.apply(x), method.getReturnType(), returnType);
+		} catch (Throwable t) {
+			// Not bindable (e.g. declared by an inaccessible class); fall through to reflection.
+		}
+
+		return x -> {
+			if (x == null) return sanitize(null, method.getReturnType(), returnType);
+			try {
+				return sanitize(method.invoke(x), method.getReturnType(), returnType);
+			} catch (IllegalAccessException | InvocationTargetException e) {
+				throw new Error(String.format("Unable to access member %s of %s (type %s): %s", member.lexeme, x, method.getDeclaringClass().getSimpleName(), e), e);
+			}
+		};
+	}
+
 	protected static Value<?> compile(Grammar.AccessExpression access) {
 		Value<?> base = compile(access.base);
 
@@ -343,14 +465,7 @@ public class Compiler {
 				java.lang.reflect.Method method = baseType.getMethod(member.lexeme);
 				if (!Modifier.isPublic(method.getModifiers())) throw new NoSuchElementException(); // Hit the catch block.
 				final Class<?> returnType = cast(method.getReturnType());
-				base = Value.applyUnaryOperator(base, (Function) x -> {
-					if (x == null) return sanitize(null, method.getReturnType(), returnType);
-					try {
-						return sanitize(method.invoke(x), method.getReturnType(), returnType);
-					} catch (IllegalAccessException | InvocationTargetException e) {
-						throw new Error(String.format("Unable to access member %s of %s (type %s): %s", member.lexeme, x, baseType.getSimpleName(), e), e);
-					}
-				}, returnType);
+				base = Value.applyUnaryOperator(base, (Function) accessor(method, returnType, member), returnType);
 			} catch (NoSuchMethodException e) {
 				throw new IllegalArgumentException(String.format("Value %s (type %s) has no member %s", base, base.type().getSimpleName(), member));
 			}
@@ -1,6 +1,7 @@
 package emi.mtg.deckbuilder.view.search.expressions;
 
 import emi.mtg.deckbuilder.model.CardInstance;
+import emi.mtg.deckbuilder.model.Preferences;
 import emi.mtg.deckbuilder.view.search.SearchProvider;
 
 import java.util.function.Predicate;
@@ -73,6 +74,18 @@ public class ExpressionFilter implements SearchProvider {
 
 	@Override
 	public Predicate<CardInstance> parse(String query) throws IllegalArgumentException {
+		return parse(query, Preferences.get().specializeSearches);
+	}
+
+	/**
+	 * Parses a query, optionally specializing it into primitive closures rather than interpreting the compiled tree.
+	 *
+	 * @param query The query to parse.
+	 * @param specialize If true, specialize the query; it will still be interpreted if it can't be specialized.
+	 * @return A predicate which tests cards against the query.
+	 * @throws IllegalArgumentException If the query couldn't be parsed.
+	 */
+	public Predicate<CardInstance> parse(String query, boolean specialize) throws IllegalArgumentException {
 		Parser parser = new Parser(query);
 		Grammar.Query parsedQuery = parser.parseRoot(Grammar.Query.class);
 		if (parsedQuery == null) throw new IllegalArgumentException("An unspecified parser error occurred. Sorry... You should send Emi your search query so she can debug this.");
@@ -87,9 +100,23 @@ public class ExpressionFilter implements SearchProvider {
 			throw new IllegalArgumentException(t);
 		}
 
+		Predicate<CardInstance> evaluator = null;
+		if (specialize) {
+			try {
+				evaluator = Specializer.predicate(compiledQuery);
+			} catch (RuntimeException re) {
+				re.printStackTrace(); // Fall back to the interpreter.
+			}
+		}
+
+		if (evaluator == null) {
+			evaluator = compiledQuery::get;
+		}
+
+		final Predicate<CardInstance> finalEvaluator = evaluator;
 		return ci -> {
 			try {
-				return compiledQuery.get(ci);
+				return finalEvaluator.test(ci);
 			} catch (Throwable t) {
 				t.printStackTrace();
 				ci.flags.add(CardInstance.Flags.Warning);
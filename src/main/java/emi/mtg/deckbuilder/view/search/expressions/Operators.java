@@ -13,8 +13,10 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.util.*;
 import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
 import java.util.function.Function;
 import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
 import java.util.regex.Pattern;
 
 public class Operators {
@@ -129,10 +131,33 @@ public class Operators {
 		public Class<T> type;
 	}
 
+	/**
+	 * Logical operators, which the Specializer short-circuits.
+	 */
+	enum Logic {
+		And,
+		Or,
+		Not
+	}
+
+	/**
+	 * A comparison between two unboxed numbers.
+	 */
+	interface DoubleRelation {
+		boolean test(double left, double right);
+	}
+
 	private static final Map<Class<?>, Map<Class<?>, Function<?, ?>>> CAST_REGISTRY = new HashMap<>();
 	private static final UnaryOperatorRegistry<?, ?>[] UNARY_REGISTRY = new UnaryOperatorRegistry[37];
 	private static final BinaryOperatorRegistry<?, ?, ?>[] BINARY_REGISTRY = new BinaryOperatorRegistry[1009];
 
+	// Primitive forms of registered operators, keyed by the registered operator itself.
+	private static final Map<Object, Object> SPECIALIZATIONS = new IdentityHashMap<>();
+
+	// Primitive forms of registered unary operators and casts to double, keyed by the registered operator itself. Each is
+	// only ever applied to the operands its boxed operator is, so its operand type can be erased.
+	private static final Map<Object, ToDoubleFunction<Object>> NUMERIC_SPECIALIZATIONS = new IdentityHashMap<>();
+
 	private static <A, B> void registerCast(Class<A> from, Class<B> to, Function<A, B> fn) {
 		Map<Class<?>, Function<?, ?>> subMap = CAST_REGISTRY.computeIfAbsent(from, k -> new HashMap<>());
 		if (subMap.containsKey(to)) throw new AssertionError(String.format("Cast from %s to %s already exists!", from, to));
@@ -149,17 +174,76 @@ public class Operators {
 	private static <A, T> void register(Class<A> object, UnaryIntent intent, Class<T> type, Function<A, T> operator) {
 		UnaryOperatorRegistry<A, T> registry = new UnaryOperatorRegistry<>(object, intent, type, operator);
 		int hash = registry.keyHash();
-		if (UNARY_REGISTRY[hash] != null) throw new AssertionError(String.format("Binary operator hash collision: %s collided with %s", registry, UNARY_REGISTRY[hash]));
+		while (UNARY_REGISTRY[hash] != null) {
+			if (UNARY_REGISTRY[hash].objectType == object && UNARY_REGISTRY[hash].intent == intent) throw new AssertionError(String.format("Duplicate unary operator: %s %s", intent, object));
+			hash = (hash + 1) % UNARY_REGISTRY.length; // Probe past collisions.
+		}
 		UNARY_REGISTRY[hash] = registry;
 	}
 
 	private static <A, B, T> void register(Class<A> left, Class<B> right, BinaryIntent intent, Class<T> returnType, BiFunction<A, B, T> operator) {
 		BinaryOperatorRegistry<A, B, T> registry = new BinaryOperatorRegistry<>(left, right, intent, returnType, operator);
 		int hash = registry.keyHash();
-		if (BINARY_REGISTRY[hash] != null) throw new AssertionError(String.format("Binary operator hash collision: %s collided with %s", registry, BINARY_REGISTRY[hash]));
+		while (BINARY_REGISTRY[hash] != null) {
+			if (BINARY_REGISTRY[hash].left == left && BINARY_REGISTRY[hash].right == right && BINARY_REGISTRY[hash].intent == intent) throw new AssertionError(String.format("Duplicate binary operator: %s", registry));
+			hash = (hash + 1) % BINARY_REGISTRY.length; // Probe past collisions.
+		}
 		BINARY_REGISTRY[hash] = registry;
 	}
 
+	private static void registerArithmetic(BinaryIntent intent, DoubleBinaryOperator operator) {
+		BiFunction<Double, Double, Double> boxed = (a, b) -> operator.applyAsDouble(a, b);
+		register(double.class, double.class, intent, double.class, boxed);
+		SPECIALIZATIONS.put(boxed, operator);
+	}
+
+	private static void registerRelation(BinaryIntent intent, DoubleRelation relation) {
+		BiFunction<Double, Double, Boolean> boxed = (a, b) -> relation.test(a, b);
+		register(double.class, double.class, intent, boolean.class, boxed);
+		SPECIALIZATIONS.put(boxed, relation);
+	}
+
+	private static <A> void registerNumeric(Class<A> object, UnaryIntent intent, ToDoubleFunction<A> operator) {
+		Function<A, Double> boxed = a -> operator.applyAsDouble(a);
+		register(object, intent, double.class, boxed);
+		NUMERIC_SPECIALIZATIONS.put(boxed, erase(operator));
+	}
+
+	private static <A> void registerNumericCast(Class<A> from, ToDoubleFunction<A> fn) {
+		Function<A, Double> boxed = a -> fn.applyAsDouble(a);
+		registerCast(from, double.class, boxed);
+		NUMERIC_SPECIALIZATIONS.put(boxed, erase(fn));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <A> ToDoubleFunction<Object> erase(ToDoubleFunction<A> fn) {
+		return (ToDoubleFunction<Object>) (ToDoubleFunction<?>) fn;
+	}
+
+	/**
+	 * Looks up the primitive form of a registered operator or cast, if it has one. Operators which implement the
+	 * primitive form themselves are their own specialization.
+	 *
+	 * @param operator The operator, as returned by lookup.
+	 * @param form The primitive form wanted, e.g. DoubleBinaryOperator or Logic.
+	 * @return The primitive form of the operator, or null if it doesn't have one of that form.
+	 */
+	static <T> T specialization(Object operator, Class<T> form) {
+		Object specialized = SPECIALIZATIONS.getOrDefault(operator, operator);
+		return form.isInstance(specialized) ? form.cast(specialized) : null;
+	}
+
+	/**
+	 * Looks up the unboxed form of a registered unary operator or cast which produces a double.
+	 *
+	 * @param operator The operator or cast, as returned by lookup.
+	 * @return The unboxed form of the operator, or null if it doesn't have one. Only apply it to the operator's own
+	 * operands.
+	 */
+	static ToDoubleFunction<Object> numericSpecialization(Object operator) {
+		return NUMERIC_SPECIALIZATIONS.get(operator);
+	}
+
 	private static <A, B> void registerCompare(Class<A> left, Class<B> right, ToDoubleBiFunction<A, B> compare) {
 		register(left, right, BinaryIntent.LessThan, boolean.class, (a, b) -> compare.applyAsDouble(a, b) < 0);
 		register(left, right, BinaryIntent.LessThanOrEqualTo, boolean.class, (a, b) -> compare.applyAsDouble(a, b) <= 0);
@@ -173,7 +257,10 @@ public class Operators {
 	}
 
 	public static <A, T> UnaryOperatorRegistry<A, T> lookup(Class<A> object, UnaryIntent intent) {
-		UnaryOperatorRegistry<?, ?> fn = UNARY_REGISTRY[UnaryOperatorRegistry.keyHash(object, intent)];
+		UnaryOperatorRegistry<?, ?> fn;
+		for (int hash = UnaryOperatorRegistry.keyHash(object, intent); (fn = UNARY_REGISTRY[hash]) != null; hash = (hash + 1) % UNARY_REGISTRY.length) {
+			if (fn.objectType == object && fn.intent == intent) break;
+		}
 		if (fn == null) return null;
 		assert fn.objectType == object;
 		assert fn.intent == intent;
@@ -181,7 +268,10 @@ public class Operators {
 	}
 
 	public static <A, B, X, Y, T> void lookup(Class<A> left, Class<B> right, BinaryIntent intent, BinaryOperatorLookupResult<A, B, X, Y, T> result) {
-		BinaryOperatorRegistry<?, ?, ?> fn = BINARY_REGISTRY[BinaryOperatorRegistry.keyHash(left, right, intent)];
+		BinaryOperatorRegistry<?, ?, ?> fn;
+		for (int hash = BinaryOperatorRegistry.keyHash(left, right, intent); (fn = BINARY_REGISTRY[hash]) != null; hash = (hash + 1) % BINARY_REGISTRY.length) {
+			if (fn.left == left && fn.right == right && fn.intent == intent) break;
+		}
 
 		if (fn == null) {
 			// This is where a bilevel map would be more efficient -- rather than guessing at workable types, we can
@@ -249,21 +339,26 @@ public class Operators {
 	}
 
 	static {
-		register(boolean.class, boolean.class, BinaryIntent.LogicalOr, boolean.class, (a, b) -> a || b);
-		register(boolean.class, boolean.class, BinaryIntent.LogicalAnd, boolean.class, (a, b) -> a && b);
-		register(boolean.class, UnaryIntent.LogicalNot, boolean.class, a -> !a);
-
-		registerCast(int.class, double.class, x -> x == null ? Double.NaN : (double) x);
-		register(double.class, double.class, BinaryIntent.Add, double.class, Double::sum);
-		register(double.class, double.class, BinaryIntent.Subtract, double.class, (a, b) -> a - b);
-		register(double.class, double.class, BinaryIntent.Multiply, double.class, (a, b) -> a * b);
-		register(double.class, double.class, BinaryIntent.Divide, double.class, (a, b) -> a / b);
-		register(double.class, double.class, BinaryIntent.LessThan, boolean.class, (a, b) -> a < b);
-		register(double.class, double.class, BinaryIntent.LessThanOrEqualTo, boolean.class, (a, b) -> a <= b);
-		register(double.class, double.class, BinaryIntent.EqualTo, boolean.class, Double::equals);
-		register(double.class, double.class, BinaryIntent.NotEqualTo, boolean.class, (a, b) -> a < b || a > b); // N.B. using != would return true for NaNs.
-		register(double.class, double.class, BinaryIntent.GreaterThanOrEqualTo, boolean.class, (a, b) -> a >= b);
-		register(double.class, double.class, BinaryIntent.GreaterThan, boolean.class, (a, b) -> a > b);
+		BiFunction<Boolean, Boolean, Boolean> or = (a, b) -> a || b, and = (a, b) -> a && b;
+		Function<Boolean, Boolean> not = a -> !a;
+		register(boolean.class, boolean.class, BinaryIntent.LogicalOr, boolean.class, or);
+		register(boolean.class, boolean.class, BinaryIntent.LogicalAnd, boolean.class, and);
+		register(boolean.class, UnaryIntent.LogicalNot, boolean.class, not);
+		SPECIALIZATIONS.put(or, Logic.Or);
+		SPECIALIZATIONS.put(and, Logic.And);
+		SPECIALIZATIONS.put(not, Logic.Not);
+
+		registerNumericCast(int.class, (Integer x) -> x == null ? Double.NaN : (double) x);
+		registerArithmetic(BinaryIntent.Add, Double::sum);
+		registerArithmetic(BinaryIntent.Subtract, (a, b) -> a - b);
+		registerArithmetic(BinaryIntent.Multiply, (a, b) -> a * b);
+		registerArithmetic(BinaryIntent.Divide, (a, b) -> a / b);
+		registerRelation(BinaryIntent.LessThan, (a, b) -> a < b);
+		registerRelation(BinaryIntent.LessThanOrEqualTo, (a, b) -> a <= b);
+		registerRelation(BinaryIntent.EqualTo, (a, b) -> Double.doubleToLongBits(a) == Double.doubleToLongBits(b)); // N.B. Double.equals semantics; NaN == NaN.
+		registerRelation(BinaryIntent.NotEqualTo, (a, b) -> a < b || a > b); // N.B. using != would return true for NaNs.
+		registerRelation(BinaryIntent.GreaterThanOrEqualTo, (a, b) -> a >= b);
+		registerRelation(BinaryIntent.GreaterThan, (a, b) -> a > b);
 
 		register(String.class, String.class, BinaryIntent.Add, String.class, (a, b) -> a + b);
 		register(String.class, String.class, BinaryIntent.LessThan, boolean.class, (a, b) -> b.contains(a) && !b.equals(a));
@@ -273,21 +368,21 @@ public class Operators {
 		register(String.class, String.class, BinaryIntent.GreaterThanOrEqualTo, boolean.class, String::contains);
 		register(String.class, String.class, BinaryIntent.GreaterThan, boolean.class, (a, b) -> a.contains(b) && !a.equals(b));
 		register(String.class, Pattern.class, BinaryIntent.DirectCompare, boolean.class, (a, b) -> b.matcher(a).find());
-		register(String.class, UnaryIntent.Count, double.class, a -> (double) a.length());
+		registerNumeric(String.class, UnaryIntent.Count, String::length);
 
 		registerCompare(Color.Combination.class, Color.Combination.class, ColorFunctions::compare);
 		register(Color.Combination.class, Color.Combination.class, BinaryIntent.Add, Color.Combination.class, ColorFunctions::plus);
 		register(Color.Combination.class, Color.Combination.class, BinaryIntent.Subtract, Color.Combination.class, ColorFunctions::minus);
-		register(Color.Combination.class, UnaryIntent.Count, double.class, ColorFunctions::count);
+		registerNumeric(Color.Combination.class, UnaryIntent.Count, ColorFunctions::count);
 
 		registerCompare(Mana.Value.class, Mana.Value.class, ManaFunctions::compare);
 		register(Mana.Value.class, Mana.Value.class, BinaryIntent.Add, Mana.Value.class, ManaFunctions::plus);
-		register(Mana.Value.class, UnaryIntent.Count, double.class, ManaFunctions::count);
+		registerNumeric(Mana.Value.class, UnaryIntent.Count, ManaFunctions::count);
 
 		registerCast(java.util.Set.class, java.util.Collection.class, x -> x);
 		registerCompare(java.util.Collection.class, String.class, StringlikeCollectionFunctions::compare);
 		register(java.util.Collection.class, String.class, BinaryIntent.DirectCompare, boolean.class, StringlikeCollectionFunctions::contains);
-		register(java.util.Collection.class, UnaryIntent.Count, double.class, StringlikeCollectionFunctions::count);
+		registerNumeric(java.util.Collection.class, UnaryIntent.Count, StringlikeCollectionFunctions::count);
 
 		registerCast(String.class, TypeLine.class, TypeLineFunctions::parse);
 		registerCompare(TypeLine.class, TypeLine.class, TypeLineFunctions::compare);
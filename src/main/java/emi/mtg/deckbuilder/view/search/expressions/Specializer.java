@@ -0,0 +1,201 @@
+package emi.mtg.deckbuilder.view.search.expressions;
+
+import emi.mtg.deckbuilder.model.CardInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.*;
+
+/**
+ * Turns a compiled Value tree into a tree of primitive-specialized closures. Numbers stay unboxed from one operator to
+ * the next, 'and' and 'or' chains are flattened and short-circuit, and constant operands are captured directly rather
+ * than fetched through another Value. Anything without a primitive form falls back to the interpreter's own
+ * operators, so the result always behaves exactly like Value.get.
+ */
+class Specializer {
+	/**
+	 * Specializes a boolean value.
+	 *
+	 * @param value The compiled query.
+	 * @return A predicate equivalent to value.get.
+	 */
+	static Predicate<CardInstance> predicate(Compiler.Value<?> value) {
+		if (value instanceof Compiler.Value.Constant) {
+			final boolean constant = (Boolean) ((Compiler.Value.Constant<?>) value).get();
+			return ci -> constant;
+		}
+
+		if (value instanceof Compiler.Value.Unary) {
+			final Compiler.Value.Unary<?, ?> unary = (Compiler.Value.Unary<?, ?>) value;
+
+			if (Operators.specialization(unary.operator, Operators.Logic.class) == Operators.Logic.Not) {
+				final Predicate<CardInstance> operand = predicate(unary.operand);
+				return ci -> !operand.test(ci);
+			}
+		}
+
+		if (value instanceof Compiler.Value.Binary) {
+			final Compiler.Value.Binary<?, ?, ?> binary = (Compiler.Value.Binary<?, ?, ?>) value;
+
+			final Operators.Logic logic = Operators.specialization(binary.operator, Operators.Logic.class);
+			if (logic == Operators.Logic.And || logic == Operators.Logic.Or) {
+				return logic(binary, logic);
+			}
+
+			final Operators.DoubleRelation relation = Operators.specialization(binary.operator, Operators.DoubleRelation.class);
+			if (relation != null) {
+				final ToDoubleFunction<CardInstance> left = number(binary.left);
+
+				if (binary.right instanceof Compiler.Value.Constant) {
+					final double right = (Double) ((Compiler.Value.Constant<?>) binary.right).get();
+					return ci -> relation.test(left.applyAsDouble(ci), right);
+				}
+
+				final ToDoubleFunction<CardInstance> right = number(binary.right);
+				return ci -> relation.test(left.applyAsDouble(ci), right.applyAsDouble(ci));
+			}
+		}
+
+		final Function<CardInstance, ?> boxed = generic(value);
+		return ci -> (Boolean) boxed.apply(ci);
+	}
+
+	/**
+	 * Specializes a numeric value.
+	 *
+	 * @param value A compiled value of type double.
+	 * @return A function equivalent to value.get, without boxing.
+	 */
+	static ToDoubleFunction<CardInstance> number(Compiler.Value<?> value) {
+		if (value instanceof Compiler.Value.Constant) {
+			final double constant = (Double) ((Compiler.Value.Constant<?>) value).get();
+			return ci -> constant;
+		}
+
+		if (value instanceof Compiler.Value.Unary) {
+			final Compiler.Value.Unary<?, ?> unary = (Compiler.Value.Unary<?, ?>) value;
+			final ToDoubleFunction<Object> operator = Operators.numericSpecialization(unary.operator);
+
+			if (operator != null) {
+				final Function<CardInstance, ?> operand = object(unary.operand);
+				return ci -> operator.applyAsDouble(operand.apply(ci));
+			}
+		}
+
+		if (value instanceof Compiler.Value.Binary) {
+			final Compiler.Value.Binary<?, ?, ?> binary = (Compiler.Value.Binary<?, ?, ?>) value;
+			final DoubleBinaryOperator operator = Operators.specialization(binary.operator, DoubleBinaryOperator.class);
+
+			if (operator != null) {
+				final ToDoubleFunction<CardInstance> left = number(binary.left), right = number(binary.right);
+				return ci -> operator.applyAsDouble(left.applyAsDouble(ci), right.applyAsDouble(ci));
+			}
+		}
+
+		final Function<CardInstance, ?> boxed = generic(value);
+		return ci -> (Double) boxed.apply(ci);
+	}
+
+	/**
+	 * Specializes a value of any type. Boxes numbers and booleans only where they leave specialized code.
+	 *
+	 * @param value A compiled value.
+	 * @return A function equivalent to value.get.
+	 */
+	static Function<CardInstance, ?> object(Compiler.Value<?> value) {
+		if (value instanceof Compiler.Value.Computed) {
+			if (value.type() == boolean.class) {
+				final Predicate<CardInstance> predicate = predicate(value);
+				return predicate::test;
+			}
+
+			if (value.type() == double.class) {
+				final ToDoubleFunction<CardInstance> number = number(value);
+				return number::applyAsDouble;
+			}
+		}
+
+		return generic(value);
+	}
+
+	/**
+	 * Mirrors the interpreter for operators with no primitive form, while still specializing their operands.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Function<CardInstance, ?> generic(Compiler.Value<?> value) {
+		if (value instanceof Compiler.Value.Constant) {
+			final Object constant = ((Compiler.Value.Constant<?>) value).get();
+			return ci -> constant;
+		}
+
+		if (value instanceof Compiler.Value.Dynamic) {
+			return ((Compiler.Value.Dynamic<?>) value).calculator;
+		}
+
+		if (value instanceof Compiler.Value.Unary) {
+			final Compiler.Value.Unary<?, ?> unary = (Compiler.Value.Unary<?, ?>) value;
+			final Function<Object, ?> operator = (Function<Object, ?>) unary.operator;
+			final Function<CardInstance, ?> operand = object(unary.operand);
+			return ci -> operator.apply(operand.apply(ci));
+		}
+
+		if (value instanceof Compiler.Value.Binary) {
+			final Compiler.Value.Binary<?, ?, ?> binary = (Compiler.Value.Binary<?, ?, ?>) value;
+			final BiFunction<Object, Object, ?> operator = (BiFunction<Object, Object, ?>) binary.operator;
+			final Function<CardInstance, ?> left = object(binary.left);
+
+			if (binary.right instanceof Compiler.Value.Constant) {
+				final Object right = ((Compiler.Value.Constant<?>) binary.right).get();
+				return ci -> operator.apply(left.apply(ci), right);
+			}
+
+			final Function<CardInstance, ?> right = object(binary.right);
+			return ci -> operator.apply(left.apply(ci), right.apply(ci));
+		}
+
+		return value::get;
+	}
+
+	private static Predicate<CardInstance> logic(Compiler.Value.Binary<?, ?, ?> root, Operators.Logic logic) {
+		final List<Predicate<CardInstance>> terms = new ArrayList<>();
+		flatten(root, logic, terms);
+
+		if (terms.size() == 2) {
+			final Predicate<CardInstance> a = terms.get(0), b = terms.get(1);
+			return logic == Operators.Logic.And ? ci -> a.test(ci) && b.test(ci) : ci -> a.test(ci) || b.test(ci);
+		}
+
+		@SuppressWarnings("unchecked")
+		final Predicate<CardInstance>[] array = (Predicate<CardInstance>[]) terms.toArray(new Predicate<?>[0]);
+
+		if (logic == Operators.Logic.And) {
+			return ci -> {
+				for (Predicate<CardInstance> term : array) {
+					if (!term.test(ci)) return false;
+				}
+				return true;
+			};
+		} else {
+			return ci -> {
+				for (Predicate<CardInstance> term : array) {
+					if (term.test(ci)) return true;
+				}
+				return false;
+			};
+		}
+	}
+
+	private static void flatten(Compiler.Value<?> value, Operators.Logic logic, List<Predicate<CardInstance>> terms) {
+		if (value instanceof Compiler.Value.Binary) {
+			final Compiler.Value.Binary<?, ?, ?> binary = (Compiler.Value.Binary<?, ?, ?>) value;
+
+			if (Operators.specialization(binary.operator, Operators.Logic.class) == logic) {
+				flatten(binary.left, logic, terms);
+				flatten(binary.right, logic, terms);
+				return;
+			}
+		}
+
+		terms.add(predicate(value));
+	}
+}
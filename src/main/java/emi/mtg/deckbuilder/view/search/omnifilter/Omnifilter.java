@@ -1,6 +1,7 @@
 package emi.mtg.deckbuilder.view.search.omnifilter;
 
 import emi.lib.mtg.Card;
+import emi.mtg.deckbuilder.controller.PrintIndex;
 import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.view.search.SearchProvider;
 import emi.mtg.deckbuilder.util.PluginUtils;
@@ -72,6 +73,27 @@ public class Omnifilter implements SearchProvider {
 		Collection<String> keys();
 		String description();
 		Predicate<CardInstance> create(Omnifilter.Operator operator, String value);
+
+		/**
+		 * Optionally narrows a search down using the print index before this filter's predicate is tested.
+		 *
+		 * @param index The print index.
+		 * @param operator The operator, as passed to create.
+		 * @param value The value, as passed to create.
+		 * @return A new bitmap of every indexed print the predicate could possibly accept, or null if this filter can't
+		 * use the index.
+		 */
+		default BitSet candidates(PrintIndex index, Omnifilter.Operator operator, String value) {
+			return null;
+		}
+
+		/**
+		 * @return True if this filter's predicates depend only on the printing being tested, so their results can be
+		 * cached. Filters which look at anything else, e.g. the instance's tags, must leave this false.
+		 */
+		default boolean printDetermined() {
+			return false;
+		}
 	}
 
 	public interface FaceFilter extends Predicate<CardInstance> {
@@ -156,4 +178,35 @@ public class Omnifilter implements SearchProvider {
 	public Predicate<CardInstance> parse(String expression) throws IllegalArgumentException {
 		return Parser.parse(expression);
 	}
+
+	/**
+	 * Parses a search expression against an explicit print index, rather than the context's.
+	 *
+	 * @param expression The search expression.
+	 * @param index The print index to narrow candidates with, or null to test every card.
+	 * @return A predicate matching the expression.
+	 * @throws IllegalArgumentException If the expression is malformed.
+	 */
+	public Predicate<CardInstance> parse(String expression, PrintIndex index) throws IllegalArgumentException {
+		return Parser.parse(expression, index);
+	}
+
+	@Override
+	public String cacheKey(String query) {
+		return Parser.cacheKey(query);
+	}
+
+	@Override
+	public boolean narrows(String previous, String next) {
+		// Clauses are implicitly and-ed together, so adding whole clauses to a query without any 'or's only narrows it.
+		try {
+			for (Lexer.Token token : new Lexer.TokenIterable(next)) {
+				if (token.type == Lexer.Token.Type.Identifier && "or".equals(token.toString())) return false;
+			}
+		} catch (RuntimeException re) {
+			return false;
+		}
+
+		return Parser.narrows(previous, next);
+	}
 }
@@ -1,6 +1,8 @@
 package emi.mtg.deckbuilder.view.search.omnifilter;
 
 import emi.lib.mtg.Mana;
+import emi.mtg.deckbuilder.controller.Context;
+import emi.mtg.deckbuilder.controller.PrintIndex;
 import emi.mtg.deckbuilder.model.CardInstance;
 
 import java.io.IOException;
@@ -23,6 +25,17 @@ public class Parser {
 		void unparse(Appendable to) throws IOException;
 
 		Predicate<CardInstance> compile();
+
+		/**
+		 * @param index The print index.
+		 * @return A new bitmap of every indexed print this node could possibly accept, or null if it can't be narrowed.
+		 */
+		BitSet candidates(PrintIndex index);
+
+		/**
+		 * @return True if this node's results depend only on the printing being tested.
+		 */
+		boolean printDetermined();
 	}
 
 	private static class Filter implements Node {
@@ -47,6 +60,16 @@ public class Parser {
 		public Predicate<CardInstance> compile() {
 			return options.compile();
 		}
+
+		@Override
+		public BitSet candidates(PrintIndex index) {
+			return options.candidates(index);
+		}
+
+		@Override
+		public boolean printDetermined() {
+			return options.printDetermined();
+		}
 	}
 
 	private static class Options implements Node {
@@ -86,6 +109,27 @@ public class Parser {
 			}
 			return tmp;
 		}
+
+		@Override
+		public BitSet candidates(PrintIndex index) {
+			BitSet tmp = null;
+			for (Clauses option : options) {
+				BitSet next = option.candidates(index);
+				if (next == null) return null;
+
+				if (tmp == null) {
+					tmp = next;
+				} else {
+					tmp.or(next);
+				}
+			}
+			return tmp;
+		}
+
+		@Override
+		public boolean printDetermined() {
+			return options.stream().allMatch(Clauses::printDetermined);
+		}
 	}
 
 	private static class Clauses implements Node {
@@ -127,10 +171,32 @@ public class Parser {
 			}
 			return tmp;
 		}
+
+		@Override
+		public BitSet candidates(PrintIndex index) {
+			BitSet tmp = null;
+			for (Clause clause : clauses) {
+				BitSet next = clause.candidates(index);
+				if (next == null) continue;
+
+				if (tmp == null) {
+					tmp = next;
+				} else {
+					tmp.and(next);
+				}
+			}
+			return tmp;
+		}
+
+		@Override
+		public boolean printDetermined() {
+			return clauses.stream().allMatch(Clause::printDetermined);
+		}
 	}
 
 	private static class Clause implements Node {
 		public static Clause parse(Parser parser) {
+			final int start = parser.symbol == null ? -1 : parser.symbol.start;
 			boolean negate = parser.accept(Lexer.Token.Type.Negate) != null;
 
 			Value lhs = Value.parse(parser);
@@ -138,19 +204,26 @@ public class Parser {
 				Operator operator = Operator.parse(parser);
 				if (operator != null) {
 					Value rhs = parser.expect(Value::parse, "Expected value");
-					return new Clause(negate, lhs, operator, rhs);
+					return new Clause(negate, lhs, operator, rhs).at(start);
 				} else {
-					return new Clause(negate, lhs);
+					return new Clause(negate, lhs).at(start);
 				}
 			} else if (parser.accept(Lexer.Token.Type.OpenParen) != null) {
 				Options options = parser.expect(Options::parse, "Expected filters");
 				parser.expect((Predicate<Lexer.Token>) t -> t.type == Lexer.Token.Type.CloseParen, "Expected close-paren");
-				return new Clause(negate, options);
+				return new Clause(negate, options).at(start);
 			}
 
 			return null;
 		}
 
+		private int start;
+
+		private Clause at(int start) {
+			this.start = start;
+			return this;
+		}
+
 		public final boolean negate;
 		public final Value lhs;
 		public final Operator operator;
@@ -247,6 +320,36 @@ public class Parser {
 			if (negate) tmp = tmp.negate();
 			return tmp;
 		}
+
+		@Override
+		public BitSet candidates(PrintIndex index) {
+			// A superset of a clause's matches says nothing about its complement.
+			if (negate) return null;
+
+			if (parenthetical != null) {
+				return parenthetical.candidates(index);
+			} else if (operator != null && rhs != null && lhs.token.type == Lexer.Token.Type.Identifier) {
+				Omnifilter.Subfilter filter = Omnifilter.SUBFILTER_FACTORIES.get(lhs.stringContents);
+				return filter == null ? null : filter.candidates(index, operator.equivalent, rhs.stringContents);
+			} else if (operator == null && (lhs.token.type == Lexer.Token.Type.Identifier || lhs.token.type == Lexer.Token.Type.LiteralString)) {
+				BitSet cards = index.text.containing(lhs.stringContents);
+				return cards == null ? null : index.printsOf(cards);
+			} else {
+				return null;
+			}
+		}
+
+		@Override
+		public boolean printDetermined() {
+			if (parenthetical != null) {
+				return parenthetical.printDetermined();
+			} else if (operator != null) {
+				Omnifilter.Subfilter filter = Omnifilter.SUBFILTER_FACTORIES.get(lhs.stringContents);
+				return filter != null && filter.printDetermined();
+			} else {
+				return true;
+			}
+		}
 	}
 
 	private static class Value implements Node {
@@ -299,6 +402,16 @@ public class Parser {
 		public Predicate<CardInstance> compile() {
 			throw new UnsupportedOperationException();
 		}
+
+		@Override
+		public BitSet candidates(PrintIndex index) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean printDetermined() {
+			throw new UnsupportedOperationException();
+		}
 	}
 
 	private static class Operator implements Node {
@@ -325,6 +438,16 @@ public class Parser {
 		public Predicate<CardInstance> compile() {
 			throw new UnsupportedOperationException();
 		}
+
+		@Override
+		public BitSet candidates(PrintIndex index) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean printDetermined() {
+			throw new UnsupportedOperationException();
+		}
 	}
 
 	private final Lexer.TokenIterator source;
@@ -362,10 +485,92 @@ public class Parser {
 	}
 
 	public static Predicate<CardInstance> parse(String expression) {
+		return parse(expression, Context.instantiated() ? Context.get().printIndex() : null);
+	}
+
+	/**
+	 * @param expression A filter expression.
+	 * @param index The print index to narrow candidates with, or null to test every card.
+	 * @return A predicate matching the expression.
+	 */
+	public static Predicate<CardInstance> parse(String expression, PrintIndex index) {
+		Lexer.TokenIterable tokens = new Lexer.TokenIterable(expression);
+		Parser parser = new Parser(tokens);
+		Filter filter = Filter.parse(parser);
+		Predicate<CardInstance> predicate = filter.compile();
+
+		if (index == null) return predicate;
+
+		BitSet candidates = filter.candidates(index);
+		return candidates == null ? predicate : index.prefilter(candidates, predicate);
+	}
+
+	/**
+	 * @param expression A filter expression.
+	 * @return The expression with whitespace, 'and's and negation symbols normalized, or null if its results depend on
+	 * more than each card's printing.
+	 */
+	public static String cacheKey(String expression) {
 		Lexer.TokenIterable tokens = new Lexer.TokenIterable(expression);
 		Parser parser = new Parser(tokens);
 		Filter filter = Filter.parse(parser);
-		return filter.compile();
+		if (!filter.printDetermined()) return null;
+
+		StringBuilder key = new StringBuilder();
+		try {
+			filter.unparse(key);
+		} catch (IOException ioe) {
+			throw new AssertionError(ioe); // StringBuilder doesn't throw.
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Decides whether one expression only narrows another: both are single runs of and-ed clauses, and the later one's
+	 * clauses are the earlier one's, unchanged, followed by at least one new clause which begins after the end of the
+	 * earlier expression. Text which continues the earlier expression's last clause (e.g. "mv" becoming "mv = 3") can
+	 * change its meaning, so it doesn't count.
+	 *
+	 * @param previous The earlier expression.
+	 * @param next The later expression.
+	 * @return True if next is known to accept only cards previous accepts; false if in doubt.
+	 */
+	public static boolean narrows(String previous, String next) {
+		if (!next.startsWith(previous) || next.trim().length() <= previous.trim().length()) return false;
+
+		try {
+			final Filter after = Filter.parse(new Parser(new Lexer.TokenIterable(next)));
+			if (after.options.options.size() != 1) return false;
+			final List<Clause> nextClauses = after.options.options.get(0).clauses;
+
+			if (previous.trim().isEmpty()) return true;
+
+			final Filter before = Filter.parse(new Parser(new Lexer.TokenIterable(previous)));
+			if (before.options.options.size() != 1) return false;
+			final List<Clause> previousClauses = before.options.options.get(0).clauses;
+
+			if (nextClauses.size() <= previousClauses.size()) return false;
+
+			for (int i = 0; i < previousClauses.size(); ++i) {
+				if (!unparse(previousClauses.get(i)).equals(unparse(nextClauses.get(i)))) return false;
+			}
+
+			// Token positions are relative to the trimmed expression; both expressions start with the same whitespace.
+			final int previousEnd = previous.trim().length();
+			return nextClauses.get(previousClauses.size()).start >= previousEnd;
+		} catch (RuntimeException re) {
+			return false;
+		}
+	}
+
+	private static String unparse(Node node) {
+		StringBuilder out = new StringBuilder();
+		try {
+			node.unparse(out);
+		} catch (IOException ioe) {
+			throw new AssertionError(ioe); // StringBuilder doesn't throw.
+		}
+		return out.toString();
 	}
 
 	public static void main(String[] args) throws IOException {
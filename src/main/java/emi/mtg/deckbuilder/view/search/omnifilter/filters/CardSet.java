@@ -2,10 +2,12 @@ package emi.mtg.deckbuilder.view.search.omnifilter.filters;
 
 import emi.lib.mtg.Set;
 import emi.mtg.deckbuilder.controller.Context;
+import emi.mtg.deckbuilder.controller.PrintIndex;
 import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.view.search.omnifilter.Omnifilter;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.function.Predicate;
 
@@ -20,11 +22,15 @@ public class CardSet implements Omnifilter.Subfilter {
 		return "Find cards printed in the named set, by full name or set code. `=` will show _only_ prints in that set.";
 	}
 
-	@Override
-	public Predicate<CardInstance> create(Omnifilter.Operator operator, String value) {
-		Set set = Context.get().data.sets().stream()
+	private static Set set(String value) {
+		return Context.get().data.sets().stream()
 				.filter(s -> s.name().equalsIgnoreCase(value) || s.code().equalsIgnoreCase(value))
 				.findAny().orElseThrow(() -> new IllegalArgumentException("No such set " + value));
+	}
+
+	@Override
+	public Predicate<CardInstance> create(Omnifilter.Operator operator, String value) {
+		Set set = set(value);
 
 		return ci -> {
 			if (set == null) {
@@ -50,4 +56,24 @@ public class CardSet implements Omnifilter.Subfilter {
 			}
 		};
 	}
+
+	@Override
+	public BitSet candidates(PrintIndex index, Omnifilter.Operator operator, String value) {
+		switch (operator) {
+			case LESS_OR_EQUALS:
+			case EQUALS:
+				return index.set.get(set(value));
+			case GREATER_THAN:
+			case DIRECT:
+			case GREATER_OR_EQUALS:
+				return index.allPrints(index.set.get(set(value)));
+			default:
+				return null;
+		}
+	}
+
+	@Override
+	public boolean printDetermined() {
+		return true;
+	}
 }
@@ -2,10 +2,12 @@ package emi.mtg.deckbuilder.view.search.omnifilter.filters;
 
 import emi.lib.mtg.Card;
 import emi.lib.mtg.TypeLine;
+import emi.mtg.deckbuilder.controller.PrintIndex;
 import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.view.search.omnifilter.Omnifilter;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.function.Predicate;
 
@@ -26,4 +28,36 @@ public class CardType implements Omnifilter.Subfilter {
 		Predicate<Card.Face> facePredicate = Omnifilter.Operator.comparison(operator == Omnifilter.Operator.DIRECT ? Omnifilter.Operator.GREATER_OR_EQUALS : operator, f -> TypeLine.COMPARATOR.compare(f.type(), fragment).value());
 		return (Omnifilter.FaceFilter) facePredicate::test;
 	}
+
+	@Override
+	public BitSet candidates(PrintIndex index, Omnifilter.Operator operator, String value) {
+		switch (operator) {
+			case DIRECT:
+			case EQUALS:
+			case GREATER_THAN:
+			case GREATER_OR_EQUALS:
+				break;
+			default:
+				return null;
+		}
+
+		TypeLine fragment = TypeLine.Basic.parseFragment(value);
+		if (fragment.cardTypes() == null || fragment.cardTypes().isEmpty()) return null;
+
+		// Some face has to have every card type in the fragment, so every print has each of them on some face.
+		BitSet candidates = null;
+		for (emi.lib.mtg.enums.CardType type : fragment.cardTypes()) {
+			if (candidates == null) {
+				candidates = index.type.get(type);
+			} else {
+				candidates.and(index.type.get(type));
+			}
+		}
+		return candidates;
+	}
+
+	@Override
+	public boolean printDetermined() {
+		return true;
+	}
 }
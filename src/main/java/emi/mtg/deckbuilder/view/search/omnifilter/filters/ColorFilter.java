@@ -1,10 +1,12 @@
 package emi.mtg.deckbuilder.view.search.omnifilter.filters;
 
 import emi.lib.mtg.enums.Color;
+import emi.mtg.deckbuilder.controller.PrintIndex;
 import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.view.search.omnifilter.Omnifilter;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.function.Predicate;
 
@@ -27,6 +29,14 @@ public abstract class ColorFilter implements Omnifilter.Subfilter {
 		protected Predicate<CardInstance> create(Omnifilter.Operator operator, Color.Combination colors) {
 			return Omnifilter.Operator.faceComparison(operator, f -> Color.Combination.COMPARATOR.compare(f.color(), colors).value());
 		}
+
+		protected BitSet candidates(PrintIndex index, Omnifilter.Operator operator, int size) {
+			return index.color.matching(Omnifilter.Operator.comparison(operator, c -> c.size() - size));
+		}
+
+		protected BitSet candidates(PrintIndex index, Omnifilter.Operator operator, Color.Combination colors) {
+			return index.color.matching(Omnifilter.Operator.comparison(operator, c -> Color.Combination.COMPARATOR.compare(c, colors).value()));
+		}
 	}
 
 	public static class ColorIdentity extends ColorFilter {
@@ -47,12 +57,24 @@ public abstract class ColorFilter implements Omnifilter.Subfilter {
 		protected Predicate<CardInstance> create(Omnifilter.Operator operator, Color.Combination colors) {
 			return Omnifilter.Operator.comparison(operator, ci -> Color.Combination.COMPARATOR.compare(ci.card().colorIdentity(), colors).value());
 		}
+
+		protected BitSet candidates(PrintIndex index, Omnifilter.Operator operator, int count) {
+			return index.identity.matching(Omnifilter.Operator.comparison(operator, c -> c.size() - count));
+		}
+
+		protected BitSet candidates(PrintIndex index, Omnifilter.Operator operator, Color.Combination colors) {
+			return index.identity.matching(Omnifilter.Operator.comparison(operator, c -> Color.Combination.COMPARATOR.compare(c, colors).value()));
+		}
 	}
 
 	protected abstract Predicate<CardInstance> create(Omnifilter.Operator operator, int count);
 
 	protected abstract Predicate<CardInstance> create(Omnifilter.Operator operator, Color.Combination colors);
 
+	protected abstract BitSet candidates(PrintIndex index, Omnifilter.Operator operator, int count);
+
+	protected abstract BitSet candidates(PrintIndex index, Omnifilter.Operator operator, Color.Combination colors);
+
 	@Override
 	public Predicate<CardInstance> create(Omnifilter.Operator operator, String value) {
 		try {
@@ -68,4 +90,25 @@ public abstract class ColorFilter implements Omnifilter.Subfilter {
 		if (operator == Omnifilter.Operator.DIRECT) operator = Omnifilter.Operator.LESS_OR_EQUALS;
 		return create(operator, colors);
 	}
+
+	@Override
+	public BitSet candidates(PrintIndex index, Omnifilter.Operator operator, String value) {
+		try {
+			int count = Integer.parseInt(value);
+			if (operator == Omnifilter.Operator.DIRECT) operator = Omnifilter.Operator.EQUALS;
+			return candidates(index, operator, count);
+		} catch (NumberFormatException nfe) {
+			// pass
+		}
+
+		Color.Combination colors = Color.Combination.byString(value);
+		if (colors == null) throw new IllegalArgumentException("Couldn't recognize color constant \"" + value + "\"");
+		if (operator == Omnifilter.Operator.DIRECT) operator = Omnifilter.Operator.LESS_OR_EQUALS;
+		return candidates(index, operator, colors);
+	}
+
+	@Override
+	public boolean printDetermined() {
+		return true;
+	}
 }
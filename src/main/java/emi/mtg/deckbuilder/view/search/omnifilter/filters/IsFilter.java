@@ -63,4 +63,9 @@ public class IsFilter implements Omnifilter.Subfilter {
 		if (!OPTS.containsKey(value.toLowerCase())) throw new IllegalArgumentException("Unrecognzied 'is' check \"" + value + "\"");
 		return OPTS.get(value.toLowerCase());
 	}
+
+	@Override
+	public boolean printDetermined() {
+		return true;
+	}
 }
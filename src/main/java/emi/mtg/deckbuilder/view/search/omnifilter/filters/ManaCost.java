@@ -31,4 +31,9 @@ public class ManaCost implements Omnifilter.Subfilter {
 		if (operator == Omnifilter.Operator.DIRECT) operator = Omnifilter.Operator.EQUALS;
 		return Omnifilter.Operator.faceComparison(operator, f -> Mana.Value.SEARCH_COMPARATOR.compare(f.manaCost(), mana).value());
 	}
+
+	@Override
+	public boolean printDetermined() {
+		return true;
+	}
 }
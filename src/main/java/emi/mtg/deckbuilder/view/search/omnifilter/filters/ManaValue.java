@@ -1,9 +1,11 @@
 package emi.mtg.deckbuilder.view.search.omnifilter.filters;
 
+import emi.mtg.deckbuilder.controller.PrintIndex;
 import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.view.search.omnifilter.Omnifilter;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.function.Predicate;
 
@@ -24,4 +26,16 @@ public class ManaValue implements Omnifilter.Subfilter {
 		if (operator == Omnifilter.Operator.DIRECT) operator = Omnifilter.Operator.EQUALS;
 		return Omnifilter.Operator.faceComparison(operator, f -> f.manaValue() - doubleValue);
 	}
+
+	@Override
+	public BitSet candidates(PrintIndex index, Omnifilter.Operator operator, String value) {
+		double doubleValue = Double.parseDouble(value);
+		if (operator == Omnifilter.Operator.DIRECT) operator = Omnifilter.Operator.EQUALS;
+		return index.manaValue.matching(Omnifilter.Operator.comparison(operator, mv -> mv - doubleValue));
+	}
+
+	@Override
+	public boolean printDetermined() {
+		return true;
+	}
 }
@@ -97,4 +97,9 @@ public abstract class PowerToughnessLoyalty implements Omnifilter.Subfilter {
 		if (operator == Omnifilter.Operator.DIRECT) operator = Omnifilter.Operator.EQUALS;
 		return Omnifilter.Operator.faceComparison(operator, f -> getValue(f) - doubleValue);
 	}
+
+	@Override
+	public boolean printDetermined() {
+		return true;
+	}
 }
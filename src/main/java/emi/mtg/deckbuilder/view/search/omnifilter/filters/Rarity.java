@@ -1,9 +1,11 @@
 package emi.mtg.deckbuilder.view.search.omnifilter.filters;
 
+import emi.mtg.deckbuilder.controller.PrintIndex;
 import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.view.search.omnifilter.Omnifilter;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.function.Predicate;
 
@@ -18,14 +20,31 @@ public class Rarity implements Omnifilter.Subfilter {
 		return "Find cards printed at/above/below the given rarity.";
 	}
 
-	@Override
-	public Predicate<CardInstance> create(Omnifilter.Operator operator, String svalue) {
-		emi.lib.mtg.enums.Rarity value = Arrays.stream(emi.lib.mtg.enums.Rarity.values())
+	private static emi.lib.mtg.enums.Rarity rarity(String svalue) {
+		return Arrays.stream(emi.lib.mtg.enums.Rarity.values())
 				.filter(r -> r.toString().toLowerCase().startsWith(svalue.toLowerCase()))
 				.findAny()
 				.orElseThrow(() -> new IllegalArgumentException("Couldn't find a card rarity matching \"" + svalue + "\""));
+	}
+
+	@Override
+	public Predicate<CardInstance> create(Omnifilter.Operator operator, String svalue) {
+		emi.lib.mtg.enums.Rarity value = rarity(svalue);
 
 		if (operator == Omnifilter.Operator.DIRECT) operator = Omnifilter.Operator.EQUALS;
 		return Omnifilter.Operator.comparison(operator, ci -> ci.print().rarity().ordinal() - value.ordinal());
 	}
+
+	@Override
+	public BitSet candidates(PrintIndex index, Omnifilter.Operator operator, String svalue) {
+		emi.lib.mtg.enums.Rarity value = rarity(svalue);
+
+		if (operator == Omnifilter.Operator.DIRECT) operator = Omnifilter.Operator.EQUALS;
+		return index.rarity.matching(Omnifilter.Operator.comparison(operator, r -> r.ordinal() - value.ordinal()));
+	}
+
+	@Override
+	public boolean printDetermined() {
+		return true;
+	}
 }
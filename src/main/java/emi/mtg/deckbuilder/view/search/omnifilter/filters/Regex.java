@@ -147,4 +147,9 @@ public class Regex implements Omnifilter.Subfilter {
 		BiPredicate<String, String> base = Regex.create(value, false);
 		return (Omnifilter.FaceFilter) face -> base.test(face.rules(), face.name());
 	}
+
+	@Override
+	public boolean printDetermined() {
+		return true;
+	}
 }
@@ -1,5 +1,6 @@
 package emi.mtg.deckbuilder.view.search.omnifilter.filters;
 
+import emi.mtg.deckbuilder.controller.PrintIndex;
 import emi.mtg.deckbuilder.model.CardInstance;
 import emi.mtg.deckbuilder.view.search.omnifilter.Omnifilter;
 
@@ -18,8 +19,10 @@ public class RulesText implements Omnifilter.Subfilter {
 		return "Search cards' rules (oracle) text. Only responds to the `:` operator.";
 	}
 
+	private static final String CARDNAME_SPLIT = "(?<=~|CARDNAME)|(?=~|CARDNAME)";
+
 	private static BiPredicate<String, String> create(String searchText) {
-		MatchUtils.DeferredRope<String> rope = new MatchUtils.DeferredRope<>(Arrays.stream(searchText.split("(?<=~|CARDNAME)|(?=~|CARDNAME)"))
+		MatchUtils.DeferredRope<String> rope = new MatchUtils.DeferredRope<>(Arrays.stream(searchText.split(CARDNAME_SPLIT))
 				.filter(s -> !s.isEmpty())
 				.map(s -> MatchUtils.cardTextTokenMatcher(s, true, false))
 				.collect(Collectors.toList()));
@@ -34,4 +37,31 @@ public class RulesText implements Omnifilter.Subfilter {
 		BiPredicate<String, String> base = RulesText.create(value);
 		return (Omnifilter.FaceFilter) face -> base.test(face.rules(), face.name());
 	}
+
+	@Override
+	public BitSet candidates(PrintIndex index, Omnifilter.Operator operator, String value) {
+		if (operator != Omnifilter.Operator.DIRECT) return null;
+
+		// Every literal segment of the rope has to appear somewhere in the rules text.
+		BitSet cards = null;
+		for (String segment : value.split(CARDNAME_SPLIT)) {
+			if (segment.isEmpty() || "~".equals(segment) || "CARDNAME".equals(segment)) continue;
+
+			BitSet next = index.text.containing(segment);
+			if (next == null) continue;
+
+			if (cards == null) {
+				cards = next;
+			} else {
+				cards.and(next);
+			}
+		}
+
+		return cards == null ? null : index.printsOf(cards);
+	}
+
+	@Override
+	public boolean printDetermined() {
+		return true;
+	}
 }
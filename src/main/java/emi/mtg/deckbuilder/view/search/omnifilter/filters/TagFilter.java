@@ -28,4 +28,9 @@ public class TagFilter implements Omnifilter.Subfilter {
 		if (operator == Omnifilter.Operator.DIRECT) operator = Omnifilter.Operator.GREATER_OR_EQUALS;
 		return Omnifilter.Operator.comparison(operator, ci -> CollectionComparator.SET_COMPARATOR.compare(ci.tags(), tagSet).value());
 	}
+
+	@Override
+	public boolean printDetermined() {
+		return false; // Tags live on each instance.
+	}
 }